@@ -60,13 +60,19 @@ public class GenerateJteTask extends JteTaskBase {
         templateEngine.setHtmlAttributes(getHtmlAttributes());
         templateEngine.setHtmlCommentsPreserved(Boolean.TRUE.equals(getHtmlCommentsPreserved()));
         templateEngine.setBinaryStaticContent(Boolean.TRUE.equals(getBinaryStaticContent()));
+        templateEngine.setBundleBinaryStaticContent(Boolean.TRUE.equals(getBundleBinaryStaticContent()));
+        templateEngine.setDirectBinaryStaticContent(Boolean.TRUE.equals(getDirectBinaryStaticContent()));
         templateEngine.setTargetResourceDirectory(getTargetResourceDirectory());
         templateEngine.setGenerateNativeImageResources(getGenerateNativeImageResources());
         templateEngine.setProjectNamespace(getProject().getGroup() + "/" + getProject().getName());
 
         int amount;
         try {
-            templateEngine.cleanAll();
+            if (Boolean.TRUE.equals(getIncremental())) {
+                templateEngine.setIncrementalCompilation(true);
+            } else {
+                templateEngine.cleanAll();
+            }
             amount = templateEngine.generateAll().size();
         } catch (Exception e) {
             logger.error("Failed to generate templates.", e);
@@ -26,12 +26,15 @@ public interface JteExtension
     Property<String[]> getHtmlAttributes();
     Property<Boolean> getHtmlCommentsPreserved();
     Property<Boolean> getBinaryStaticContent();
+    Property<Boolean> getBundleBinaryStaticContent();
+    Property<Boolean> getDirectBinaryStaticContent();
     Property<String> getPackageName();
     Property<Path> getTargetResourceDirectory();
     ConfigurableFileCollection getCompilePath();
     Property<String> getHtmlPolicyClass();
     Property<Boolean> getGenerateNativeImageResources();
     Property<String[]> getCompileArgs();
+    Property<Boolean> getIncremental();
 
     default void precompile() {
         getStage().set(JteStage.PRECOMPILE);
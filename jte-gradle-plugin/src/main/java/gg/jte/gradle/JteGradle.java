@@ -72,6 +72,9 @@ public class JteGradle implements Plugin<Project> {
         }));
         extension.getContentType().convention(ContentType.Html);
         extension.getBinaryStaticContent().convention(false);
+        extension.getBundleBinaryStaticContent().convention(false);
+        extension.getDirectBinaryStaticContent().convention(false);
+        extension.getIncremental().convention(false);
         extension.getPackageName().convention(Constants.PACKAGE_NAME_PRECOMPILED);
         extension.getTargetResourceDirectory().convention(new File(project.getBuildDir(), "generated-resources/jte").toPath());
 
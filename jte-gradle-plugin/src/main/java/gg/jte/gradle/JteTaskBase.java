@@ -104,6 +104,17 @@ public abstract class JteTaskBase extends DefaultTask {
         setterCalled();
     }
 
+    @Input
+    @Optional
+    public Boolean getIncremental() {
+        return extension.getIncremental().getOrNull();
+    }
+
+    public void setIncremental(Boolean incremental) {
+        extension.getIncremental().set(incremental);
+        setterCalled();
+    }
+
     public void setBinaryStaticContent(Boolean binaryStaticContent) {
         extension.getBinaryStaticContent().set(binaryStaticContent);
         setterCalled();
@@ -115,6 +126,28 @@ public abstract class JteTaskBase extends DefaultTask {
         return extension.getBinaryStaticContent().getOrNull();
     }
 
+    public void setBundleBinaryStaticContent(Boolean bundleBinaryStaticContent) {
+        extension.getBundleBinaryStaticContent().set(bundleBinaryStaticContent);
+        setterCalled();
+    }
+
+    @Input
+    @Optional
+    public Boolean getBundleBinaryStaticContent() {
+        return extension.getBundleBinaryStaticContent().getOrNull();
+    }
+
+    public void setDirectBinaryStaticContent(Boolean directBinaryStaticContent) {
+        extension.getDirectBinaryStaticContent().set(directBinaryStaticContent);
+        setterCalled();
+    }
+
+    @Input
+    @Optional
+    public Boolean getDirectBinaryStaticContent() {
+        return extension.getDirectBinaryStaticContent().getOrNull();
+    }
+
     @Input
     @Optional
     public String getPackageName() {
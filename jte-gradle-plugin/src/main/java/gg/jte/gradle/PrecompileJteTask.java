@@ -85,12 +85,18 @@ public class PrecompileJteTask extends JteTaskBase {
         }
         templateEngine.setHtmlCommentsPreserved(Boolean.TRUE.equals(getHtmlCommentsPreserved()));
         templateEngine.setBinaryStaticContent(Boolean.TRUE.equals(getBinaryStaticContent()));
+        templateEngine.setBundleBinaryStaticContent(Boolean.TRUE.equals(getBundleBinaryStaticContent()));
+        templateEngine.setDirectBinaryStaticContent(Boolean.TRUE.equals(getDirectBinaryStaticContent()));
         templateEngine.setCompileArgs(getCompileArgs());
         templateEngine.setTargetResourceDirectory(getTargetResourceDirectory());
 
         int amount;
         try {
-            templateEngine.cleanAll();
+            if (Boolean.TRUE.equals(getIncremental())) {
+                templateEngine.setIncrementalCompilation(true);
+            } else {
+                templateEngine.cleanAll();
+            }
             List<String> compilePathFiles = getCompilePath().getFiles().stream().map(File::getAbsolutePath).collect(Collectors.toList());
             amount = templateEngine.precompileAll(compilePathFiles).size();
         } catch (Exception e) {
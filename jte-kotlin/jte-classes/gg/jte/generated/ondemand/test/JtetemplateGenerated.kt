@@ -0,0 +1,24 @@
+package gg.jte.generated.ondemand.test
+class JtetemplateGenerated {
+companion object {
+	@JvmField val JTE_NAME = "test/template.kte"
+	@JvmField val JTE_LINE_INFO = intArrayOf(0,0,0,0,0,1,1,1,1,1,1,1)
+	@JvmStatic fun render(jteOutput:gg.jte.TemplateOutput, jteHtmlInterceptor:gg.jte.html.HtmlInterceptor?, model:gg.jte.kotlin.TemplateEngineTest.Model) {
+		if (model.x == 42) {
+			jteOutput.writeContent("Bingo")
+		} else if (model.x == 43) {
+			jteOutput.writeContent("Bongo")
+		}
+		jteOutput.writeContent("!")
+	}
+	@JvmStatic fun renderMap(jteOutput:gg.jte.TemplateOutput, jteHtmlInterceptor:gg.jte.html.HtmlInterceptor?, params:Map<String, Any?>) {
+		val model = params["model"] as gg.jte.kotlin.TemplateEngineTest.Model
+		render(jteOutput, jteHtmlInterceptor, model);
+	}
+	@JvmStatic fun renderArray(jteOutput:gg.jte.TemplateOutput, jteHtmlInterceptor:gg.jte.html.HtmlInterceptor?, params:Array<Any?>) {
+		gg.jte.runtime.TemplateUtils.checkParamCount(JTE_NAME, params, 1, 1)
+		val model = params[0] as gg.jte.kotlin.TemplateEngineTest.Model
+		render(jteOutput, jteHtmlInterceptor, model);
+	}
+}
+}
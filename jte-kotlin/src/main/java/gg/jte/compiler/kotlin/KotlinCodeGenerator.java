@@ -108,7 +108,7 @@ public class KotlinCodeGenerator implements CodeGenerator {
 
         kotlinCode.append(") {\n");
 
-        paramOrder.put(classInfo.name, parameters);
+        compiler.registerParams(classInfo, parameters);
     }
 
     @Override
@@ -163,12 +163,56 @@ public class KotlinCodeGenerator implements CodeGenerator {
         kotlinCode.append(");\n");
         kotlinCode.append("\t}\n");
 
+        writeRenderArray();
+
         kotlinCode.append("}\n");
         kotlinCode.append("}\n");
 
         this.classInfo.lineInfo = kotlinCode.getLineInfo();
     }
 
+    private void writeRenderArray() {
+        kotlinCode.append("\t@JvmStatic fun renderArray(");
+        writeTemplateOutputParam();
+        kotlinCode.append(", jteHtmlInterceptor:gg.jte.html.HtmlInterceptor?");
+
+        kotlinCode.append(", params:Array<Any?>) {\n");
+        if (parameters.stream().anyMatch(p -> p.varargs)) {
+            kotlinCode.append("\t\tthrow gg.jte.runtime.TemplateUtils.createVarargsNotSupportedException(").append(Constants.NAME_FIELD).append(")\n");
+            kotlinCode.append("\t}\n");
+            return;
+        }
+
+        int required = 0; // Only trailing parameters with a default value can be omitted
+        for (int i = 0; i < parameters.size(); ++i) {
+            if (parameters.get(i).defaultValue == null) {
+                required = i + 1;
+            }
+        }
+        kotlinCode.append("\t\tgg.jte.runtime.TemplateUtils.checkParamCount(").append(Constants.NAME_FIELD).append(", params, ").append(required).append(", ").append(parameters.size()).append(")\n");
+
+        int index = 0;
+        for (ParamInfo parameter : parameters) {
+            kotlinCode.setCurrentTemplateLine(parameter.templateLine);
+            kotlinCode.append("\t\tval ").append(parameter.name).append(" = ");
+            if (parameter.defaultValue != null) {
+                kotlinCode.append("if (params.size > ").append(index).append(") params[").append(index).append("] as ").append(parameter.type).append(" else ");
+                writeCodeWithContentSupport(0, parameter.defaultValue);
+            } else {
+                kotlinCode.append("params[").append(index).append("] as ").append(parameter.type);
+            }
+            kotlinCode.append('\n');
+            ++index;
+        }
+        kotlinCode.append("\t\trender(jteOutput, jteHtmlInterceptor");
+
+        for (ParamInfo parameter : parameters) {
+            kotlinCode.append(", ").append(parameter.name);
+        }
+        kotlinCode.append(");\n");
+        kotlinCode.append("\t}\n");
+    }
+
     private void addNameField(StringBuilder fields, String name) {
         fields.append("\t@JvmField val ").append(Constants.NAME_FIELD).append(" = \"");
         fields.append(name);
@@ -196,13 +240,22 @@ public class KotlinCodeGenerator implements CodeGenerator {
     }
 
     private void writeBinaryTextPartsContent(StringBuilder fields) {
-        String contentFileName = new ClassDefinition(classInfo.className, "kt").getBinaryTextPartsFileName();
+        String bundle = compiler.getBinaryContentBundle();
+        if (bundle != null) {
+            fields.append("\t@JvmStatic val BINARY_CONTENT = gg.jte.runtime.BinaryContent.loadBundled").append(config.directBinaryStaticContent ? "Direct(" : "(")
+                    .append(classInfo.className)
+                    .append("::class.java, \"")
+                    .append(bundle)
+                    .append("\", ");
+        } else {
+            String contentFileName = new ClassDefinition(classInfo.className, "kt").getBinaryTextPartsFileName();
 
-        fields.append("\t@JvmStatic val BINARY_CONTENT = gg.jte.runtime.BinaryContent.load(")
-                .append(classInfo.className)
-                .append(".javaClass, \"")
-                .append(contentFileName)
-                .append("\", ");
+            fields.append("\t@JvmStatic val BINARY_CONTENT = gg.jte.runtime.BinaryContent.load").append(config.directBinaryStaticContent ? "Direct(" : "(")
+                    .append(classInfo.className)
+                    .append(".javaClass, \"")
+                    .append(contentFileName)
+                    .append("\", ");
+        }
 
         for (int i = 0; i < binaryTextParts.size(); ++i) {
             if (i > 0) {
@@ -216,7 +269,7 @@ public class KotlinCodeGenerator implements CodeGenerator {
 
     private void writeBinaryTextPartsConstants(StringBuilder fields) {
         for (int i = 0; i < binaryTextParts.size(); ++i) {
-            fields.append("\t@JvmStatic val ").append(TEXT_PART_BINARY).append(i).append(" = BINARY_CONTENT.get(").append(i).append(")\n");
+            fields.append("\t@JvmStatic val ").append(TEXT_PART_BINARY).append(i).append(config.directBinaryStaticContent ? " = BINARY_CONTENT.getBuffer(" : " = BINARY_CONTENT.get(").append(i).append(")\n");
         }
     }
 
@@ -298,34 +351,35 @@ public class KotlinCodeGenerator implements CodeGenerator {
 
     @Override
     public void onHtmlTagBodyCodePart(int depth, String codePart, String tagName) {
-        writeIndentation(depth);
-        kotlinCode.append("jteOutput.setContext(\"").append(tagName).append("\", null)\n");
-
-        writeCodePart(depth, codePart);
+        writeCodePart(depth, codePart, CodeGenerator.getHtmlContextOutput(tagName, null));
     }
 
     @Override
     public void onHtmlTagAttributeCodePart(int depth, String codePart, String tagName, String attributeName) {
-        writeIndentation(depth);
-        kotlinCode.append("jteOutput.setContext(\"").append(tagName).append("\", \"").append(attributeName).append("\")\n");
-
-        writeCodePart(depth, codePart);
+        writeCodePart(depth, codePart, CodeGenerator.getHtmlContextOutput(tagName, attributeName));
     }
 
     @Override
     public void onUnsafeCodePart(int depth, String codePart) {
         if (config.contentType == ContentType.Html) {
-            writeIndentation(depth);
-            kotlinCode.append("jteOutput.setContext(null, null)\n");
+            writeCodePart(depth, codePart, "forUnescaped()");
+        } else {
+            writeCodePart(depth, codePart);
         }
-
-        writeCodePart(depth, codePart);
     }
 
     private void writeCodePart(int depth, String codePart) {
+        writeCodePart(depth, codePart, null);
+    }
+
+    private void writeCodePart(int depth, String codePart, String contextOutput) {
         writeIndentation(depth);
 
-        kotlinCode.append("jteOutput.writeUserContent(");
+        kotlinCode.append("jteOutput.");
+        if (contextOutput != null) {
+            kotlinCode.append(contextOutput).append(".");
+        }
+        kotlinCode.append("writeUserContent(");
         writeCodeWithContentSupport(depth, codePart);
         kotlinCode.append(")\n");
     }
@@ -888,6 +888,40 @@ public class TemplateEngineTest {
                 .hasStackTraceContaining("at gg.jte.generated.ondemand.tag.JtemodelGenerated$Companion.renderMap(tag/model.kte:2)");
     }
 
+    @Test
+    void renderTagWithPositionalParams() {
+        givenTag("card", "@param firstParam:String\n" +
+                "@param secondParam:Int = 3\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        StringOutput output = new StringOutput();
+        templateEngine.renderTag("tag/card.kte", output, "Hello");
+        templateEngine.renderTag("tag/card.kte", output, "Hello", 42);
+
+        assertThat(output.toString()).isEqualTo("One: Hello, two: 3One: Hello, two: 42");
+    }
+
+    @Test
+    void renderTagWithPositionalParams_wrongCount() {
+        givenTag("card", "@param firstParam:String\n" +
+                "@param secondParam:Int = 3\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        StringOutput output = new StringOutput();
+        assertThat(catchThrowable(() -> templateEngine.renderTag("tag/card.kte", output))).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.kte, expected 1 to 2 parameters, got 0");
+        assertThat(catchThrowable(() -> templateEngine.renderTag("tag/card.kte", output, "Hello", 42, 1))).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.kte, expected 1 to 2 parameters, got 3");
+    }
+
+    @Test
+    void renderTagWithPositionalParams_varargs() {
+        givenTag("card", "@param firstParam:String\n" +
+                "@param vararg rest:String\n" +
+                "One: ${firstParam}");
+
+        StringOutput output = new StringOutput();
+        assertThat(catchThrowable(() -> templateEngine.renderTag("tag/card.kte", output, "Hello"))).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.kte, templates with varargs parameters cannot be rendered with positional parameters");
+    }
+
     @Test
     void emptyTemplate() {
         givenRawTemplate("");
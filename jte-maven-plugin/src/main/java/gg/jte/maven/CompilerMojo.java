@@ -64,6 +64,24 @@ public class CompilerMojo extends AbstractMojo {
     @Parameter(readonly = true)
     public boolean binaryStaticContent;
 
+    /**
+     * Binary static content of all templates is written to a single resource, requires binaryStaticContent
+     */
+    @Parameter(readonly = true)
+    public boolean bundleBinaryStaticContent;
+
+    /**
+     * Binary static content is kept off-heap in direct buffers, requires binaryStaticContent
+     */
+    @Parameter(readonly = true)
+    public boolean directBinaryStaticContent;
+
+    /**
+     * Only templates that changed since the last build are processed again
+     */
+    @Parameter(readonly = true)
+    public boolean incremental;
+
     @Parameter(readonly = true)
     public String[] compileArgs;
 
@@ -100,11 +118,17 @@ public class CompilerMojo extends AbstractMojo {
         }
         templateEngine.setHtmlCommentsPreserved(htmlCommentsPreserved);
         templateEngine.setBinaryStaticContent(binaryStaticContent);
+        templateEngine.setBundleBinaryStaticContent(bundleBinaryStaticContent);
+        templateEngine.setDirectBinaryStaticContent(directBinaryStaticContent);
         templateEngine.setCompileArgs(calculateCompileArgs());
 
         int amount;
         try {
-            templateEngine.cleanAll();
+            if (incremental) {
+                templateEngine.setIncrementalCompilation(true);
+            } else {
+                templateEngine.cleanAll();
+            }
             List<String> generatedSourceFiles = templateEngine.precompileAll(compilePath);
             if (!keepGeneratedSourceFiles) {
                 deleteGeneratedSourceFiles(target, generatedSourceFiles);
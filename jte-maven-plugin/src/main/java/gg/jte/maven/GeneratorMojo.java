@@ -51,6 +51,24 @@ public class GeneratorMojo extends AbstractMojo {
     @Parameter(readonly = true)
     public boolean binaryStaticContent;
 
+    /**
+     * Binary static content of all templates is written to a single resource, requires binaryStaticContent
+     */
+    @Parameter(readonly = true)
+    public boolean bundleBinaryStaticContent;
+
+    /**
+     * Binary static content is kept off-heap in direct buffers, requires binaryStaticContent
+     */
+    @Parameter(readonly = true)
+    public boolean directBinaryStaticContent;
+
+    /**
+     * Only templates that changed since the last build are processed again
+     */
+    @Parameter(readonly = true)
+    public boolean incremental;
+
     @Parameter(readonly = true)
     public String packageName = Constants.PACKAGE_NAME_PRECOMPILED;
 
@@ -76,6 +94,8 @@ public class GeneratorMojo extends AbstractMojo {
         templateEngine.setHtmlAttributes(htmlAttributes);
         templateEngine.setHtmlCommentsPreserved(htmlCommentsPreserved);
         templateEngine.setBinaryStaticContent(binaryStaticContent);
+        templateEngine.setBundleBinaryStaticContent(bundleBinaryStaticContent);
+        templateEngine.setDirectBinaryStaticContent(directBinaryStaticContent);
         if (targetResourceDirectory != null) {
             templateEngine.setTargetResourceDirectory(Paths.get(targetResourceDirectory));
             templateEngine.setGenerateNativeImageResources(generateNativeImageResources);
@@ -84,7 +104,11 @@ public class GeneratorMojo extends AbstractMojo {
 
         int amount;
         try {
-            templateEngine.cleanAll();
+            if (incremental) {
+                templateEngine.setIncrementalCompilation(true);
+            } else {
+                templateEngine.cleanAll();
+            }
             amount = templateEngine.generateAll().size();
         } catch (Exception e) {
             getLog().error("Failed to generate templates.");
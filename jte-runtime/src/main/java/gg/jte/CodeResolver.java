@@ -15,4 +15,14 @@ public interface CodeResolver {
         return resolve(name) != null;
     }
 
+    /**
+     * Optional change tracking, that allows the template engine to skip calling {@link #hasChanged(String)} while rendering.
+     * Resolvers that are notified about changes (for instance by file system events) should increment the generation
+     * every time a template may have changed. As long as the generation stays the same, templates are considered unchanged.
+     * @return the current generation, or -1 if this resolver does not track changes.
+     */
+    default long getGeneration() {
+        return -1;
+    }
+
 }
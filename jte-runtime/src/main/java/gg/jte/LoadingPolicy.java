@@ -0,0 +1,17 @@
+package gg.jte;
+
+/**
+ * Determines when precompiled templates are loaded.
+ */
+public enum LoadingPolicy {
+    /**
+     * Templates are loaded the first time they are rendered.
+     */
+    Lazy,
+
+    /**
+     * All templates listed in the manifest of precompiled templates are loaded upfront.
+     * Without manifest, templates are loaded lazily.
+     */
+    Eager,
+}
@@ -0,0 +1,26 @@
+package gg.jte;
+
+/**
+ * Receives progress updates of {@link TemplateEngine#prepareAll(java.util.Collection, java.util.concurrent.Executor, PrepareListener)}.
+ * Methods may be called concurrently from the threads of the executor.
+ */
+public interface PrepareListener {
+
+    /**
+     * Called after a template was prepared successfully.
+     * @param name the template name
+     * @param done how many templates are done so far, including failed templates
+     * @param total how many templates are prepared in total
+     */
+    void onPrepared(String name, int done, int total);
+
+    /**
+     * Called after a template failed to prepare.
+     * @param name the template name
+     * @param e the failure
+     * @param done how many templates are done so far, including failed templates
+     * @param total how many templates are prepared in total
+     */
+    default void onFailed(String name, TemplateException e, int done, int total) {
+    }
+}
@@ -20,7 +20,11 @@ public class TemplateConfig {
     public String[] htmlAttributes;
     public boolean htmlCommentsPreserved;
     public boolean binaryStaticContent;
+    public boolean bundleBinaryStaticContent;
+    public boolean directBinaryStaticContent;
     public List<String> classPath;
+    public boolean compileInMemory;
+    public boolean incrementalCompilation;
 
     public Path resourceDirectory;
 
@@ -9,8 +9,12 @@ import gg.jte.runtime.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * jte is a simple, yet powerful template engine for Java.
@@ -30,6 +34,7 @@ public final class TemplateEngine {
     private final ClassLoader parentClassLoader;
 
     private HtmlInterceptor htmlInterceptor;
+    private LoadingPolicy loadingPolicy = LoadingPolicy.Lazy;
 
     /**
      * Creates a new template engine.
@@ -180,10 +185,6 @@ public final class TemplateEngine {
         this.contentType = contentType;
         this.classDirectory = classDirectory;
         this.parentClassLoader = parentClassLoader;
-
-        if (templateMode == TemplateMode.OnDemand) {
-            cleanAll();
-        }
     }
 
     private static TemplateLoader createTemplateLoader(TemplateConfig config, CodeResolver codeResolver, Path classDirectory, TemplateMode templateMode, ClassLoader parentClassLoader) {
@@ -208,7 +209,10 @@ public final class TemplateEngine {
      * @throws TemplateException in case the template failed to render, containing information where the error happened.
      */
     public void render(String name, Object param, TemplateOutput output) throws TemplateException {
-        Template template = resolveTemplate(name);
+        render(name, resolveTemplate(name), param, output);
+    }
+
+    void render(String name, Template template, Object param, TemplateOutput output) throws TemplateException {
         try {
             template.render(checkOutput(output), htmlInterceptor, param);
         } catch (Throwable e) {
@@ -216,6 +220,28 @@ public final class TemplateEngine {
         }
     }
 
+    /**
+     * Creates a reusable handle to the template with the given name.
+     * The template is resolved and its render method is bound once, so that rendering through the handle
+     * skips the template lookup of {@link #render(String, Object, TemplateOutput)}.
+     * It is preferred to obtain handles once at application startup and use them on hot request paths.
+     * In on demand mode, the handle transparently picks up template changes.
+     * @param name the template name relative to the specified root directory, for instance "pages/welcome.jte".
+     * @param paramType the type of the param passed to the template.
+     * @param <T> the type of the param passed to the template.
+     * @return a handle to render the template with.
+     * @throws TemplateException in case the template cannot be rendered with a param of the given type.
+     */
+    public <T> TemplateHandle<T> handle(String name, Class<T> paramType) throws TemplateException {
+        Template template = resolveTemplate(name);
+        template.checkParameterType(paramType);
+        return new TemplateHandle<>(this, name, paramType, template);
+    }
+
+    boolean isReloadable() {
+        return templateMode == TemplateMode.OnDemand;
+    }
+
     /**
      * Renders the template with the given name.
      * Parameters in the params map are mapped to the corresponding parameters in the template.
@@ -269,6 +295,39 @@ public final class TemplateEngine {
         renderTag(name, params, output);
     }
 
+    /**
+     * Renders a tag with the given name and positional parameters.
+     * Parameters are passed in the order they are declared in the tag, varargs parameters are not supported.
+     * Trailing parameters with a default value can be omitted.
+     * Unlike {@link #renderTag(String, Map, TemplateOutput)}, this does not require to allocate a map for every call.
+     * @param name the template name relative to the specified root directory, for instance "tag/myTag.jte".
+     * @param output any implementation of {@link TemplateOutput}, where the template will be written to.
+     * @param params the parameters that should be passed to the tag, in declaration order.
+     * @throws TemplateException in case the tag failed to render, containing information where the error happened.
+     */
+    public void renderTag(String name, TemplateOutput output, Object ... params) throws TemplateException {
+        Template template = resolveTemplate(name);
+        try {
+            template.renderArray(checkOutput(output), htmlInterceptor, params);
+        } catch (Throwable e) {
+            throw handleRenderException(name, template, e);
+        }
+    }
+
+    /**
+     * Renders a layout with the given name and positional parameters.
+     * Parameters are passed in the order they are declared in the layout, varargs parameters are not supported.
+     * Trailing parameters with a default value can be omitted.
+     * Unlike {@link #renderLayout(String, Map, TemplateOutput)}, this does not require to allocate a map for every call.
+     * @param name the template name relative to the specified root directory, for instance "layout/myLayout.jte".
+     * @param output any implementation of {@link TemplateOutput}, where the template will be written to.
+     * @param params the parameters that should be passed to the layout, in declaration order.
+     * @throws TemplateException in case the layout failed to render, containing information where the error happened.
+     */
+    public void renderLayout(String name, TemplateOutput output, Object ... params) throws TemplateException {
+        renderTag(name, output, params);
+    }
+
     private TemplateOutput checkOutput(TemplateOutput templateOutput) {
         if (contentType == ContentType.Html && !(templateOutput instanceof HtmlTemplateOutput)) {
             return new OwaspHtmlTemplateOutput(templateOutput);
@@ -296,6 +355,13 @@ public final class TemplateEngine {
     }
 
     public boolean hasTemplate(String name) {
+        if (templateMode == TemplateMode.Precompiled) {
+            Set<String> templateNames = templateLoader.getTemplateNames();
+            if (templateNames != null) {
+                return templateNames.contains(name);
+            }
+        }
+
         try {
             resolveTemplate(name);
             return true;
@@ -319,6 +385,12 @@ public final class TemplateEngine {
      * @throws TemplateException in case parameter information is not available (jte classes must be compiled with -parameters compiler flag.)
      */
     public Map<String, Class<?>> getParamInfo(String name) throws TemplateException {
+        if (templateMode == TemplateMode.Precompiled) {
+            Map<String, Class<?>> paramInfo = templateLoader.getParamInfo(name);
+            if (paramInfo != null) {
+                return paramInfo;
+            }
+        }
         return resolveTemplate(name).getParamInfo();
     }
 
@@ -330,6 +402,83 @@ public final class TemplateEngine {
         resolveTemplate(name);
     }
 
+    /**
+     * Prepares all templates with the given names for rendering in parallel.
+     * @see #prepareAll(Collection, Executor, PrepareListener)
+     */
+    public void prepareAll(Collection<String> names, Executor executor) throws TemplateException {
+        prepareAll(names, executor, null);
+    }
+
+    /**
+     * Prepares all templates with the given names for rendering in parallel. Templates are loaded (or compiled, if this engine
+     * compiles templates on demand) and their classes are initialized, so that the first render call does not need to do it.
+     * If this engine compiles templates on demand, templates are compiled one after another, only loading and initializing runs in parallel.
+     * A failing template does not stop the preparation of the other templates.
+     *
+     * @param names the template names relative to the specified root directory, for instance "pages/welcome.jte".
+     * @param executor the executor to prepare templates with, for instance {@link ForkJoinPool#commonPool()}
+     * @param listener notified about the progress, or null
+     * @throws TemplateException after all templates were processed, in case any template failed to prepare. Further failures are added as suppressed exceptions.
+     */
+    public void prepareAll(Collection<String> names, Executor executor, PrepareListener listener) throws TemplateException {
+        List<String> templates = new ArrayList<>(new LinkedHashSet<>(names));
+        int total = templates.size();
+
+        AtomicInteger done = new AtomicInteger();
+        ConcurrentMap<String, TemplateException> failures = new ConcurrentHashMap<>();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; ++i) {
+            String name = templates.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    resolveTemplate(name).initialize();
+                } catch (RuntimeException | LinkageError e) {
+                    TemplateException failure = e instanceof TemplateException ? (TemplateException) e : new TemplateException("Failed to prepare " + name, e);
+                    failures.put(name, failure);
+                    if (listener != null) {
+                        listener.onFailed(name, failure, done.incrementAndGet(), total);
+                    }
+                    return;
+                }
+
+                if (listener != null) {
+                    listener.onPrepared(name, done.incrementAndGet(), total);
+                }
+            }, executor);
+        }
+
+        // join() blocks in a way that allows a fork join pool to compensate, in case this is called from one of its threads
+        CompletableFuture.allOf(futures).join();
+
+        if (!failures.isEmpty()) {
+            TemplateException exception = null;
+            for (String name : templates) {
+                TemplateException failure = failures.get(name);
+                if (failure == null) {
+                    continue;
+                }
+
+                if (exception == null) {
+                    exception = new TemplateException("Failed to prepare " + failures.size() + " of " + total + " templates, first failure: " + failure.getMessage(), failure);
+                } else {
+                    exception.addSuppressed(failure);
+                }
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Releases resources held by this engine, like class path archives the Java compiler keeps open between compilations.
+     * Call this when the engine is no longer used, for instance on undeploy. Templates are still rendered after this call,
+     * resources are acquired again if a template needs to be compiled.
+     */
+    public void close() {
+        templateLoader.close();
+    }
+
     /**
      * Cleans the directory containing the compiled template classes.
      */
@@ -364,7 +513,7 @@ public final class TemplateEngine {
         return templateLoader.precompileAll();
     }
 
-    private Template resolveTemplate(String name) {
+    Template resolveTemplate(String name) {
         if (templateMode == TemplateMode.OnDemand && templateLoader.hasChanged(name)) {
             synchronized (templateCache) {
                 if (templateLoader.hasChanged(name)) {
@@ -410,17 +559,55 @@ public final class TemplateEngine {
      * @throws TemplateException in case there was an error during class loading, in this case you should keep the current engine running!
      */
     public TemplateEngine reloadPrecompiled(Path classDirectory) throws TemplateException {
+        return reloadPrecompiled(classDirectory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #reloadPrecompiled(Path)}, but the cache of the fresh template engine is warmed up with the given executor.
+     *
+     * @param classDirectory the class directory to load the new templates from.
+     * @param executor the executor to load templates with in parallel.
+     * @return a fresh template engine with a warmed up cache.
+     * @throws TemplateException in case there was an error during class loading, in this case you should keep the current engine running!
+     */
+    public TemplateEngine reloadPrecompiled(Path classDirectory, Executor executor) throws TemplateException {
         TemplateEngine engine = createPrecompiled(classDirectory, contentType, parentClassLoader, config.packageName);
         engine.setHtmlInterceptor(htmlInterceptor);
+        engine.loadingPolicy = loadingPolicy;
 
-        Set<String> templates = new HashSet<>(templateCache.keySet());
-        for (String templateName : templates) {
-            engine.prepareForRendering(templateName);
+        Set<String> templates = new LinkedHashSet<>(templateCache.keySet());
+        Set<String> templateNames = engine.templateLoader.getTemplateNames();
+        if (loadingPolicy == LoadingPolicy.Eager && templateNames != null) {
+            templates.addAll(templateNames);
         }
+        engine.prepareAll(templates, executor);
 
         return engine;
     }
 
+    /**
+     * Determines when precompiled templates are loaded. By default, templates are loaded lazily, the first time they are rendered.
+     * In case the precompiled templates contain a manifest and the policy is {@link LoadingPolicy#Eager}, all templates are loaded immediately
+     * and templates of engines created by {@link #reloadPrecompiled(Path)} are loaded upfront as well.
+     * Templates compiled on demand are always loaded lazily.
+     *
+     * @param loadingPolicy the loading policy
+     * @throws TemplateException in case eager loading failed
+     */
+    public void setLoadingPolicy(LoadingPolicy loadingPolicy) throws TemplateException {
+        if (loadingPolicy == null) {
+            throw new NullPointerException("loadingPolicy must not be null");
+        }
+        this.loadingPolicy = loadingPolicy;
+
+        if (loadingPolicy == LoadingPolicy.Eager && templateMode == TemplateMode.Precompiled) {
+            Set<String> templateNames = templateLoader.getTemplateNames();
+            if (templateNames != null) {
+                prepareAll(templateNames, ForkJoinPool.commonPool());
+            }
+        }
+    }
+
     /**
      * Sets additional compiler arguments for jte templates.
      * @param compileArgs for instance templateEngine.setCompileArgs("--enable-preview", "--release", "" + Runtime.version().feature());
@@ -496,6 +683,53 @@ public final class TemplateEngine {
         config.binaryStaticContent = binaryStaticContent;
     }
 
+    /**
+     * Experimental setting, that packs the binary static content of all templates into a single resource, instead of one resource per template.
+     * The bundle is read once when the first template is initialized. This only affects {@link #generateAll()} and {@link #precompileAll()}
+     * and requires {@link #setBinaryStaticContent(boolean)}.
+     *
+     * @param bundleBinaryStaticContent true, to bundle binary static content
+     */
+    public void setBundleBinaryStaticContent(boolean bundleBinaryStaticContent) {
+        config.bundleBinaryStaticContent = bundleBinaryStaticContent;
+    }
+
+    /**
+     * Experimental setting, that keeps binary static content off-heap, in direct or memory-mapped {@link java.nio.ByteBuffer}s.
+     * Templates pass those buffers to {@link TemplateOutput#writeBinaryContent(java.nio.ByteBuffer)}, so that outputs writing to a channel,
+     * like {@link gg.jte.output.Utf8StreamOutput}, can do so without copying static content to the heap.
+     * Requires {@link #setBinaryStaticContent(boolean)}. Combined with {@link #setBundleBinaryStaticContent(boolean)}, all templates share views of a single buffer.
+     *
+     * @param directBinaryStaticContent true, to keep binary static content in direct buffers
+     */
+    public void setDirectBinaryStaticContent(boolean directBinaryStaticContent) {
+        config.directBinaryStaticContent = directBinaryStaticContent;
+    }
+
+    /**
+     * Experimental setting, that compiles templates loaded on demand without writing any files.
+     * Generated sources are passed to the Java compiler in memory and the compiled classes are loaded directly from memory.
+     * This only affects templates loaded while rendering, {@link #generateAll()} and {@link #precompileAll()} still write to the class directory.
+     * Kotlin templates are always compiled on disk.
+     *
+     * @param compileInMemory true, to compile templates in memory
+     */
+    public void setCompileInMemory(boolean compileInMemory) {
+        config.compileInMemory = compileInMemory;
+    }
+
+    /**
+     * Experimental setting, that makes {@link #generateAll()} and {@link #precompileAll()} incremental.
+     * Only templates whose source changed, or that call a tag or layout whose parameters changed, are generated and compiled again.
+     * Which templates are up-to-date is tracked by an index file in the class directory, the class directory is not cleaned anymore
+     * when this engine is used for the first time. Call {@link #cleanAll()} to force a full rebuild.
+     *
+     * @param incrementalCompilation true, to only generate and compile templates that changed
+     */
+    public void setIncrementalCompilation(boolean incrementalCompilation) {
+        config.incrementalCompilation = incrementalCompilation;
+    }
+
     /**
      * The class path used for compiling templates.
      * @param classPath list of elements on the class path
@@ -0,0 +1,57 @@
+package gg.jte;
+
+import gg.jte.runtime.Template;
+
+/**
+ * A reusable handle to a template, obtained by {@link TemplateEngine#handle(String, Class)}.
+ * The template is already resolved and its parameter type verified, so rendering through a handle
+ * does not require any template lookup or reflective type checks.
+ * Handles are thread-safe and should be kept for the lifetime of the template engine they were created by.
+ *
+ * @param <T> the type of the param passed to the template.
+ */
+public final class TemplateHandle<T> {
+    private final TemplateEngine templateEngine;
+    private final String name;
+    private final Class<T> paramType;
+
+    private volatile Template template;
+
+    TemplateHandle(TemplateEngine templateEngine, String name, Class<T> paramType, Template template) {
+        this.templateEngine = templateEngine;
+        this.name = name;
+        this.paramType = paramType;
+        this.template = template;
+    }
+
+    /**
+     * Renders the template of this handle.
+     * @param param the param passed to the template.
+     * @param output any implementation of {@link TemplateOutput}, where the template will be written to.
+     * @throws TemplateException in case the template failed to render, containing information where the error happened.
+     */
+    public void render(T param, TemplateOutput output) throws TemplateException {
+        Template template = this.template;
+        if (templateEngine.isReloadable()) {
+            template = rebindIfChanged(template);
+        }
+        templateEngine.render(name, template, param, output);
+    }
+
+    private Template rebindIfChanged(Template template) {
+        Template resolved = templateEngine.resolveTemplate(name);
+        if (resolved != template) {
+            resolved.checkParameterType(paramType);
+            this.template = resolved;
+        }
+        return resolved;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getParamType() {
+        return paramType;
+    }
+}
@@ -1,6 +1,7 @@
 package gg.jte;
 
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 @SuppressWarnings("unused") // Methods are called by generated templates
@@ -13,6 +14,18 @@ public interface TemplateOutput {
         writeContent(new String(value, StandardCharsets.UTF_8));
     }
 
+    /**
+     * Writes pre-encoded UTF-8 content, that may be located off-heap.
+     * The buffer is shared by all renderings of a template, implementations must neither alter its content, nor its position or limit.
+     * By default, the content is copied to the heap and passed to {@link #writeBinaryContent(byte[])}.
+     * @param value the remaining bytes of this buffer are written
+     */
+    default void writeBinaryContent(ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        writeBinaryContent(bytes);
+    }
+
     default void writeUserContent(String value) {
         if (value != null) {
             writeContent(value);
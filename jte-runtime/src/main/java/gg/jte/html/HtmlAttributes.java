@@ -0,0 +1,120 @@
+package gg.jte.html;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Attributes of an intercepted HTML tag, passed to {@link HtmlInterceptor} callbacks.
+ *
+ * This is a flyweight: attribute names are constant arrays generated with the template, values are filled in while rendering.
+ * The same instance is reused for every intercepted tag of a template output. It is only valid until the callback returns,
+ * use {@link #toMap()} if you need to keep the attributes. Intercepted templates rendered by a callback to the same output
+ * get their own instance, so that the attributes of the callback remain intact.
+ */
+@SuppressWarnings("unused") // By generated template code
+public final class HtmlAttributes {
+    private static final String[] NO_NAMES = {};
+
+    private String[] names = NO_NAMES;
+    private Object[] values;
+    private int size;
+
+    public HtmlAttributes() {
+        this(8);
+    }
+
+    private HtmlAttributes(int capacity) {
+        values = new Object[capacity];
+    }
+
+    /**
+     * Creates attributes from the given map, for interceptors that are called with the map based API.
+     */
+    public static HtmlAttributes of(Map<String, Object> attributes) {
+        HtmlAttributes result = new HtmlAttributes(Math.max(1, attributes.size()));
+        result.begin(attributes.keySet().toArray(NO_NAMES));
+        for (Object value : attributes.values()) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * Starts a new tag. Must be followed by one call of {@link #add(Object)} for each name.
+     * @param names the attribute names, must not be modified afterwards
+     * @return this
+     */
+    public HtmlAttributes begin(String[] names) {
+        this.names = names;
+        if (values.length < names.length) {
+            values = new Object[Math.max(names.length, values.length * 2)];
+        }
+        size = 0;
+        return this;
+    }
+
+    /**
+     * @param value the value of the next attribute. Boolean attributes without value are {@link Boolean#TRUE}, empty attributes are null.
+     * @return this
+     */
+    public HtmlAttributes add(Object value) {
+        values[size++] = value;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the index of the given attribute, or -1 if the tag has no such attribute
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < size; ++i) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * @return the value of the given attribute, or null if the tag has no such attribute
+     */
+    public Object get(String name) {
+        int index = indexOf(name);
+        if (index == -1) {
+            return null;
+        }
+        return values[index];
+    }
+
+    /**
+     * @return a copy of these attributes
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>(size * 2);
+        for (int i = 0; i < size; ++i) {
+            result.put(names[i], values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HtmlAttributes" + Arrays.toString(Arrays.copyOf(names, size));
+    }
+}
@@ -0,0 +1,27 @@
+package gg.jte.html;
+
+import gg.jte.TemplateOutput;
+
+import java.util.Map;
+
+/**
+ * Interceptor, that receives attributes as reusable {@link HtmlAttributes} view, without creating a map for every intercepted tag.
+ * Attributes are only valid until the callback returns.
+ */
+public interface HtmlAttributesInterceptor extends HtmlInterceptor {
+    @Override
+    void onHtmlTagOpened(String name, HtmlAttributes attributes, TemplateOutput output);
+
+    @Override
+    void onHtmlAttributeStarted(String name, HtmlAttributes attributesBefore, TemplateOutput output);
+
+    @Override
+    default void onHtmlTagOpened(String name, Map<String, Object> attributes, TemplateOutput output) {
+        onHtmlTagOpened(name, HtmlAttributes.of(attributes), output);
+    }
+
+    @Override
+    default void onHtmlAttributeStarted(String name, Map<String, Object> attributesBefore, TemplateOutput output) {
+        onHtmlAttributeStarted(name, HtmlAttributes.of(attributesBefore), output);
+    }
+}
@@ -4,9 +4,20 @@ import gg.jte.TemplateOutput;
 
 import java.util.Map;
 
+/**
+ * Map based interceptor API. Implement {@link HtmlAttributesInterceptor} instead, to avoid creating a map for every intercepted tag.
+ */
 @SuppressWarnings("unused") // Called by template code
 public interface HtmlInterceptor {
     void onHtmlTagOpened(String name, Map<String, Object> attributes, TemplateOutput output);
     void onHtmlAttributeStarted(String name, Map<String, Object> attributesBefore, TemplateOutput output);
     void onHtmlTagClosed(String name, TemplateOutput output);
+
+    default void onHtmlTagOpened(String name, HtmlAttributes attributes, TemplateOutput output) {
+        onHtmlTagOpened(name, attributes.toMap(), output);
+    }
+
+    default void onHtmlAttributeStarted(String name, HtmlAttributes attributesBefore, TemplateOutput output) {
+        onHtmlAttributeStarted(name, attributesBefore.toMap(), output);
+    }
 }
@@ -7,4 +7,69 @@ public interface HtmlTemplateOutput extends TemplateOutput {
 
     void setContext(String tagName, String attributeName);
 
+    /**
+     * The following methods return an output to write user content in a certain context, which the template compiler knows in advance.
+     * By default, they set the context and return this output.
+     *
+     * @return output for user content in the body of the given tag
+     */
+    default TemplateOutput forTagBody(String tagName) {
+        setContext(tagName, null);
+        return this;
+    }
+
+    /**
+     * @return output for user content in a script block
+     */
+    default TemplateOutput forScriptBlock(String tagName) {
+        setContext(tagName, null);
+        return this;
+    }
+
+    /**
+     * @return output for user content in the value of the given attribute
+     */
+    default TemplateOutput forTagAttribute(String tagName, String attributeName) {
+        setContext(tagName, attributeName);
+        return this;
+    }
+
+    /**
+     * @return output for user content in the value of an event handler attribute, like onclick
+     */
+    default TemplateOutput forJavaScriptAttribute(String tagName, String attributeName) {
+        setContext(tagName, attributeName);
+        return this;
+    }
+
+    /**
+     * @return output for user content in the href attribute of a link
+     */
+    default TemplateOutput forHref(String tagName, String attributeName) {
+        setContext(tagName, attributeName);
+        return this;
+    }
+
+    /**
+     * @return output for user content that is not escaped
+     */
+    default TemplateOutput forUnescaped() {
+        setContext(null, null);
+        return this;
+    }
+
+    /**
+     * @return attributes to pass to the {@link HtmlInterceptor}, reused for every intercepted tag written to this output.
+     * Must be followed by {@link #releaseHtmlAttributes()}, once the interceptor callback returned.
+     */
+    default HtmlAttributes getHtmlAttributes() {
+        return new HtmlAttributes();
+    }
+
+    /**
+     * Called after the interceptor callback returned, the attributes returned by the last {@link #getHtmlAttributes()} call can be reused.
+     */
+    default void releaseHtmlAttributes() {
+    }
+
 }
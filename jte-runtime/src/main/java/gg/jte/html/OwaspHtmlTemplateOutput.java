@@ -4,62 +4,131 @@ import gg.jte.Content;
 import gg.jte.TemplateOutput;
 import gg.jte.runtime.StringUtils;
 import gg.jte.output.StringOutput;
+import gg.jte.output.Utf8EncodingOutput;
 import org.owasp.encoder.Encode;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * See https://cheatsheetseries.owasp.org/cheatsheets/Cross_Site_Scripting_Prevention_Cheat_Sheet.html
  */
 public class OwaspHtmlTemplateOutput implements HtmlTemplateOutput {
     private final TemplateOutput templateOutput;
+    private final Utf8EncodingOutput utf8Output;
 
-    private String tagName;
-    private String attributeName;
+    private final ContextOutput tagBodyOutput = new TagBodyOutput();
+    private final ContextOutput scriptBlockOutput = new ScriptBlockOutput();
+    private final ContextOutput tagAttributeOutput = new TagAttributeOutput();
+    private final ContextOutput javaScriptAttributeOutput = new JavaScriptAttributeOutput();
+    private final ContextOutput hrefOutput = new HrefOutput();
+    private final ContextOutput unescapedOutput = new UnescapedOutput();
+
+    private ContextOutput context;
+    private HtmlAttributes[] htmlAttributes;
+    private int htmlAttributesDepth;
 
     public OwaspHtmlTemplateOutput(TemplateOutput templateOutput) {
         this.templateOutput = templateOutput;
+        this.utf8Output = templateOutput instanceof Utf8EncodingOutput ? (Utf8EncodingOutput)templateOutput : null;
     }
 
     @Override
     public void setContext(String tagName, String attributeName) {
-        this.tagName = tagName;
-        this.attributeName = attributeName;
+        if (tagName == null) {
+            context = null;
+        } else if (attributeName == null) {
+            context = "script".equals(tagName) ? scriptBlockOutput : tagBodyOutput;
+        } else if (attributeName.startsWith("on")) {
+            context = javaScriptAttributeOutput;
+        } else if ("a".equals(tagName) && "href".equals(attributeName)) {
+            context = hrefOutput;
+        } else {
+            context = tagAttributeOutput;
+        }
+    }
+
+    @Override
+    public TemplateOutput forTagBody(String tagName) {
+        return tagBodyOutput;
+    }
+
+    @Override
+    public TemplateOutput forScriptBlock(String tagName) {
+        return scriptBlockOutput;
+    }
+
+    @Override
+    public TemplateOutput forTagAttribute(String tagName, String attributeName) {
+        return tagAttributeOutput;
+    }
+
+    @Override
+    public TemplateOutput forJavaScriptAttribute(String tagName, String attributeName) {
+        return javaScriptAttributeOutput;
+    }
+
+    @Override
+    public TemplateOutput forHref(String tagName, String attributeName) {
+        return hrefOutput;
+    }
+
+    @Override
+    public TemplateOutput forUnescaped() {
+        return unescapedOutput;
+    }
+
+    /**
+     * Attributes are kept in a stack, since an interceptor callback can render further intercepted templates to this output.
+     */
+    @Override
+    public HtmlAttributes getHtmlAttributes() {
+        if (htmlAttributes == null) {
+            htmlAttributes = new HtmlAttributes[2];
+        } else if (htmlAttributesDepth == htmlAttributes.length) {
+            htmlAttributes = Arrays.copyOf(htmlAttributes, htmlAttributesDepth * 2);
+        }
+
+        HtmlAttributes result = htmlAttributes[htmlAttributesDepth];
+        if (result == null) {
+            result = htmlAttributes[htmlAttributesDepth] = new HtmlAttributes();
+        }
+        ++htmlAttributesDepth;
+        return result;
+    }
+
+    @Override
+    public void releaseHtmlAttributes() {
+        if (htmlAttributesDepth > 0) {
+            --htmlAttributesDepth;
+        }
     }
 
     @Override
     public void writeUserContent(String value) {
-        if (value != null) {
-            if (tagName != null && attributeName != null) {
-                writeTagAttributeUserContent(value);
-            } else if (tagName != null) {
-                writeTagBodyUserContent(value);
-            } else {
-                writeContent(value);
-            }
+        if (context != null) {
+            context.writeUserContent(value);
+        } else if (value != null) {
+            writeContent(value);
         }
     }
 
     @Override
     public void writeUserContent(Content content) {
-        if (content != null) {
-            if (tagName != null && attributeName != null) {
-                StringOutput output = new StringOutput(1024);
-                content.writeTo(new OwaspHtmlTemplateOutput(output));
-
-                writeTagAttributeUserContent(output.toString());
-            } else {
-                content.writeTo(this);
-            }
+        if (context != null) {
+            context.writeUserContent(content);
+        } else if (content != null) {
+            content.writeTo(this);
         }
     }
 
     private void writeTagBodyUserContent(String value) {
         try {
-            if ("script".equals(tagName)) {
-                Encode.forJavaScriptBlock(getWriter(), value);
+            if (utf8Output != null) {
+                utf8Output.writeEscaped(value, Utf8HtmlEscapes.CONTENT);
             } else {
                 Encode.forHtmlContent(getWriter(), value);
             }
@@ -68,14 +137,18 @@ public class OwaspHtmlTemplateOutput implements HtmlTemplateOutput {
         }
     }
 
-    private void writeTagAttributeUserContent(String value) {
-        if ("a".equals(tagName) && "href".equals(attributeName) && StringUtils.startsWithIgnoringCaseAndWhitespaces(value, "javascript:")) {
-            return;
+    private void writeScriptBlockUserContent(String value) {
+        try {
+            Encode.forJavaScriptBlock(getWriter(), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
+    private void writeTagAttributeUserContent(String value) {
         try {
-            if (attributeName.startsWith("on")) {
-                Encode.forJavaScriptAttribute(getWriter(), value);
+            if (utf8Output != null) {
+                utf8Output.writeEscaped(value, Utf8HtmlEscapes.ATTRIBUTE);
             } else {
                 Encode.forHtmlAttribute(getWriter(), value);
             }
@@ -84,6 +157,26 @@ public class OwaspHtmlTemplateOutput implements HtmlTemplateOutput {
         }
     }
 
+    private void writeJavaScriptAttributeUserContent(String value) {
+        try {
+            Encode.forJavaScriptAttribute(getWriter(), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHrefUserContent(String value) {
+        if (!StringUtils.startsWithIgnoringCaseAndWhitespaces(value, "javascript:")) {
+            writeTagAttributeUserContent(value);
+        }
+    }
+
+    private String renderAttributeContent(Content content) {
+        StringOutput output = new StringOutput(1024);
+        content.writeTo(new OwaspHtmlTemplateOutput(output));
+        return output.toString();
+    }
+
     @Override
     public Writer getWriter() {
         return templateOutput.getWriter();
@@ -99,6 +192,11 @@ public class OwaspHtmlTemplateOutput implements HtmlTemplateOutput {
         templateOutput.writeBinaryContent(value);
     }
 
+    @Override
+    public void writeBinaryContent(ByteBuffer value) {
+        templateOutput.writeBinaryContent(value);
+    }
+
     @Override
     public void writeUserContent(boolean value) {
         templateOutput.writeUserContent(value);
@@ -133,4 +231,248 @@ public class OwaspHtmlTemplateOutput implements HtmlTemplateOutput {
     public void writeUserContent(double value) {
         templateOutput.writeUserContent(value);
     }
+
+    /**
+     * Output for a single HTML context, escaping is decided when the view is created instead of per write.
+     * Primitive values are never escaped, so that they are passed to the underlying output directly.
+     */
+    private abstract class ContextOutput implements TemplateOutput {
+        private OwaspHtmlTemplateOutput escapingContentOutput;
+
+        abstract void writeEscaped(String value);
+
+        /**
+         * Streams the content through the escaping of this context, without rendering it to a String first.
+         * The content is written to an HTML output without context, which is reused for all contents written to this context.
+         */
+        void writeEscapedContent(Content content) {
+            if (escapingContentOutput == null) {
+                escapingContentOutput = new OwaspHtmlTemplateOutput(new EscapingOutput(this));
+            }
+            escapingContentOutput.context = null;
+            content.writeTo(escapingContentOutput);
+        }
+
+        @Override
+        public void writeUserContent(String value) {
+            if (value != null) {
+                writeEscaped(value);
+            }
+        }
+
+        @Override
+        public void writeUserContent(Content content) {
+            if (content != null) {
+                context = this;
+                content.writeTo(OwaspHtmlTemplateOutput.this);
+            }
+        }
+
+        @Override
+        public Writer getWriter() {
+            return templateOutput.getWriter();
+        }
+
+        @Override
+        public void writeContent(String value) {
+            templateOutput.writeContent(value);
+        }
+
+        @Override
+        public void writeBinaryContent(byte[] value) {
+            templateOutput.writeBinaryContent(value);
+        }
+
+        @Override
+        public void writeBinaryContent(ByteBuffer value) {
+            templateOutput.writeBinaryContent(value);
+        }
+
+        @Override
+        public void writeUserContent(boolean value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(byte value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(short value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(int value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(long value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(float value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(double value) {
+            templateOutput.writeUserContent(value);
+        }
+    }
+
+    private final class TagBodyOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            writeTagBodyUserContent(value);
+        }
+    }
+
+    private final class ScriptBlockOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            writeScriptBlockUserContent(value);
+        }
+    }
+
+    private final class TagAttributeOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            writeTagAttributeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(Content content) {
+            if (content != null) {
+                writeEscapedContent(content);
+            }
+        }
+    }
+
+    private final class JavaScriptAttributeOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            writeJavaScriptAttributeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(Content content) {
+            if (content != null) {
+                writeEscapedContent(content);
+            }
+        }
+    }
+
+    private final class HrefOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            writeHrefUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(Content content) {
+            if (content != null) {
+                writeHrefUserContent(renderAttributeContent(content));
+            }
+        }
+    }
+
+    /**
+     * Escapes everything written to it for the given context and passes it to the underlying output.
+     */
+    private final class EscapingOutput extends Writer implements TemplateOutput {
+        private final ContextOutput contextOutput;
+
+        EscapingOutput(ContextOutput contextOutput) {
+            this.contextOutput = contextOutput;
+        }
+
+        @Override
+        public Writer getWriter() {
+            return this;
+        }
+
+        @Override
+        public void writeContent(String value) {
+            contextOutput.writeEscaped(value);
+        }
+
+        @Override
+        public void writeUserContent(boolean value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(byte value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(short value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(int value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(long value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(float value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void writeUserContent(double value) {
+            templateOutput.writeUserContent(value);
+        }
+
+        @Override
+        public void write(char[] buffer, int off, int len) {
+            contextOutput.writeEscaped(new String(buffer, off, len));
+        }
+
+        @Override
+        public void write(String str) {
+            contextOutput.writeEscaped(str);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            contextOutput.writeEscaped(str.substring(off, off + len));
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    private final class UnescapedOutput extends ContextOutput {
+        @Override
+        void writeEscaped(String value) {
+            templateOutput.writeContent(value);
+        }
+
+        @Override
+        public void writeUserContent(Content content) {
+            if (content != null) {
+                context = null;
+                content.writeTo(OwaspHtmlTemplateOutput.this);
+            }
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package gg.jte.html;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pre-encoded ASCII lookup tables for {@link gg.jte.output.Utf8EncodingOutput#writeEscaped(String, byte[][])}.
+ * The tables produce exactly the same output as the OWASP encoder.
+ */
+final class Utf8HtmlEscapes {
+    static final byte[][] CONTENT = createContentEscapes();
+    static final byte[][] ATTRIBUTE = createAttributeEscapes();
+
+    private Utf8HtmlEscapes() {
+    }
+
+    private static byte[][] createContentEscapes() {
+        byte[][] escapes = createInvalidCharEscapes();
+        escapes['&'] = bytes("&amp;");
+        escapes['<'] = bytes("&lt;");
+        escapes['>'] = bytes("&gt;");
+        return escapes;
+    }
+
+    private static byte[][] createAttributeEscapes() {
+        byte[][] escapes = createInvalidCharEscapes();
+        escapes['&'] = bytes("&amp;");
+        escapes['<'] = bytes("&lt;");
+        escapes['"'] = bytes("&#34;");
+        escapes['\''] = bytes("&#39;");
+        return escapes;
+    }
+
+    private static byte[][] createInvalidCharEscapes() {
+        byte[][] escapes = new byte[128][];
+        byte[] space = bytes(" ");
+        for (int c = 0; c < 0x20; ++c) {
+            if (c != '\t' && c != '\n' && c != '\r') {
+                escapes[c] = space;
+            }
+        }
+        escapes[0x7f] = space;
+        return escapes;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
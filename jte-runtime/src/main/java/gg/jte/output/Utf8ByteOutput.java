@@ -1,10 +1,9 @@
 package gg.jte.output;
 
-import gg.jte.TemplateOutput;
-
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 
 /**
@@ -13,19 +12,12 @@ import java.util.ArrayList;
  *
  * CAUTION: You must enable {@link gg.jte.TemplateEngine#setBinaryStaticContent(boolean)}, otherwise this class won't provide any benefits over {@link StringOutput}!
  */
-public final class Utf8ByteOutput extends Writer implements TemplateOutput {
-
-    private final int chunkSize;
+public final class Utf8ByteOutput extends Utf8EncodingOutput {
 
-    private final char[] tempBuffer;
-    private final int tempBufferSize;
+    private final Utf8ByteOutputPool pool;
 
     private ArrayList<Chunk> chunks;
-    private byte[] buffer;
-    private int lastIndex;
-    private int currentIndex;
-
-    private char highSurrogate;
+    private ArrayList<byte[]> pooledChunks;
 
     /**
      * Constructs an output with sane defaults
@@ -41,11 +33,13 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
      * @param tempBufferSize The size for the temporary buffer used for intermediate String encoding.
      */
     public Utf8ByteOutput(int chunkSize, int tempBufferSize) {
-        this.chunkSize = chunkSize;
-        buffer = new byte[this.chunkSize];
+        super(new byte[chunkSize], new char[tempBufferSize]);
+        pool = null;
+    }
 
-        this.tempBufferSize = tempBufferSize;
-        tempBuffer = new char[tempBufferSize];
+    Utf8ByteOutput(Utf8ByteOutputPool pool) {
+        super(pool.takeChunk(), pool.takeTempBuffer());
+        this.pool = pool;
     }
 
     /**
@@ -75,13 +69,20 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
     /**
      * Passes all collected bytes to the given data consumer.
      * CAUTION: For performance reasons no copy of the byte arrays is made. It is the consumer's duty to never alter their content!
+     * Off-heap binary content is copied to a new byte array though, use {@link #writeTo(WritableByteChannel)} to avoid that.
      * @param dataConsumer the data consumer
      * @throws IOException in case the consume operation fails
      */
     public void writeTo(DataConsumer dataConsumer) throws IOException {
         if (chunks != null) {
             for (Chunk chunk : chunks) {
-                dataConsumer.accept(chunk.data, chunk.startIndex, chunk.length);
+                if (chunk.byteBuffer == null) {
+                    dataConsumer.accept(chunk.data, chunk.startIndex, chunk.length);
+                } else {
+                    byte[] data = new byte[chunk.length];
+                    chunk.byteBuffer.duplicate().get(data);
+                    dataConsumer.accept(data, 0, chunk.length);
+                }
             }
         }
 
@@ -91,18 +92,31 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
         }
     }
 
-    @Override
-    public Writer getWriter() {
-        return this;
+    /**
+     * Passes all collected bytes to the given channel. Off-heap binary content is passed as is. Does not close the channel.
+     * @param channel the channel, expected to be blocking
+     * @throws IOException in case the channel operation fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        if (chunks != null) {
+            for (Chunk chunk : chunks) {
+                if (chunk.byteBuffer == null) {
+                    write(channel, ByteBuffer.wrap(chunk.data, chunk.startIndex, chunk.length));
+                } else {
+                    write(channel, chunk.byteBuffer.duplicate());
+                }
+            }
+        }
+
+        int remaining = currentIndex - lastIndex;
+        if (remaining > 0) {
+            write(channel, ByteBuffer.wrap(buffer, lastIndex, remaining));
+        }
     }
 
-    @Override
-    public void writeContent(String s) {
-        int len = s.length();
-        for (int i = 0; i < len; i += tempBufferSize) {
-            int size = Math.min(tempBufferSize, len - i);
-            s.getChars(i, i + size, tempBuffer, 0);
-            write(tempBuffer, 0, size);
+    private static void write(WritableByteChannel channel, ByteBuffer byteBuffer) throws IOException {
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
         }
     }
 
@@ -120,82 +134,46 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
         }
     }
 
+    /**
+     * Off-heap content is kept as is, until it is passed to a channel.
+     */
     @Override
-    public void writeUserContent(boolean value) {
-        appendLatin1(String.valueOf(value));
-    }
-
-    @Override
-    public void writeUserContent(byte value) {
-        appendLatin1(Byte.toString(value));
-    }
-
-    @Override
-    public void writeUserContent(char value) {
-        appendUtf8Char(value);
-    }
-
-    @Override
-    public void writeUserContent(int value) {
-        appendLatin1(Integer.toString(value));
-    }
-
-    @Override
-    public void writeUserContent(long value) {
-        appendLatin1(Long.toString(value));
-    }
-
-    @Override
-    public void writeUserContent(float value) {
-        appendLatin1(Float.toString(value));
-    }
+    public void writeBinaryContent(ByteBuffer value) {
+        if (value.remaining() < 16) {
+            doAppend(value); // Don't waste chunks if buffer is very small.
+        } else {
+            if (lastIndex < currentIndex) {
+                addCurrentChunk();
+                lastIndex = currentIndex;
+            }
 
-    @Override
-    public void writeUserContent(double value) {
-        appendLatin1(Double.toString(value));
+            addChunk(new Chunk(value.slice())); // Position and limit of the caller's buffer must not affect the output
+        }
     }
 
-    // Writer interface
-
-    @Override
-    public void write(@SuppressWarnings("NullableProblems") char[] buffer, int off, int len) {
-        int i = off;
-        len += off;
-
-        while (i < len) {
-            write(buffer[i++]);
+    /**
+     * Returns all buffers of this output to the {@link Utf8ByteOutputPool} it was acquired from.
+     * The output must not be used anymore afterwards, this includes all byte arrays passed to a {@link DataConsumer}.
+     * Does nothing, if this output was not acquired from a pool.
+     */
+    public void recycle() {
+        if (pool == null || buffer == null) {
+            return;
         }
-    }
 
-    public void write(char c) {
-        if (highSurrogate != 0) {
-            if (Character.isLowSurrogate(c)) {
-                appendUtf8CodePoint(Character.toCodePoint(highSurrogate, c));
-            } else {
-                doAppend((byte)('�'));
-                appendUtf8Char(c);
+        if (pooledChunks != null) {
+            for (byte[] pooledChunk : pooledChunks) {
+                pool.recycleChunk(pooledChunk);
             }
-            highSurrogate = 0;
-        } else if (Character.isHighSurrogate(c)) {
-            highSurrogate = c;
-        } else {
-            appendUtf8Char(c);
         }
-    }
+        pool.recycleChunk(buffer);
+        pool.recycleTempBuffer(tempBuffer);
 
-    @Override
-    public void write(int c) {
-        write((char) c);
-    }
-
-    @Override
-    public void write(@SuppressWarnings("NullableProblems") char[] buffer) {
-        write(buffer, 0, buffer.length);
-    }
-
-    @Override
-    public void write(@SuppressWarnings("NullableProblems") String str) {
-        writeContent(str);
+        chunks = null;
+        pooledChunks = null;
+        buffer = null;
+        tempBuffer = null;
+        resetEncoding();
     }
 
     @Override
@@ -208,58 +186,23 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
         // nothing to do
     }
 
-    private void appendLatin1(String s) {
-        int len = s.length();
-
-        for (int i = 0; i < len; ++i) {
-            doAppend((byte) s.charAt(i));
-        }
-    }
-
-    private void appendUtf8Char(char c) {
-        if (c < 0x80) {
-            doAppend((byte) c);
-        } else if (c < 0x800) {
-            doAppend((byte) (0xc0 | c >> 6));
-            doAppend((byte) (0x80 | c & 0x3f));
-        } else {
-            doAppend((byte)(0xe0 | (c >> 12)));
-            doAppend((byte)(0x80 | ((c >> 6) & 0x3f)));
-            doAppend((byte)(0x80 | (c & 0x3f)));
-        }
-    }
-
-    private void appendUtf8CodePoint(int c) {
-        doAppend((byte)(0xf0 | (c >> 18)));
-        doAppend((byte)(0x80 | ((c >> 12) & 0x3f)));
-        doAppend((byte)(0x80 | ((c >> 6) & 0x3f)));
-        doAppend((byte)(0x80 | (c & 0x3f)));
+    @Override
+    void onBufferFull() {
+        createNewChunk();
     }
 
-    private void doAppend(byte[] bytes) {
-        int length = bytes.length;
+    private void createNewChunk() {
+        addCurrentChunk();
 
-        if (currentIndex + length < chunkSize) {
-            System.arraycopy(bytes, 0, buffer, currentIndex, length);
-            currentIndex += length;
+        if (pool == null) {
+            buffer = new byte[chunkSize];
         } else {
-            for (byte b : bytes) {
-                doAppend(b);
+            if (pooledChunks == null) {
+                pooledChunks = new ArrayList<>();
             }
+            pooledChunks.add(buffer);
+            buffer = pool.takeChunk();
         }
-    }
-
-    private void doAppend(byte b) {
-        if (currentIndex == chunkSize) {
-            createNewChunk();
-        }
-        buffer[currentIndex++] = b;
-    }
-
-    private void createNewChunk() {
-        addCurrentChunk();
-
-        buffer = new byte[chunkSize];
         lastIndex = 0;
         currentIndex = 0;
     }
@@ -279,11 +222,20 @@ public final class Utf8ByteOutput extends Writer implements TemplateOutput {
         final byte[] data;
         final int startIndex;
         final int length;
+        final ByteBuffer byteBuffer;
 
         public Chunk(byte[] data, int startIndex, int length) {
             this.data = data;
             this.startIndex = startIndex;
             this.length = length;
+            this.byteBuffer = null;
+        }
+
+        public Chunk(ByteBuffer byteBuffer) {
+            this.data = null;
+            this.startIndex = 0;
+            this.length = byteBuffer.remaining();
+            this.byteBuffer = byteBuffer;
         }
     }
 
@@ -0,0 +1,157 @@
+package gg.jte.output;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of the buffers used by {@link Utf8ByteOutput}.
+ * Outputs are acquired from the pool and must be recycled once their content was written, for instance:
+ *
+ * <pre>
+ * Utf8ByteOutput output = pool.acquire();
+ * try {
+ *     templateEngine.render(template, page, output);
+ *     output.writeTo(os);
+ * } finally {
+ *     output.recycle();
+ * }
+ * </pre>
+ *
+ * Unlike {@link StringOutputPool}, this pool does not use a ThreadLocal. It is lock-free and can be shared by any number of threads,
+ * including virtual threads. At most maxPooledBuffers buffers are retained, additional buffers are left to the garbage collector.
+ */
+public final class Utf8ByteOutputPool {
+
+    private final int chunkSize;
+    private final int tempBufferSize;
+
+    private final Slots<byte[]> chunks;
+    private final Slots<char[]> tempBuffers;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * Constructs a pool with the same chunk sizes as {@link Utf8ByteOutput#Utf8ByteOutput()}, retaining at most 1024 chunks.
+     */
+    public Utf8ByteOutputPool() {
+        this(1024, 512, 1024);
+    }
+
+    /**
+     * Constructs a pool with custom settings.
+     * @param chunkSize The size in bytes for chunks of dynamic data, see {@link Utf8ByteOutput#Utf8ByteOutput(int, int)}.
+     * @param tempBufferSize The size for the temporary buffer used for intermediate String encoding.
+     * @param maxPooledBuffers The maximum amount of chunks that are retained by this pool.
+     */
+    public Utf8ByteOutputPool(int chunkSize, int tempBufferSize, int maxPooledBuffers) {
+        this.chunkSize = chunkSize;
+        this.tempBufferSize = tempBufferSize;
+
+        chunks = new Slots<>(maxPooledBuffers);
+        tempBuffers = new Slots<>(maxPooledBuffers);
+    }
+
+    /**
+     * @return an empty output, that takes its buffers from this pool. Call {@link Utf8ByteOutput#recycle()} to return them.
+     */
+    public Utf8ByteOutput acquire() {
+        return new Utf8ByteOutput(this);
+    }
+
+    /**
+     * @return how many buffers were taken from this pool.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many buffers had to be allocated, because this pool was empty.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many recycled buffers were not retained, because this pool was full.
+     */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    byte[] takeChunk() {
+        byte[] chunk = chunks.poll();
+        if (chunk == null) {
+            misses.increment();
+            return new byte[chunkSize];
+        }
+
+        hits.increment();
+        return chunk;
+    }
+
+    char[] takeTempBuffer() {
+        char[] tempBuffer = tempBuffers.poll();
+        if (tempBuffer == null) {
+            misses.increment();
+            return new char[tempBufferSize];
+        }
+
+        hits.increment();
+        return tempBuffer;
+    }
+
+    void recycleChunk(byte[] chunk) {
+        if (!chunks.offer(chunk)) {
+            discards.increment();
+        }
+    }
+
+    void recycleTempBuffer(char[] tempBuffer) {
+        if (!tempBuffers.offer(tempBuffer)) {
+            discards.increment();
+        }
+    }
+
+    /**
+     * A bounded lock-free stack. Each slot is claimed with a compare-and-set on the slot itself, so that a buffer is never
+     * lost or handed out twice, and no memory is allocated per operation. The top index is only a hint where to start searching.
+     */
+    private static final class Slots<T> {
+        private final AtomicReferenceArray<T> slots;
+        private volatile int top;
+
+        Slots(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        T poll() {
+            int capacity = slots.length();
+            int start = top;
+            for (int i = 0; i < capacity; ++i) {
+                int index = (start - 1 - i + capacity) % capacity;
+                T value = slots.get(index);
+                if (value != null && slots.compareAndSet(index, value, null)) {
+                    top = index;
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        boolean offer(T value) {
+            int capacity = slots.length();
+            int start = top;
+            for (int i = 0; i < capacity; ++i) {
+                int index = (start + i) % capacity;
+                if (slots.get(index) == null && slots.compareAndSet(index, null, value)) {
+                    top = index + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package gg.jte.output;
+
+import gg.jte.TemplateOutput;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for template outputs that encode all dynamic content to UTF-8 into a byte buffer.
+ * Subclasses decide what happens with the buffer once it is full and how pre-encoded binary content is passed on.
+ *
+ * @see Utf8ByteOutput
+ * @see Utf8StreamOutput
+ */
+public abstract class Utf8EncodingOutput extends Writer implements TemplateOutput {
+
+    final int chunkSize;
+
+    char[] tempBuffer;
+    private final int tempBufferSize;
+
+    byte[] buffer;
+    int lastIndex;
+    int currentIndex;
+
+    private char highSurrogate;
+
+    Utf8EncodingOutput(byte[] buffer, char[] tempBuffer) {
+        this.chunkSize = buffer.length;
+        this.buffer = buffer;
+
+        this.tempBufferSize = tempBuffer.length;
+        this.tempBuffer = tempBuffer;
+    }
+
+    /**
+     * Called when the buffer is full. Implementations must make room in the buffer, either by
+     * starting a new buffer or by passing on the bytes between lastIndex and currentIndex.
+     */
+    abstract void onBufferFull();
+
+    @Override
+    public Writer getWriter() {
+        return this;
+    }
+
+    @Override
+    public void writeContent(String s) {
+        int len = s.length();
+        for (int i = 0; i < len; i += tempBufferSize) {
+            int size = Math.min(tempBufferSize, len - i);
+            s.getChars(i, i + size, tempBuffer, 0);
+            write(tempBuffer, 0, size);
+        }
+    }
+
+    @Override
+    public void writeUserContent(boolean value) {
+        appendLatin1(String.valueOf(value));
+    }
+
+    @Override
+    public void writeUserContent(byte value) {
+        appendLatin1(Byte.toString(value));
+    }
+
+    @Override
+    public void writeUserContent(char value) {
+        appendUtf8Char(value);
+    }
+
+    @Override
+    public void writeUserContent(int value) {
+        appendLatin1(Integer.toString(value));
+    }
+
+    @Override
+    public void writeUserContent(long value) {
+        appendLatin1(Long.toString(value));
+    }
+
+    @Override
+    public void writeUserContent(float value) {
+        appendLatin1(Float.toString(value));
+    }
+
+    @Override
+    public void writeUserContent(double value) {
+        appendLatin1(Double.toString(value));
+    }
+
+    /**
+     * Writes the given value UTF-8 encoded, escaping characters on the fly without any intermediate char or String buffers.
+     * Runs of ASCII characters that need no escaping are bulk copied into the current chunk.
+     * Characters that are not allowed in HTML (C1 control characters, non-characters and unpaired surrogates) are replaced with a space.
+     * @param value the value to escape
+     * @param asciiEscapes a lookup table of length 128, containing the UTF-8 encoded replacement for every ASCII character, or null if the character is written as is
+     */
+    public void writeEscaped(String value, byte[][] asciiEscapes) {
+        int length = value.length();
+        int runStart = 0;
+
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] escape = asciiEscapes[c];
+                if (escape == null) {
+                    continue;
+                }
+
+                appendAscii(value, runStart, i);
+                doAppend(escape);
+            } else {
+                appendAscii(value, runStart, i);
+                i = appendEscapedNonAscii(value, i, c);
+            }
+            runStart = i + 1;
+        }
+
+        appendAscii(value, runStart, length);
+    }
+
+    // Writer interface
+
+    @Override
+    public void write(@SuppressWarnings("NullableProblems") char[] buffer, int off, int len) {
+        int i = off;
+        len += off;
+
+        while (i < len) {
+            write(buffer[i++]);
+        }
+    }
+
+    public void write(char c) {
+        if (highSurrogate != 0) {
+            if (Character.isLowSurrogate(c)) {
+                appendUtf8CodePoint(Character.toCodePoint(highSurrogate, c));
+            } else {
+                doAppend((byte)('�'));
+                appendUtf8Char(c);
+            }
+            highSurrogate = 0;
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else {
+            appendUtf8Char(c);
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        write((char) c);
+    }
+
+    @Override
+    public void write(@SuppressWarnings("NullableProblems") char[] buffer) {
+        write(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void write(@SuppressWarnings("NullableProblems") String str) {
+        writeContent(str);
+    }
+
+    private void appendLatin1(String s) {
+        int len = s.length();
+
+        for (int i = 0; i < len; ++i) {
+            doAppend((byte) s.charAt(i));
+        }
+    }
+
+    @SuppressWarnings("deprecation") // String.getBytes(int, int, byte[], int) is exactly what we need for pure ASCII runs
+    private void appendAscii(String s, int start, int end) {
+        while (start < end) {
+            if (currentIndex == chunkSize) {
+                onBufferFull();
+            }
+
+            int count = Math.min(end - start, chunkSize - currentIndex);
+            s.getBytes(start, start + count, buffer, currentIndex);
+            currentIndex += count;
+            start += count;
+        }
+    }
+
+    private int appendEscapedNonAscii(String s, int index, char c) {
+        if (Character.isHighSurrogate(c)) {
+            int next = index + 1;
+            if (next < s.length() && Character.isLowSurrogate(s.charAt(next))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(next));
+                if ((codePoint & 0xfffe) == 0xfffe) {
+                    doAppend((byte)' ');
+                } else {
+                    appendUtf8CodePoint(codePoint);
+                }
+                return next;
+            }
+            doAppend((byte)' ');
+        } else if (Character.isLowSurrogate(c) || isInvalidHtmlChar(c)) {
+            doAppend((byte)' ');
+        } else {
+            appendUtf8Char(c);
+        }
+        return index;
+    }
+
+    private static boolean isInvalidHtmlChar(char c) {
+        return (c <= 0x9f && c != 0x85) || (c >= 0xfdd0 && c <= 0xfdef) || c >= 0xfffe;
+    }
+
+    private void appendUtf8Char(char c) {
+        if (c < 0x80) {
+            doAppend((byte) c);
+        } else if (c < 0x800) {
+            doAppend((byte) (0xc0 | c >> 6));
+            doAppend((byte) (0x80 | c & 0x3f));
+        } else {
+            doAppend((byte)(0xe0 | (c >> 12)));
+            doAppend((byte)(0x80 | ((c >> 6) & 0x3f)));
+            doAppend((byte)(0x80 | (c & 0x3f)));
+        }
+    }
+
+    private void appendUtf8CodePoint(int c) {
+        doAppend((byte)(0xf0 | (c >> 18)));
+        doAppend((byte)(0x80 | ((c >> 12) & 0x3f)));
+        doAppend((byte)(0x80 | ((c >> 6) & 0x3f)));
+        doAppend((byte)(0x80 | (c & 0x3f)));
+    }
+
+    void doAppend(byte[] bytes) {
+        int length = bytes.length;
+
+        if (currentIndex + length < chunkSize) {
+            System.arraycopy(bytes, 0, buffer, currentIndex, length);
+            currentIndex += length;
+        } else {
+            for (byte b : bytes) {
+                doAppend(b);
+            }
+        }
+    }
+
+    void doAppend(ByteBuffer bytes) {
+        int position = bytes.position();
+        int length = bytes.remaining();
+
+        if (currentIndex + length < chunkSize) {
+            for (int i = 0; i < length; ++i) {
+                buffer[currentIndex + i] = bytes.get(position + i);
+            }
+            currentIndex += length;
+        } else {
+            for (int i = 0; i < length; ++i) {
+                doAppend(bytes.get(position + i));
+            }
+        }
+    }
+
+    void resetEncoding() {
+        lastIndex = 0;
+        currentIndex = 0;
+        highSurrogate = 0;
+    }
+
+    private void doAppend(byte b) {
+        if (currentIndex == chunkSize) {
+            onBufferFull();
+        }
+        buffer[currentIndex++] = b;
+    }
+}
@@ -0,0 +1,178 @@
+package gg.jte.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Streaming UTF-8 template output, that writes to a {@link WritableByteChannel} while the template is rendered.
+ * Unlike {@link Utf8ByteOutput}, the memory required by this output does not grow with the size of the rendered content.
+ * Pre-encoded binary content is passed to the channel as is, while dynamic data is encoded into a single buffer that is reused after every flush.
+ * Pending data is flushed as soon as the configured high-water mark is reached, using a gathering write if the channel supports it.
+ *
+ * The channel is expected to be blocking. Call {@link #flush()} after rendering, to pass any remaining data to the channel.
+ *
+ * CAUTION: You must enable {@link gg.jte.TemplateEngine#setBinaryStaticContent(boolean)}, otherwise this class won't provide any benefits over {@link WriterOutput}!
+ */
+public final class Utf8StreamOutput extends Utf8EncodingOutput {
+
+    private final WritableByteChannel channel;
+    private final int highWaterMark;
+
+    private ByteBuffer[] pending = new ByteBuffer[16];
+    private int pendingCount;
+    private int pendingBytes;
+    private long writtenBytes;
+
+    /**
+     * Constructs an output with sane defaults, writing to the given output stream.
+     * @param os the output stream, will not be closed by this output
+     */
+    public Utf8StreamOutput(OutputStream os) {
+        this(Channels.newChannel(os));
+    }
+
+    /**
+     * Constructs an output with sane defaults, writing to the given channel.
+     * @param channel the channel, will not be closed by this output
+     */
+    public Utf8StreamOutput(WritableByteChannel channel) {
+        this(channel, 8 * 1024, 512, 64 * 1024);
+    }
+
+    /**
+     * Constructs an output with custom settings.
+     * @param channel the channel, will not be closed by this output
+     * @param chunkSize The size in bytes of the buffer for dynamic data. Pending data is flushed whenever this buffer is full.
+     * @param tempBufferSize The size for the temporary buffer used for intermediate String encoding.
+     * @param highWaterMark The amount of pending bytes, after which all pending data is flushed to the channel.
+     */
+    public Utf8StreamOutput(WritableByteChannel channel, int chunkSize, int tempBufferSize, int highWaterMark) {
+        super(new byte[chunkSize], new char[tempBufferSize]);
+        this.channel = channel;
+        this.highWaterMark = highWaterMark;
+    }
+
+    /**
+     * @return The amount of bytes written to this output, including bytes that were not yet flushed to the channel.
+     */
+    public long getContentLength() {
+        return writtenBytes + pendingBytes + (currentIndex - lastIndex);
+    }
+
+    @Override
+    public void writeBinaryContent(byte[] value) {
+        if (value.length < 16) {
+            doAppend(value); // Don't waste buffers if array is very small.
+        } else {
+            addCurrentChunk();
+            addPending(ByteBuffer.wrap(value));
+
+            if (pendingBytes >= highWaterMark) {
+                flushPending();
+            }
+        }
+    }
+
+    /**
+     * Off-heap content is passed to the channel without copying it to the heap.
+     */
+    @Override
+    public void writeBinaryContent(ByteBuffer value) {
+        if (value.remaining() < 16) {
+            doAppend(value);
+        } else {
+            addCurrentChunk();
+            addPending(value.duplicate());
+
+            if (pendingBytes >= highWaterMark) {
+                flushPending();
+            }
+        }
+    }
+
+    /**
+     * Passes all pending data to the channel.
+     * @throws IOException in case the channel operation fails
+     */
+    @Override
+    public void flush() throws IOException {
+        addCurrentChunk();
+        writePending();
+    }
+
+    /**
+     * Passes all pending data to the channel. Does not close the channel.
+     * @throws IOException in case the channel operation fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    @Override
+    void onBufferFull() {
+        addCurrentChunk();
+        flushPending();
+    }
+
+    private void addCurrentChunk() {
+        if (lastIndex < currentIndex) {
+            addPending(ByteBuffer.wrap(buffer, lastIndex, currentIndex - lastIndex));
+            lastIndex = currentIndex;
+        }
+    }
+
+    private void addPending(ByteBuffer byteBuffer) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = byteBuffer;
+        pendingBytes += byteBuffer.remaining();
+    }
+
+    private void flushPending() {
+        try {
+            writePending();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            writeGathering((GatheringByteChannel) channel);
+        } else {
+            for (int i = 0; i < pendingCount; ++i) {
+                ByteBuffer byteBuffer = pending[i];
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+            }
+        }
+
+        Arrays.fill(pending, 0, pendingCount, null);
+        pendingCount = 0;
+        writtenBytes += pendingBytes;
+        pendingBytes = 0;
+
+        // All dynamic data has been written, the buffer can be reused
+        lastIndex = 0;
+        currentIndex = 0;
+    }
+
+    private void writeGathering(GatheringByteChannel gatheringChannel) throws IOException {
+        int offset = 0;
+        while (offset < pendingCount) {
+            gatheringChannel.write(pending, offset, pendingCount - offset);
+            while (offset < pendingCount && !pending[offset].hasRemaining()) {
+                ++offset;
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package gg.jte.runtime;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 @SuppressWarnings("unused") // By generated template code
 public final class BinaryContent {
@@ -23,6 +25,81 @@ public final class BinaryContent {
         return new BinaryContent(data);
     }
 
+    /**
+     * Loads the content of the given template into a single direct buffer, each part is a read-only view of it.
+     */
+    public static BinaryContent loadDirect(Class<?> templateClass, String resource, int ... lengths) {
+        int size = 0;
+        for (int length : lengths) {
+            size += length;
+        }
+
+        ByteBuffer content = ByteBuffer.allocateDirect(size);
+
+        try (InputStream is = templateClass.getResourceAsStream(resource)) {
+            byte[] chunk = new byte[Math.min(size, 8192)];
+            while (content.hasRemaining()) {
+                int read = is.read(chunk, 0, Math.min(chunk.length, content.remaining()));
+                if (read == -1) {
+                    break;
+                }
+                content.put(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ((Buffer) content).clear();
+        return new BinaryContent(slice(content.asReadOnlyBuffer(), lengths));
+    }
+
+    /**
+     * Loads the content of the given template from the bundle shared by all templates of its module.
+     */
+    public static BinaryContent loadBundled(Class<?> templateClass, String resource, int ... lengths) {
+        ByteBuffer content = getBundledContent(templateClass, resource);
+
+        int total = lengths.length;
+
+        byte[][] data = new byte[total][];
+        for (int i = 0; i < total; ++i) {
+            data[i] = new byte[lengths[i]];
+            content.get(data[i]);
+        }
+
+        return new BinaryContent(data);
+    }
+
+    /**
+     * Loads the content of the given template from the bundle shared by all templates of its module.
+     * Each part is a read-only view of the bundle, no copy is made.
+     */
+    public static BinaryContent loadBundledDirect(Class<?> templateClass, String resource, int ... lengths) {
+        return new BinaryContent(slice(getBundledContent(templateClass, resource), lengths));
+    }
+
+    private static ByteBuffer getBundledContent(Class<?> templateClass, String resource) {
+        ByteBuffer content = BinaryContentBundle.load(templateClass.getClassLoader(), resource).get(templateClass.getName());
+        if (content == null) {
+            throw new IllegalStateException("No binary content found for " + templateClass.getName() + " in " + resource);
+        }
+        return content;
+    }
+
+    private static ByteBuffer[] slice(ByteBuffer content, int ... lengths) {
+        ByteBuffer[] buffers = new ByteBuffer[lengths.length];
+
+        int position = 0;
+        for (int i = 0; i < lengths.length; ++i) {
+            ByteBuffer part = content.duplicate();
+            ((Buffer) part).limit(position + lengths[i]).position(position);
+            buffers[i] = part.slice();
+            position += lengths[i];
+        }
+
+        return buffers;
+    }
+
     private static byte[] read(InputStream is, int length) throws IOException {
         byte[] result = new byte[length];
 
@@ -41,12 +118,23 @@ public final class BinaryContent {
 
 
     private final byte[][] data;
+    private final ByteBuffer[] buffers;
 
     public BinaryContent(byte[][] data) {
         this.data = data;
+        this.buffers = null;
+    }
+
+    public BinaryContent(ByteBuffer[] buffers) {
+        this.data = null;
+        this.buffers = buffers;
     }
 
     public byte[] get(int index) {
         return data[index];
     }
+
+    public ByteBuffer getBuffer(int index) {
+        return buffers[index];
+    }
 }
@@ -0,0 +1,194 @@
+package gg.jte.runtime;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary static content of all templates of a module, packed into a single resource.
+ *
+ * The resource is loaded once per template class loader. It is memory-mapped if it is located in a directory, otherwise it is
+ * read into a direct buffer. Templates obtain their content as views of the shared buffer, so that it stays off-heap.
+ *
+ * Bundles of templates loaded by a {@link TemplateLoader} are held by its class loader. A mapping cannot be released explicitly,
+ * as templates may still render from it, it is released once the class loader and all of its templates are garbage collected.
+ * Windows does not allow to replace a mapped file, which is why bundles are never mapped there.
+ */
+public final class BinaryContentBundle {
+    public static final String FILE_NAME = "jte-binary-content.bin";
+
+    private static final int MAGIC = 0x6A746542;
+    private static final int VERSION = 1;
+
+    private static final boolean MAPPING_SUPPORTED = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    /**
+     * Bundles of templates that were not loaded by a {@link TemplateLoader}, but by an application class loader.
+     */
+    private static final Map<ClassLoader, Map<String, BinaryContentBundle>> bundlesOfApplicationClassLoaders = new WeakHashMap<>();
+
+    private final ByteBuffer buffer;
+    private final Map<String, int[]> entries;
+
+    private BinaryContentBundle(ByteBuffer buffer, Map<String, int[]> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * @param className the binary name of the template class
+     * @return a read-only view of the content of the given class, or null if the class has no content in this bundle
+     */
+    public ByteBuffer get(String className) {
+        int[] entry = entries.get(className);
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer result = buffer.duplicate();
+        ((Buffer) result).limit(entry[0] + entry[1]).position(entry[0]);
+        return result.slice();
+    }
+
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * @param packageName the package name of the templates
+     * @return the resource name of the bundle, relative to the class directory
+     */
+    public static String getResourceName(String packageName) {
+        return packageName.replace('.', '/') + "/" + FILE_NAME;
+    }
+
+    /**
+     * @param classLoader the class loader of the templates
+     * @param resourceName the resource name of the bundle
+     * @return the bundle, shared by all templates of the given class loader
+     */
+    public static BinaryContentBundle load(ClassLoader classLoader, String resourceName) {
+        if (classLoader instanceof TemplateClassLoader) {
+            return ((TemplateClassLoader) classLoader).getBinaryContentBundle(resourceName);
+        }
+
+        synchronized (bundlesOfApplicationClassLoaders) {
+            Map<String, BinaryContentBundle> bundlesOfClassLoader = bundlesOfApplicationClassLoaders.computeIfAbsent(classLoader, c -> new HashMap<>());
+
+            BinaryContentBundle bundle = bundlesOfClassLoader.get(resourceName);
+            if (bundle == null) {
+                bundle = read(classLoader, resourceName);
+                bundlesOfClassLoader.put(resourceName, bundle);
+            }
+            return bundle;
+        }
+    }
+
+    static BinaryContentBundle read(ClassLoader classLoader, String resourceName) {
+        URL url = classLoader.getResource(resourceName);
+        if (url == null) {
+            throw new IllegalStateException("Binary content bundle " + resourceName + " not found");
+        }
+
+        try {
+            return read(readBuffer(url));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read binary content bundle " + url, e);
+        }
+    }
+
+    private static ByteBuffer readBuffer(URL url) throws IOException {
+        if (MAPPING_SUPPORTED && "file".equals(url.getProtocol())) {
+            Path file;
+            try {
+                file = Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        try (InputStream is = url.openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = is.read(chunk)) != -1) {
+                bytes.write(chunk, 0, read);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+            buffer.put(bytes.toByteArray());
+            ((Buffer) buffer).flip();
+            return buffer;
+        }
+    }
+
+    public static BinaryContentBundle read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a binary content bundle of version " + VERSION);
+        }
+
+        int count = buffer.getInt(8);
+        int position = 12;
+
+        Map<String, int[]> entries = new HashMap<>(count * 2);
+        for (int i = 0; i < count; ++i) {
+            int nameLength = buffer.getInt(position);
+            position += 4;
+
+            byte[] name = new byte[nameLength];
+            ByteBuffer nameBuffer = buffer.duplicate();
+            ((Buffer) nameBuffer).position(position);
+            nameBuffer.get(name);
+            position += nameLength;
+
+            int offset = buffer.getInt(position);
+            int length = buffer.getInt(position + 4);
+            position += 8;
+
+            entries.put(new String(name, StandardCharsets.UTF_8), new int[]{offset, length});
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        ((Buffer) data).position(position);
+        return new BinaryContentBundle(data.slice().asReadOnlyBuffer(), entries);
+    }
+
+    /**
+     * Writes a bundle with the given content.
+     * @param outputStream where to write the bundle to
+     * @param contentByClassName the binary static content of each template class
+     */
+    public static void write(OutputStream outputStream, SortedMap<String, byte[]> contentByClassName) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(contentByClassName.size());
+
+        int offset = 0;
+        for (Map.Entry<String, byte[]> entry : contentByClassName.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(offset);
+            out.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+
+        for (byte[] content : contentByClassName.values()) {
+            out.write(content);
+        }
+
+        out.flush();
+    }
+}
@@ -10,4 +10,5 @@ public interface Constants {
     String NAME_FIELD = "JTE_NAME";
     String LINE_INFO_FIELD = "JTE_LINE_INFO";
     String TEXT_PART_BINARY = "TEXT_PART_BINARY_";
+    String HTML_ATTRIBUTES = "HTML_ATTRIBUTES_";
 }
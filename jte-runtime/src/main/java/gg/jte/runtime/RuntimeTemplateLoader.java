@@ -1,15 +1,28 @@
 package gg.jte.runtime;
 
+import gg.jte.TemplateException;
+
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RuntimeTemplateLoader extends TemplateLoader {
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class}) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
     private final ClassLoader singleClassLoader;
+    private final TemplateManifest manifest;
+    private final ConcurrentHashMap<String, Map<String, Class<?>>> paramInfo = new ConcurrentHashMap<>();
 
     public RuntimeTemplateLoader(Path classDirectory, ClassLoader parentClassLoader, String packageName) {
         super(classDirectory, packageName);
         this.singleClassLoader = createClassLoader(parentClassLoader);
+        this.manifest = singleClassLoader == null ? null : TemplateManifest.load(singleClassLoader, packageName);
     }
 
     @Override
@@ -40,7 +53,56 @@ public class RuntimeTemplateLoader extends TemplateLoader {
 
     @Override
     public List<String> getTemplatesUsing(String name) {
-        return Collections.emptyList();
+        if (manifest == null) {
+            return Collections.emptyList();
+        }
+        return manifest.getTemplatesUsing(name);
+    }
+
+    @Override
+    public Set<String> getTemplateNames() {
+        if (manifest == null) {
+            return null;
+        }
+        return manifest.getNames();
+    }
+
+    /**
+     * Parameter classes are resolved from the manifest, without loading the template class itself.
+     */
+    @Override
+    public Map<String, Class<?>> getParamInfo(String name) {
+        if (manifest == null) {
+            return null;
+        }
+
+        TemplateManifest.Entry entry = manifest.get(name);
+        if (entry == null || entry.paramNames == null) {
+            return null;
+        }
+
+        return paramInfo.computeIfAbsent(name, n -> resolveParamInfo(entry));
+    }
+
+    private Map<String, Class<?>> resolveParamInfo(TemplateManifest.Entry entry) {
+        Map<String, Class<?>> result = new LinkedHashMap<>();
+        for (int i = 0; i < entry.paramNames.length; ++i) {
+            result.put(entry.paramNames[i], resolveClass(entry.paramTypes[i]));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Class<?> resolveClass(String className) {
+        Class<?> primitiveType = PRIMITIVE_TYPES.get(className);
+        if (primitiveType != null) {
+            return primitiveType;
+        }
+
+        try {
+            return Class.forName(className, false, singleClassLoader);
+        } catch (ClassNotFoundException e) {
+            throw new TemplateException("Failed to resolve parameter type " + className, e);
+        }
     }
 
     @Override
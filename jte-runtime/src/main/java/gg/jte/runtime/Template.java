@@ -3,22 +3,31 @@ package gg.jte.runtime;
 import gg.jte.TemplateException;
 import gg.jte.TemplateOutput;
 import gg.jte.html.HtmlInterceptor;
-import gg.jte.html.HtmlTemplateOutput;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public final class Template {
+    private static final MethodType RENDER_TYPE = MethodType.methodType(void.class, TemplateOutput.class, HtmlInterceptor.class, Object.class);
+    private static final MethodType RENDER_MAP_TYPE = MethodType.methodType(void.class, TemplateOutput.class, HtmlInterceptor.class, Map.class);
+    private static final MethodType RENDER_ARRAY_TYPE = MethodType.methodType(void.class, TemplateOutput.class, HtmlInterceptor.class, Object[].class);
+
     private final String name;
     private final TemplateType type;
     private final Class<?> clazz;
     private final int parameterCount;
     private Method render;
     private Method renderMap;
+    private Method renderArray;
+    private final MethodHandle renderHandle;
+    private final MethodHandle renderMapHandle;
+    private final MethodHandle renderArrayHandle;
     private Map<String, Class<?>> parameterInfo;
 
     public Template(String name, TemplateType type, Class<?> clazz) {
@@ -27,33 +36,83 @@ public final class Template {
         this.clazz = clazz;
         findRenderMethods(clazz);
         parameterCount = resolveParameterCount();
+        renderHandle = bindRender();
+        renderMapHandle = bind(renderMap, RENDER_MAP_TYPE);
+        renderArrayHandle = renderArray == null ? null : bind(renderArray, RENDER_ARRAY_TYPE);
     }
 
     public void render(TemplateOutput output, HtmlInterceptor htmlInterceptor, Object param) throws Throwable {
+        if (renderHandle == null) {
+            IllegalArgumentException cause = new IllegalArgumentException("wrong number of arguments");
+            if (isOutputMismatch(output)) {
+                throw createContentTypeMismatchException(cause);
+            }
+            throw createParameterMismatchException(param, cause);
+        }
+
         try {
-            if (parameterCount == 0) {
-                render.invoke(null, output, htmlInterceptor);
-            } else {
-                render.invoke(null, output, htmlInterceptor, param);
+            renderHandle.invokeExact(output, htmlInterceptor, param);
+        } catch (ClassCastException | NullPointerException e) {
+            if (isOutputMismatch(output)) {
+                throw createContentTypeMismatchException(e);
             }
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
-        } catch (IllegalArgumentException e) {
-            if (render.getParameterTypes()[0] == HtmlTemplateOutput.class && !(output instanceof HtmlTemplateOutput)) {
-                throw new TemplateException("The template " + name + " was compiled with ContentType.Html, but the template engine was initialized with ContentType.Plain. Please initialize the template engine with ContentType.Html.", e);
-            } else {
-                String expectedType = render.getParameterTypes()[2].getName();
-                String actualType = param != null ? param.getClass().getName() : null;
-                throw new TemplateException("Failed to render " + name + ", type mismatch for parameter: Expected " + expectedType + ", got " + actualType, e);
+            if (isParameterMismatch(param)) {
+                throw createParameterMismatchException(param, e);
             }
+            throw e;
         }
     }
 
     public void renderMap(TemplateOutput output, HtmlInterceptor htmlInterceptor, Map<String, Object> params) throws Throwable {
         try {
-            renderMap.invoke(null, output, htmlInterceptor, params);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
+            renderMapHandle.invokeExact(output, htmlInterceptor, params);
+        } catch (ClassCastException e) {
+            if (isOutputMismatch(output)) {
+                throw createContentTypeMismatchException(e);
+            }
+            throw e;
+        }
+    }
+
+    public void renderArray(TemplateOutput output, HtmlInterceptor htmlInterceptor, Object[] params) throws Throwable {
+        if (renderArrayHandle == null) {
+            throw new TemplateException("Failed to render " + name + ", the template was compiled without positional parameter support. Please recompile the template.");
+        }
+
+        try {
+            renderArrayHandle.invokeExact(output, htmlInterceptor, params);
+        } catch (ClassCastException e) {
+            if (isOutputMismatch(output)) {
+                throw createContentTypeMismatchException(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies upfront that every instance of the given type can be passed to {@link #render(TemplateOutput, HtmlInterceptor, Object)}.
+     * @param paramType the type of params this template will be rendered with
+     * @throws TemplateException in case the template cannot be rendered with params of this type
+     */
+    public void checkParameterType(Class<?> paramType) throws TemplateException {
+        if (renderHandle == null) {
+            throw new TemplateException("Failed to bind " + name + ", the template does not have exactly one parameter");
+        }
+
+        if (parameterCount == 0) {
+            return;
+        }
+
+        Class<?> expectedType = render.getParameterTypes()[2];
+        boolean assignable;
+        if (expectedType.isPrimitive()) {
+            assignable = paramType == expectedType || isWideningConversion(paramType, expectedType);
+        } else {
+            assignable = expectedType.isAssignableFrom(paramType);
+        }
+
+        if (!assignable) {
+            throw new TemplateException("Failed to bind " + name + ", type mismatch for parameter: Expected " + expectedType.getName() + ", got " + paramType.getName());
         }
     }
 
@@ -61,12 +120,27 @@ public final class Template {
         return clazz.getClassLoader();
     }
 
+    /**
+     * Runs the static initializer of the template class upfront, for instance to load binary content.
+     * Otherwise, this happens the first time the template is rendered.
+     * @throws TemplateException in case the template class failed to initialize
+     */
+    public void initialize() throws TemplateException {
+        try {
+            Class.forName(clazz.getName(), true, clazz.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new TemplateException("Failed to initialize " + name, e);
+        }
+    }
+
     private void findRenderMethods(Class<?> clazz) {
         for (Method declaredMethod : clazz.getDeclaredMethods()) {
             if ("render".equals(declaredMethod.getName())) {
                 render = declaredMethod;
             } else if ("renderMap".equals(declaredMethod.getName())) {
                 renderMap = declaredMethod;
+            } else if ("renderArray".equals(declaredMethod.getName())) {
+                renderArray = declaredMethod;
             }
         }
 
@@ -87,6 +161,101 @@ public final class Template {
         }
     }
 
+    /**
+     * Binds the render method once, so that every render call is a plain method handle invocation
+     * without argument arrays or reflective access checks. Templates that cannot be rendered with
+     * a single param are not bound.
+     */
+    private MethodHandle bindRender() {
+        int renderParameterCount = render.getParameterCount();
+        if (parameterCount == 0 && renderParameterCount == 2) {
+            return bind(render, MethodType.methodType(void.class, TemplateOutput.class, HtmlInterceptor.class), 2);
+        } else if (parameterCount == 1 && renderParameterCount == 3) {
+            return bind(render, RENDER_TYPE);
+        } else {
+            return null;
+        }
+    }
+
+    private MethodHandle bind(Method method, MethodType type, int droppedArgumentIndex) {
+        MethodHandle handle = bind(method, type);
+        return MethodHandles.dropArguments(handle, droppedArgumentIndex, Object.class);
+    }
+
+    private MethodHandle bind(Method method, MethodType type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to init " + this.type + " " + name + ", method '" + method.getName() + "' is not accessible in " + clazz, e);
+        }
+    }
+
+    private boolean isOutputMismatch(TemplateOutput output) {
+        return !render.getParameterTypes()[0].isInstance(output);
+    }
+
+    private boolean isParameterMismatch(Object param) {
+        if (parameterCount == 0) {
+            return false;
+        }
+
+        Class<?> expectedType = render.getParameterTypes()[2];
+        if (param == null) {
+            return expectedType.isPrimitive();
+        }
+
+        if (expectedType.isPrimitive()) {
+            return !isWideningConversion(param.getClass(), expectedType);
+        }
+
+        return !expectedType.isInstance(param);
+    }
+
+    private static boolean isWideningConversion(Class<?> wrapperType, Class<?> primitiveType) {
+        if (primitiveType == boolean.class) {
+            return wrapperType == Boolean.class;
+        }
+        if (wrapperType == Double.class) {
+            return primitiveType == double.class;
+        }
+        if (wrapperType == Float.class) {
+            return primitiveType == float.class || primitiveType == double.class;
+        }
+        if (wrapperType == Long.class) {
+            return primitiveType == long.class || primitiveType == float.class || primitiveType == double.class;
+        }
+        if (wrapperType == Integer.class) {
+            return primitiveType == int.class || primitiveType == long.class || primitiveType == float.class || primitiveType == double.class;
+        }
+        if (wrapperType == Character.class) {
+            return primitiveType == char.class || primitiveType == int.class || primitiveType == long.class || primitiveType == float.class || primitiveType == double.class;
+        }
+        if (wrapperType == Short.class) {
+            return primitiveType == short.class || primitiveType == int.class || primitiveType == long.class || primitiveType == float.class || primitiveType == double.class;
+        }
+        if (wrapperType == Byte.class) {
+            return primitiveType != boolean.class && primitiveType != char.class;
+        }
+        return false;
+    }
+
+    private TemplateException createContentTypeMismatchException(RuntimeException cause) {
+        return new TemplateException("The template " + name + " was compiled with ContentType.Html, but the template engine was initialized with ContentType.Plain. Please initialize the template engine with ContentType.Html.", toIllegalArgumentException(cause));
+    }
+
+    private TemplateException createParameterMismatchException(Object param, RuntimeException cause) {
+        String expectedType = render.getParameterTypes()[2].getName();
+        String actualType = param != null ? param.getClass().getName() : null;
+        return new TemplateException("Failed to render " + name + ", type mismatch for parameter: Expected " + expectedType + ", got " + actualType, toIllegalArgumentException(cause));
+    }
+
+    private static IllegalArgumentException toIllegalArgumentException(RuntimeException e) {
+        if (e instanceof IllegalArgumentException) {
+            return (IllegalArgumentException) e;
+        }
+        return new IllegalArgumentException("argument type mismatch", e);
+    }
+
     public Map<String, Class<?>> getParamInfo() {
         if (parameterInfo == null) {
             parameterInfo = calculateParameterInfo();
@@ -95,7 +264,7 @@ public final class Template {
     }
 
     private Map<String, Class<?>> calculateParameterInfo() {
-        Map<String, Class<?>> result = new HashMap<>();
+        Map<String, Class<?>> result = new LinkedHashMap<>();
 
         Parameter[] parameters = render.getParameters();
         for (int i = 2; i < parameters.length; ++i) {
@@ -0,0 +1,24 @@
+package gg.jte.runtime;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class loader of a {@link TemplateLoader}, that also holds the binary content bundles of its templates.
+ * Bundles are released together with this class loader, once no template of it is referenced anymore.
+ */
+final class TemplateClassLoader extends URLClassLoader {
+    private final Map<String, BinaryContentBundle> binaryContentBundles = new HashMap<>();
+
+    TemplateClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    BinaryContentBundle getBinaryContentBundle(String resourceName) {
+        synchronized (binaryContentBundles) {
+            return binaryContentBundles.computeIfAbsent(resourceName, r -> BinaryContentBundle.read(this, r));
+        }
+    }
+}
@@ -5,9 +5,10 @@ import gg.jte.TemplateNotFoundException;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class TemplateLoader {
     protected final Path classDirectory;
@@ -108,11 +109,7 @@ public abstract class TemplateLoader {
     protected ClassLoader createClassLoader(ClassLoader parentClassLoader) {
         try {
             URL[] urls = {classDirectory.toUri().toURL()};
-            if (parentClassLoader == null) {
-                return new URLClassLoader(urls);
-            } else {
-                return new URLClassLoader(urls, parentClassLoader);
-            }
+            return new TemplateClassLoader(urls, parentClassLoader == null ? ClassLoader.getSystemClassLoader() : parentClassLoader);
         } catch (MalformedURLException e) {
             throw new TemplateException("Failed to create class loader for " + classDirectory, e);
         }
@@ -120,6 +117,21 @@ public abstract class TemplateLoader {
 
     public abstract List<String> getTemplatesUsing(String name);
 
+    /**
+     * @return the names of all templates, if they are known without loading them, otherwise null.
+     */
+    public Set<String> getTemplateNames() {
+        return null;
+    }
+
+    /**
+     * @param name the template name
+     * @return the parameters of the template, if they are known without loading it, otherwise null.
+     */
+    public Map<String, Class<?>> getParamInfo(String name) {
+        return null;
+    }
+
     public abstract void cleanAll();
 
     public abstract List<String> generateAll();
@@ -127,4 +139,11 @@ public abstract class TemplateLoader {
     public abstract List<String> precompileAll();
 
     public abstract boolean hasChanged(String name);
+
+    /**
+     * Releases resources held by this loader, like open files. Already loaded templates can still be rendered.
+     */
+    public void close() {
+        // Nothing to release by default
+    }
 }
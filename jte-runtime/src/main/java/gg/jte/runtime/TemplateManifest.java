@@ -0,0 +1,158 @@
+package gg.jte.runtime;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Compact binary listing of all precompiled templates, written next to the template classes by the precompiler.
+ * It allows the runtime to know which templates exist, their parameters and dependencies, without loading any template class.
+ */
+public final class TemplateManifest {
+    public static final String FILE_NAME = "jte-manifest.bin";
+
+    private static final int MAGIC = 0x6A74654D;
+    private static final int VERSION = 1;
+
+    public static final class Entry {
+        public final String name;
+        public final String className;
+        /**
+         * Parameter names in declaration order, or null if parameters could not be determined at build time.
+         */
+        public final String[] paramNames;
+        /**
+         * Binary class names of the parameters, as returned by {@link Class#getName()}, or null if parameters could not be determined at build time.
+         */
+        public final String[] paramTypes;
+        /**
+         * All tags and layouts this template depends on, directly or indirectly.
+         */
+        public final String[] dependencies;
+
+        public Entry(String name, String className, String[] paramNames, String[] paramTypes, String[] dependencies) {
+            this.name = name;
+            this.className = className;
+            this.paramNames = paramNames;
+            this.paramTypes = paramTypes;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, List<String>> templatesUsing = new HashMap<>();
+
+    public void add(Entry entry) {
+        entries.put(entry.name, entry);
+        for (String dependency : entry.dependencies) {
+            templatesUsing.computeIfAbsent(dependency, d -> new ArrayList<>()).add(entry.name);
+        }
+    }
+
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public List<String> getTemplatesUsing(String name) {
+        List<String> result = templatesUsing.get(name);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @param packageName the package name of the templates
+     * @return the resource name of the manifest, relative to the class directory
+     */
+    public static String getResourceName(String packageName) {
+        return packageName.replace('.', '/') + "/" + FILE_NAME;
+    }
+
+    /**
+     * @param classLoader the class loader the templates are loaded with
+     * @param packageName the package name of the templates
+     * @return the manifest, or null if the templates were compiled without a manifest
+     */
+    public static TemplateManifest load(ClassLoader classLoader, String packageName) {
+        try (InputStream is = classLoader.getResourceAsStream(getResourceName(packageName))) {
+            if (is == null) {
+                return null;
+            }
+            return read(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read template manifest", e);
+        }
+    }
+
+    /**
+     * @return the manifest, or null if the stream does not contain a manifest of a supported version
+     */
+    public static TemplateManifest read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+
+        TemplateManifest manifest = new TemplateManifest();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; ++i) {
+            String name = in.readUTF();
+            String className = in.readUTF();
+
+            String[] paramNames = null;
+            String[] paramTypes = null;
+            int paramCount = in.readInt();
+            if (paramCount >= 0) {
+                paramNames = new String[paramCount];
+                paramTypes = new String[paramCount];
+                for (int j = 0; j < paramCount; ++j) {
+                    paramNames[j] = in.readUTF();
+                    paramTypes[j] = in.readUTF();
+                }
+            }
+
+            String[] dependencies = new String[in.readInt()];
+            for (int j = 0; j < dependencies.length; ++j) {
+                dependencies[j] = in.readUTF();
+            }
+
+            manifest.add(new Entry(name, className, paramNames, paramTypes, dependencies));
+        }
+
+        return manifest;
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(entries.size());
+        for (Entry entry : entries.values()) {
+            out.writeUTF(entry.name);
+            out.writeUTF(entry.className);
+
+            if (entry.paramNames == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(entry.paramNames.length);
+                for (int i = 0; i < entry.paramNames.length; ++i) {
+                    out.writeUTF(entry.paramNames[i]);
+                    out.writeUTF(entry.paramTypes[i]);
+                }
+            }
+
+            out.writeInt(entry.dependencies.length);
+            for (String dependency : entry.dependencies) {
+                out.writeUTF(dependency);
+            }
+        }
+
+        out.flush();
+    }
+}
@@ -1,7 +1,9 @@
 package gg.jte.runtime;
 
 import gg.jte.Content;
+import gg.jte.TemplateException;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -59,4 +61,64 @@ public final class TemplateUtils {
     public static boolean isAttributeRendered(Object value) {
         return value != null && value != Boolean.FALSE;
     }
+
+    /**
+     * Verifies the number of positional parameters passed to a template.
+     * @param name the template name
+     * @param params the positional parameters
+     * @param required the number of parameters without default value
+     * @param total the number of all parameters
+     */
+    public static void checkParamCount(String name, Object[] params, int required, int total) {
+        if (params.length >= required && params.length <= total) {
+            return;
+        }
+
+        String expected = required == total ? Integer.toString(total) : required + " to " + total;
+        throw new TemplateException("Failed to render " + name + ", expected " + expected + " parameters, got " + params.length);
+    }
+
+    public static TemplateException createVarargsNotSupportedException(String name) {
+        return new TemplateException("Failed to render " + name + ", templates with varargs parameters cannot be rendered with positional parameters");
+    }
+
+    /**
+     * Decodes line info of large templates, which would exceed the code size limit of a static initializer as array literal.
+     * @param parts comma separated template lines, consecutive equal lines are written as line*count
+     * @return the line info
+     */
+    public static int[] decodeLineInfo(String ... parts) {
+        int[] result = new int[64];
+        int size = 0;
+
+        for (String part : parts) {
+            int index = 0;
+            while (index < part.length()) {
+                int end = part.indexOf(',', index);
+                if (end == -1) {
+                    end = part.length();
+                }
+
+                int count = 1;
+                int countIndex = part.indexOf('*', index);
+                int line;
+                if (countIndex != -1 && countIndex < end) {
+                    line = Integer.parseInt(part.substring(index, countIndex));
+                    count = Integer.parseInt(part.substring(countIndex + 1, end));
+                } else {
+                    line = Integer.parseInt(part.substring(index, end));
+                }
+
+                if (size + count > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, size + count));
+                }
+                Arrays.fill(result, size, size + count, line);
+                size += count;
+
+                index = end + 1;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
 }
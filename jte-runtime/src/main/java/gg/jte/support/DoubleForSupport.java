@@ -0,0 +1,67 @@
+package gg.jte.support;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Loop information for @for loops over double arrays, without boxing the items.
+ *
+ * @see ForSupport#of(double[])
+ */
+public final class DoubleForSupport implements Iterable<DoubleForSupport>, Iterator<DoubleForSupport> {
+    private final double[] array;
+
+    private double item;
+    private int index = -1;
+
+    DoubleForSupport(double[] array) {
+        this.array = array;
+    }
+
+    public boolean isLast() {
+        return index == array.length - 1;
+    }
+
+    public boolean isFirst() {
+        return index == 0;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public double get() {
+        return item;
+    }
+
+    /**
+     * @return true if there is a next item, false if the loop is finished
+     * @see ForSupport#advance()
+     */
+    public boolean advance() {
+        if (index + 1 >= array.length) {
+            return false;
+        }
+
+        item = array[++index];
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index + 1 < array.length;
+    }
+
+    @Override
+    public DoubleForSupport next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<DoubleForSupport> iterator() {
+        return this;
+    }
+}
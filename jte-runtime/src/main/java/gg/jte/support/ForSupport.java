@@ -1,35 +1,62 @@
 package gg.jte.support;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
-public class ForSupport<T> implements Iterable<ForSupport<T>> {
+/**
+ * Loop information for @for loops.
+ *
+ * Lists with random access and arrays are iterated by index, so that no iterator is involved.
+ * A ForSupport is its own iterator and can be iterated only once.
+ */
+public class ForSupport<T> implements Iterable<ForSupport<T>>, Iterator<ForSupport<T>> {
     private final Iterator<T> iterator;
+    private final List<T> list;
+    private final T[] array;
+    private final int size;
 
     private T item;
     private int index = -1;
     private boolean last;
 
     public static <T> ForSupport<T> of(Iterable<T> iterable) {
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            List<T> list = (List<T>) iterable;
+            return new ForSupport<>(list, null, list.size());
+        }
         return new ForSupport<>(iterable.iterator());
     }
 
     public static <T> ForSupport<T> of(T[] array) {
-        return new ForSupport<>(new Iterator<T>() {
-            private int i;
-            @Override
-            public boolean hasNext() {
-                return i < array.length;
-            }
+        return new ForSupport<>(null, array, array.length);
+    }
 
-            @Override
-            public T next() {
-                return array[i++];
-            }
-        });
+    public static IntForSupport of(int[] array) {
+        return new IntForSupport(array);
+    }
+
+    public static LongForSupport of(long[] array) {
+        return new LongForSupport(array);
+    }
+
+    public static DoubleForSupport of(double[] array) {
+        return new DoubleForSupport(array);
     }
 
     public ForSupport(Iterator<T> iterator) {
         this.iterator = iterator;
+        this.list = null;
+        this.array = null;
+        this.size = -1;
+    }
+
+    private ForSupport(List<T> list, T[] array, int size) {
+        this.iterator = null;
+        this.list = list;
+        this.array = array;
+        this.size = size;
     }
 
     public boolean isLast() {
@@ -48,21 +75,51 @@ public class ForSupport<T> implements Iterable<ForSupport<T>> {
         return item;
     }
 
-    @Override
-    public Iterator<ForSupport<T>> iterator() {
-        return new Iterator<ForSupport<T>>() {
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
+    /**
+     * Moves to the next item. Generated template code calls this directly, instead of going through {@link #hasNext()} and {@link #next()}.
+     *
+     * @return true if there is a next item, false if the loop is finished
+     */
+    public boolean advance() {
+        if (iterator == null) {
+            if (index + 1 >= size) {
+                return false;
             }
 
-            @Override
-            public ForSupport<T> next() {
-                item = iterator.next();
-                ++index;
-                last = !hasNext();
-                return ForSupport.this;
-            }
-        };
+            ++index;
+            item = array != null ? array[index] : list.get(index);
+            last = index == size - 1;
+            return true;
+        }
+
+        if (!iterator.hasNext()) {
+            return false;
+        }
+
+        item = iterator.next();
+        ++index;
+        last = !iterator.hasNext();
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (iterator == null) {
+            return index + 1 < size;
+        }
+        return iterator.hasNext();
+    }
+
+    @Override
+    public ForSupport<T> next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<ForSupport<T>> iterator() {
+        return this;
     }
 }
@@ -0,0 +1,67 @@
+package gg.jte.support;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Loop information for @for loops over int arrays, without boxing the items.
+ *
+ * @see ForSupport#of(int[])
+ */
+public final class IntForSupport implements Iterable<IntForSupport>, Iterator<IntForSupport> {
+    private final int[] array;
+
+    private int item;
+    private int index = -1;
+
+    IntForSupport(int[] array) {
+        this.array = array;
+    }
+
+    public boolean isLast() {
+        return index == array.length - 1;
+    }
+
+    public boolean isFirst() {
+        return index == 0;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int get() {
+        return item;
+    }
+
+    /**
+     * @return true if there is a next item, false if the loop is finished
+     * @see ForSupport#advance()
+     */
+    public boolean advance() {
+        if (index + 1 >= array.length) {
+            return false;
+        }
+
+        item = array[++index];
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index + 1 < array.length;
+    }
+
+    @Override
+    public IntForSupport next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<IntForSupport> iterator() {
+        return this;
+    }
+}
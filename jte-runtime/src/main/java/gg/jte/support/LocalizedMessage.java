@@ -0,0 +1,202 @@
+package gg.jte.support;
+
+import gg.jte.Content;
+import gg.jte.TemplateOutput;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A localized message, parsed into static segments and parameter placeholders like {0}.
+ *
+ * Parsed messages are cached by their text, so that rendering does not need to parse a message again.
+ * The cache is bounded, once it is full it is cleared. Messages in use are parsed again then, but lookups never need to lock.
+ */
+public final class LocalizedMessage {
+    public static final int DEFAULT_MAX_CACHE_SIZE = 4096;
+
+    private static final ConcurrentHashMap<String, LocalizedMessage> cache = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static volatile int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+    private final String[] segments;
+    private final int[] paramIndices;
+
+    private LocalizedMessage(String[] segments, int[] paramIndices) {
+        this.segments = segments;
+        this.paramIndices = paramIndices;
+    }
+
+    /**
+     * @param message the message text, as returned by {@link LocalizationSupport#lookup(String)}
+     * @return the parsed message
+     */
+    public static LocalizedMessage get(String message) {
+        LocalizedMessage result = cache.get(message);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+
+        misses.increment();
+        result = parse(message);
+
+        if (cache.size() >= maxCacheSize) {
+            cache.clear();
+        }
+        cache.put(message, result);
+
+        return result;
+    }
+
+    static LocalizedMessage parse(String message) {
+        int placeholders = 0;
+        int length = message.length();
+        for (int i = 0; i < length; ++i) {
+            if (message.charAt(i) == '{' && getPlaceholderEnd(message, i) != -1) {
+                ++placeholders;
+            }
+        }
+
+        String[] segments = new String[placeholders + 1];
+        int[] paramIndices = new int[placeholders];
+
+        int segmentStart = 0;
+        int placeholder = 0;
+        for (int i = 0; i < length && placeholder < placeholders; ++i) {
+            if (message.charAt(i) != '{') {
+                continue;
+            }
+
+            int end = getPlaceholderEnd(message, i);
+            if (end == -1) {
+                continue;
+            }
+
+            segments[placeholder] = message.substring(segmentStart, i);
+            paramIndices[placeholder] = parseIndex(message, i + 1, end);
+            ++placeholder;
+
+            segmentStart = end + 1;
+            i = end;
+        }
+        segments[placeholders] = message.substring(segmentStart);
+
+        return new LocalizedMessage(segments, paramIndices);
+    }
+
+    /**
+     * @return the index of the closing brace of a placeholder starting at the given index, or -1 if there is none
+     */
+    private static int getPlaceholderEnd(String message, int startIndex) {
+        int i = startIndex + 1;
+        while (i < message.length() && isDigit(message.charAt(i))) {
+            ++i;
+        }
+
+        if (i == startIndex + 1 || i >= message.length() || message.charAt(i) != '}') {
+            return -1;
+        }
+
+        return i;
+    }
+
+    /**
+     * Only ASCII digits are allowed, like in {@link java.text.MessageFormat}.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int parseIndex(String message, int startIndex, int endIndex) {
+        long result = 0;
+        for (int i = startIndex; i < endIndex; ++i) {
+            result = result * 10 + (message.charAt(i) - '0');
+            if (result > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE; // Will never match a parameter
+            }
+        }
+        return (int)result;
+    }
+
+    /**
+     * @return the amount of placeholders in this message
+     */
+    public int getPlaceholderCount() {
+        return paramIndices.length;
+    }
+
+    public void writeTo(TemplateOutput output, Object[] params) {
+        writeSegment(output, segments[0]);
+
+        for (int i = 0; i < paramIndices.length; ++i) {
+            int paramIndex = paramIndices[i];
+            if (paramIndex < params.length) {
+                Object param = params[paramIndex];
+                if (param != null) {
+                    writeParam(output, param);
+                }
+            }
+
+            writeSegment(output, segments[i + 1]);
+        }
+    }
+
+    private static void writeSegment(TemplateOutput output, String segment) {
+        if (!segment.isEmpty()) {
+            output.writeContent(segment);
+        }
+    }
+
+    private static void writeParam(TemplateOutput output, Object param) {
+        if (param instanceof String) {
+            output.writeUserContent((String) param);
+        } else if (param instanceof Content) {
+            output.writeUserContent((Content) param);
+        } else if (param instanceof Enum) {
+            output.writeUserContent((Enum<?>) param);
+        } else if (param instanceof Boolean) {
+            output.writeUserContent((boolean) param);
+        } else if (param instanceof Byte) {
+            output.writeUserContent((byte) param);
+        } else if (param instanceof Short) {
+            output.writeUserContent((short) param);
+        } else if (param instanceof Integer) {
+            output.writeUserContent((int) param);
+        } else if (param instanceof Long) {
+            output.writeUserContent((long) param);
+        } else if (param instanceof Float) {
+            output.writeUserContent((float) param);
+        } else if (param instanceof Double) {
+            output.writeUserContent((double) param);
+        } else if (param instanceof Character) {
+            output.writeUserContent((char) param);
+        }
+    }
+
+    /**
+     * @param maxCacheSize the maximum amount of parsed messages to keep, defaults to {@link #DEFAULT_MAX_CACHE_SIZE}
+     */
+    public static void setMaxCacheSize(int maxCacheSize) {
+        LocalizedMessage.maxCacheSize = maxCacheSize;
+    }
+
+    public static int getCacheSize() {
+        return cache.size();
+    }
+
+    public static long getCacheHits() {
+        return hits.sum();
+    }
+
+    public static long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public static void clearCache() {
+        cache.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
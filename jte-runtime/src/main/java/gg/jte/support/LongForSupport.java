@@ -0,0 +1,67 @@
+package gg.jte.support;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Loop information for @for loops over long arrays, without boxing the items.
+ *
+ * @see ForSupport#of(long[])
+ */
+public final class LongForSupport implements Iterable<LongForSupport>, Iterator<LongForSupport> {
+    private final long[] array;
+
+    private long item;
+    private int index = -1;
+
+    LongForSupport(long[] array) {
+        this.array = array;
+    }
+
+    public boolean isLast() {
+        return index == array.length - 1;
+    }
+
+    public boolean isFirst() {
+        return index == 0;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long get() {
+        return item;
+    }
+
+    /**
+     * @return true if there is a next item, false if the loop is finished
+     * @see ForSupport#advance()
+     */
+    public boolean advance() {
+        if (index + 1 >= array.length) {
+            return false;
+        }
+
+        item = array[++index];
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index + 1 < array.length;
+    }
+
+    @Override
+    public LongForSupport next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<LongForSupport> iterator() {
+        return this;
+    }
+}
@@ -0,0 +1,19 @@
+package gg.jte.generated.ondemand.tag;
+public final class JtenameGenerated {
+	public static final String JTE_NAME = "tag/name.jte";
+	public static final int[] JTE_LINE_INFO = {0,0,0,0,1,1,1,1};
+	public static void render(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, String name) {
+		jteOutput.writeContent("Hello ");
+		jteOutput.writeUserContent(name);
+		jteOutput.writeContent("!!!");
+	}
+	public static void renderMap(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, java.util.Map<String, Object> params) {
+		String name = (String)params.get("name");
+		render(jteOutput, jteHtmlInterceptor, name);
+	}
+	public static void renderArray(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, Object[] params) {
+		gg.jte.runtime.TemplateUtils.checkParamCount(JTE_NAME, params, 1, 1);
+		String name = (String)params[0];
+		render(jteOutput, jteHtmlInterceptor, name);
+	}
+}
@@ -0,0 +1,19 @@
+package gg.jte.generated.ondemand.layout;
+public final class JtepageGenerated {
+	public static final String JTE_NAME = "layout/page.jte";
+	public static final int[] JTE_LINE_INFO = {0,0,0,0,1,1,1,1};
+	public static void render(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, gg.jte.Content content) {
+		jteOutput.writeContent("Hello ");
+		jteOutput.writeUserContent(content);
+		jteOutput.writeContent("!!");
+	}
+	public static void renderMap(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, java.util.Map<String, Object> params) {
+		gg.jte.Content content = (gg.jte.Content)params.get("content");
+		render(jteOutput, jteHtmlInterceptor, content);
+	}
+	public static void renderArray(gg.jte.TemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, Object[] params) {
+		gg.jte.runtime.TemplateUtils.checkParamCount(JTE_NAME, params, 1, 1);
+		gg.jte.Content content = (gg.jte.Content)params[0];
+		render(jteOutput, jteHtmlInterceptor, content);
+	}
+}
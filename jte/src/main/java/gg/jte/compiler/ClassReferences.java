@@ -0,0 +1,297 @@
+package gg.jte.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Tracks which classes of class path directories a compiled template references, so that incremental compilation
+ * only compiles templates again, if a class they actually use changed. Class path jars are covered by the fingerprint
+ * of the index instead.
+ *
+ * References are read from the constant pool of the compiled template classes. Supertypes of referenced classes are
+ * tracked as well, since inherited members are referenced through the subclass.
+ *
+ * Compile-time constants are inlined by javac and leave no trace in the constant pool of the template. Therefore, the constants
+ * of all classes in class path directories are part of the index fingerprint, see {@link #createConstantsFingerprint()}.
+ */
+final class ClassReferences {
+
+    private final List<Path> directories = new ArrayList<>();
+    private final String ignoredPackage;
+    private final Map<String, String> hashes = new HashMap<>();
+
+    ClassReferences(List<String> classPath, String ignoredPackage) {
+        for (String entry : classPath) {
+            Path path = Paths.get(entry);
+            if (Files.isDirectory(path)) {
+                directories.add(path);
+            }
+        }
+        this.ignoredPackage = ignoredPackage.replace('.', '/') + '/';
+    }
+
+    /**
+     * @param classDirectory the directory, the template was compiled to
+     * @param className the binary name of the template class
+     * @return references to classes in class path directories, each as internal class name and content hash, separated by '='
+     */
+    List<String> collect(Path classDirectory, String className) {
+        Set<String> references = new TreeSet<>();
+
+        String classFileName = className.replace('.', '/');
+        Path directory = classDirectory.resolve(classFileName).getParent();
+        String simpleClassName = classFileName.substring(classFileName.lastIndexOf('/') + 1);
+
+        try (DirectoryStream<Path> classFiles = Files.newDirectoryStream(directory, simpleClassName + "{,$*}.class")) {
+            for (Path classFile : classFiles) {
+                references.addAll(read(Files.readAllBytes(classFile)).references);
+            }
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<String> result = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(references);
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (name.startsWith(ignoredPackage) || !visited.add(name)) {
+                continue;
+            }
+
+            byte[] bytes = readClass(name);
+            if (bytes == null) {
+                continue; // Not in a class path directory
+            }
+
+            result.add(name + '=' + hash(name, bytes));
+            pending.addAll(read(bytes).supertypes);
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @return hash of all compile-time constants declared by classes in class path directories
+     */
+    String createConstantsFingerprint() {
+        Map<String, List<String>> constantsByClass = new TreeMap<>();
+        for (Path directory : directories) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = directory.relativize(file).toString().replace('\\', '/');
+                    if (!name.endsWith(".class") || name.startsWith(ignoredPackage) || !Files.isRegularFile(file)) {
+                        continue;
+                    }
+
+                    name = name.substring(0, name.length() - ".class".length());
+                    if (constantsByClass.containsKey(name)) {
+                        continue; // Shadowed by a previous directory
+                    }
+
+                    List<String> constants = read(Files.readAllBytes(file)).constants;
+                    if (!constants.isEmpty()) {
+                        constantsByClass.put(name, constants);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : constantsByClass.entrySet()) {
+            fingerprint.append(entry.getKey()).append(entry.getValue()).append('\n');
+        }
+        return IoUtils.hash(fingerprint.toString());
+    }
+
+    /**
+     * @param references as returned by {@link #collect(Path, String)}
+     * @return true, if any of the referenced classes changed or was removed
+     */
+    boolean hasChanged(List<String> references) {
+        for (String reference : references) {
+            int separator = reference.lastIndexOf('=');
+            String name = reference.substring(0, separator);
+
+            byte[] bytes = readClass(name);
+            if (bytes == null || !reference.substring(separator + 1).equals(hash(name, bytes))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String hash(String name, byte[] bytes) {
+        return hashes.computeIfAbsent(name, n -> IoUtils.hash(bytes));
+    }
+
+    private byte[] readClass(String name) {
+        for (Path directory : directories) {
+            try {
+                return Files.readAllBytes(directory.resolve(name + ".class"));
+            } catch (NoSuchFileException e) {
+                // Try next directory
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return null;
+    }
+
+    private static final class ClassFile {
+        final Set<String> references = new HashSet<>();
+        final List<String> supertypes = new ArrayList<>();
+        final List<String> constants = new ArrayList<>();
+    }
+
+    /**
+     * Reads all class names of the constant pool, including those that only appear in descriptors and signatures,
+     * as well as the direct supertypes and the values of all fields that are compile-time constants.
+     */
+    private static ClassFile read(byte[] bytes) {
+        ClassFile classFile = new ClassFile();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != 0xCAFEBABE) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+
+            int constantPoolCount = in.readUnsignedShort();
+            String[] utf8 = new String[constantPoolCount];
+            int[] classNameIndexes = new int[constantPoolCount];
+            int[] stringIndexes = new int[constantPoolCount];
+            Object[] values = new Object[constantPoolCount];
+
+            for (int i = 1; i < constantPoolCount; ++i) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classNameIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                        stringIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.skipBytes(2);
+                        break;
+                    case 15: // MethodHandle
+                        in.skipBytes(3);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                        values[i] = in.readInt();
+                        break;
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.skipBytes(4);
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        values[i] = in.readLong();
+                        ++i;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+
+            for (int i = 1; i < constantPoolCount; ++i) {
+                if (classNameIndexes[i] != 0) {
+                    String name = utf8[classNameIndexes[i]];
+                    if (name.startsWith("[")) {
+                        addDescriptorReferences(name, classFile.references);
+                    } else {
+                        classFile.references.add(name);
+                    }
+                } else if (utf8[i] != null) {
+                    addDescriptorReferences(utf8[i], classFile.references);
+                }
+            }
+
+            in.readUnsignedShort(); // access flags
+            in.readUnsignedShort(); // this class
+            int superClass = in.readUnsignedShort();
+            if (superClass != 0) {
+                classFile.supertypes.add(utf8[classNameIndexes[superClass]]);
+            }
+            int interfaceCount = in.readUnsignedShort();
+            for (int i = 0; i < interfaceCount; ++i) {
+                classFile.supertypes.add(utf8[classNameIndexes[in.readUnsignedShort()]]);
+            }
+
+            int fieldCount = in.readUnsignedShort();
+            for (int i = 0; i < fieldCount; ++i) {
+                in.readUnsignedShort(); // access flags
+                String fieldName = utf8[in.readUnsignedShort()];
+                in.readUnsignedShort(); // descriptor
+                int attributeCount = in.readUnsignedShort();
+                for (int j = 0; j < attributeCount; ++j) {
+                    String attributeName = utf8[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if ("ConstantValue".equals(attributeName)) {
+                        int valueIndex = in.readUnsignedShort();
+                        Object value = stringIndexes[valueIndex] != 0 ? utf8[stringIndexes[valueIndex]] : values[valueIndex];
+                        classFile.constants.add(fieldName + '=' + value);
+                    } else {
+                        in.skipBytes(length);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return classFile;
+    }
+
+    /**
+     * Finds class names in descriptors and signatures, like (Lfoo/Model;I)V or Ljava/util/List&lt;Lfoo/Item;&gt;;
+     * Other strings may produce false positives, which are harmless, as only existing classes are tracked.
+     */
+    private static void addDescriptorReferences(String value, Set<String> references) {
+        int index = 0;
+        while ((index = value.indexOf('L', index)) != -1) {
+            int start = index + 1;
+            int end = start;
+            while (end < value.length() && isInternalNamePart(value.charAt(end))) {
+                ++end;
+            }
+
+            if (end < value.length() && end > start && (value.charAt(end) == ';' || value.charAt(end) == '<')) {
+                references.add(value.substring(start, end));
+                index = end;
+            } else {
+                index = start;
+            }
+        }
+    }
+
+    private static boolean isInternalNamePart(char c) {
+        return c == '/' || Character.isJavaIdentifierPart(c);
+    }
+}
@@ -67,6 +67,10 @@ public final class CodeBuilder {
         return code.toString();
     }
 
+    public int getLength() {
+        return code.length();
+    }
+
     public void markFieldsIndex() {
         fieldsIndex = code.length();
         fieldsCodeLine = currentCodeLine;
@@ -7,6 +7,26 @@ public interface CodeGenerator extends TemplateParserVisitor {
 
     List<byte[]> getBinaryTextParts();
 
+    /**
+     * @return the call on an HtmlTemplateOutput, that returns the output for user content in the given context
+     */
+    static String getHtmlContextOutput(String tagName, String attributeName) {
+        if (attributeName == null) {
+            if ("script".equals(tagName)) {
+                return "forScriptBlock(\"" + tagName + "\")";
+            }
+            return "forTagBody(\"" + tagName + "\")";
+        }
+
+        String arguments = "(\"" + tagName + "\", \"" + attributeName + "\")";
+        if (attributeName.startsWith("on")) {
+            return "forJavaScriptAttribute" + arguments;
+        } else if ("a".equals(tagName) && "href".equals(attributeName)) {
+            return "forHref" + arguments;
+        }
+        return "forTagAttribute" + arguments;
+    }
+
     static void writeAttributeMap(CodeBuilder code, TemplateParser.HtmlTag htmlTag) {
         code.append("gg.jte.runtime.TemplateUtils.toMap(");
         boolean firstWritten = false;
@@ -17,22 +37,26 @@ public interface CodeGenerator extends TemplateParserVisitor {
                 firstWritten = true;
             }
             code.append("\"").append(attribute.name).append("\",");
-            if (attribute.value == null) {
-                if (attribute.bool) {
-                    code.append("true");
-                } else {
-                    code.append("null");
-                }
+            writeAttributeValue(code, attribute);
+        }
+        code.append(")");
+    }
+
+    static void writeAttributeValue(CodeBuilder code, TemplateParser.HtmlAttribute attribute) {
+        if (attribute.value == null) {
+            if (attribute.bool) {
+                code.append("true");
             } else {
-                String javaExpression = extractTemplateExpression(attribute.value);
-                if (javaExpression != null) {
-                    code.append(javaExpression);
-                } else {
-                    code.append("\"").append(attribute.value).append("\"");
-                }
+                code.append("null");
+            }
+        } else {
+            String javaExpression = extractTemplateExpression(attribute.value);
+            if (javaExpression != null) {
+                code.append(javaExpression);
+            } else {
+                code.append("\"").append(attribute.value).append("\"");
             }
         }
-        code.append(")");
     }
 
     static String extractTemplateExpression(String value) {
@@ -1,9 +1,12 @@
 package gg.jte.compiler;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Comparator;
 import java.util.Objects;
 import java.util.stream.Stream;
@@ -39,4 +42,29 @@ public final class IoUtils {
     public static boolean isTemplateFile(String name) {
         return name.endsWith(".jte") || name.endsWith(".kte");
     }
+
+    /**
+     * @return the SHA-256 hash of the UTF-8 encoded value, as hex string
+     */
+    public static String hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the SHA-256 hash of the bytes, as hex string
+     */
+    public static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16));
+                result.append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
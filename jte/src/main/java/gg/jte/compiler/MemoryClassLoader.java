@@ -0,0 +1,48 @@
+package gg.jte.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Loads templates that were compiled in memory. Those classes take precedence over classes of the parent class loader,
+ * so that stale templates in the class directory are never picked up.
+ */
+final class MemoryClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classes;
+    private final Map<String, byte[]> resources;
+
+    MemoryClassLoader(ClassLoader parent, Map<String, byte[]> classes, Map<String, byte[]> resources) {
+        super(parent);
+        this.classes = classes;
+        this.resources = resources;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    return super.loadClass(name, resolve);
+                }
+                clazz = defineClass(name, bytes, 0, bytes.length);
+            }
+
+            if (resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        byte[] bytes = resources.get(name);
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return super.getResourceAsStream(name);
+    }
+}
@@ -0,0 +1,445 @@
+package gg.jte.compiler;
+
+import gg.jte.ContentType;
+import gg.jte.TemplateConfig;
+import gg.jte.runtime.TemplateType;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Optimization pass between {@link TemplateParser} and the actual code generator.
+ *
+ * Adjacent static text parts are merged into a single part, even if they are separated by comments, lines or constant conditions.
+ * Branches of @if conditions, that are the literals true or false, are resolved at compile time.
+ * Output of string literals is turned into static text, if no escaping is involved.
+ */
+final class OptimizingCodeGenerator implements CodeGenerator {
+
+    private final CodeGenerator delegate;
+    private final ContentType contentType;
+
+    private final StringBuilder text = new StringBuilder();
+    private int textDepth;
+
+    private final ArrayDeque<Condition> conditions = new ArrayDeque<>();
+    private int deadConditions;
+
+    OptimizingCodeGenerator(CodeGenerator delegate, TemplateConfig config) {
+        this.delegate = delegate;
+        this.contentType = config.contentType;
+    }
+
+    @Override
+    public String getCode() {
+        return delegate.getCode();
+    }
+
+    @Override
+    public List<byte[]> getBinaryTextParts() {
+        return delegate.getBinaryTextParts();
+    }
+
+    @Override
+    public void onImport(String importClass) {
+        delegate.onImport(importClass);
+    }
+
+    @Override
+    public void onParam(String parameter) {
+        delegate.onParam(parameter);
+    }
+
+    @Override
+    public void onParamsComplete() {
+        flushText();
+        delegate.onParamsComplete();
+    }
+
+    @Override
+    public void onTextPart(int depth, String textPart) {
+        if (isDead() || textPart.isEmpty()) {
+            return;
+        }
+
+        if (text.length() == 0) {
+            textDepth = depth;
+        }
+        text.append(textPart);
+    }
+
+    @Override
+    public void onCodePart(int depth, String codePart) {
+        if (isDead()) {
+            return;
+        }
+
+        if (contentType == ContentType.Plain) {
+            String literal = parseStringLiteral(codePart);
+            if (literal != null) {
+                onTextPart(depth, literal);
+                return;
+            }
+        }
+
+        flushText();
+        delegate.onCodePart(depth, codePart);
+    }
+
+    @Override
+    public void onHtmlTagBodyCodePart(int depth, String codePart, String tagName) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onHtmlTagBodyCodePart(depth, codePart, tagName);
+    }
+
+    @Override
+    public void onHtmlTagAttributeCodePart(int depth, String codePart, String tagName, String attributeName) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onHtmlTagAttributeCodePart(depth, codePart, tagName, attributeName);
+    }
+
+    @Override
+    public void onUnsafeCodePart(int depth, String codePart) {
+        if (isDead()) {
+            return;
+        }
+
+        String literal = parseStringLiteral(codePart);
+        if (literal != null) {
+            onTextPart(depth, literal);
+            return;
+        }
+
+        flushText();
+        delegate.onUnsafeCodePart(depth, codePart);
+    }
+
+    @Override
+    public void onCodeStatement(int depth, String codePart) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+
+        Condition condition = conditions.peek();
+        if (condition != null && condition.inlined && !condition.scoped && depth == condition.depth + 1) {
+            // Variables declared in an inlined branch must not leak into the enclosing scope, nested loops and branches have their own scope
+            delegate.onConditionStart(depth - 1, "true");
+            condition.scoped = true;
+        }
+
+        delegate.onCodeStatement(depth, codePart);
+    }
+
+    @Override
+    public void onConditionStart(int depth, String condition) {
+        if (isDead()) {
+            ++deadConditions;
+            return;
+        }
+
+        Boolean constant = parseConstantCondition(condition);
+        if (constant == null) {
+            flushText();
+            delegate.onConditionStart(depth, condition);
+            conditions.push(new Condition(depth, true, true, false, false));
+        } else if (constant) {
+            conditions.push(new Condition(depth, false, true, true, true));
+        } else {
+            conditions.push(new Condition(depth, false, false, false, false));
+        }
+    }
+
+    @Override
+    public void onConditionElse(int depth, String condition) {
+        if (deadConditions > 0) {
+            return;
+        }
+
+        Condition current = startNextBranch(depth);
+        if (current == null) {
+            return;
+        }
+
+        Boolean constant = parseConstantCondition(condition);
+        if (constant == null) {
+            flushText();
+            if (current.forwarded) {
+                delegate.onConditionElse(depth, condition);
+            } else {
+                delegate.onConditionStart(depth, condition);
+                current.forwarded = true;
+            }
+            current.live = true;
+        } else if (constant) {
+            takeBranch(depth, current);
+        }
+    }
+
+    @Override
+    public void onConditionElse(int depth) {
+        if (deadConditions > 0) {
+            return;
+        }
+
+        Condition current = startNextBranch(depth);
+        if (current != null) {
+            takeBranch(depth, current);
+        }
+    }
+
+    @Override
+    public void onConditionEnd(int depth) {
+        if (deadConditions > 0) {
+            --deadConditions;
+            return;
+        }
+
+        Condition current = conditions.pop();
+        closeScope(depth, current);
+
+        if (current.forwarded) {
+            flushText();
+            delegate.onConditionEnd(depth);
+        }
+    }
+
+    /**
+     * @return the condition, if the next branch may be rendered, or null if it is dead for sure
+     */
+    private Condition startNextBranch(int depth) {
+        Condition current = conditions.peek();
+        closeScope(depth, current);
+
+        if (current.forwarded && current.live) {
+            flushText();
+        }
+
+        current.live = false;
+        current.inlined = false;
+
+        if (current.taken) {
+            return null;
+        }
+
+        return current;
+    }
+
+    private void takeBranch(int depth, Condition current) {
+        if (current.forwarded) {
+            flushText();
+            delegate.onConditionElse(depth);
+        } else {
+            current.inlined = true;
+        }
+
+        current.live = true;
+        current.taken = true;
+    }
+
+    private void closeScope(int depth, Condition current) {
+        if (current.scoped) {
+            flushText();
+            delegate.onConditionEnd(depth);
+            current.scoped = false;
+        }
+    }
+
+    @Override
+    public void onForLoopStart(int depth, String codePart) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onForLoopStart(depth, codePart);
+    }
+
+    @Override
+    public void onForLoopEnd(int depth) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onForLoopEnd(depth);
+    }
+
+    @Override
+    public void onTag(int depth, TemplateType type, String name, List<String> params) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onTag(depth, type, name, params);
+    }
+
+    @Override
+    public void onLineFinished() {
+        delegate.onLineFinished();
+    }
+
+    @Override
+    public void onComplete() {
+        flushText();
+        delegate.onComplete();
+    }
+
+    @Override
+    public void onError(String message) {
+        delegate.onError(message);
+    }
+
+    @Override
+    public void onInterceptHtmlTagOpened(int depth, TemplateParser.HtmlTag htmlTag) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onInterceptHtmlTagOpened(depth, htmlTag);
+    }
+
+    @Override
+    public void onInterceptHtmlAttributeStarted(int depth, TemplateParser.HtmlTag currentHtmlTag, TemplateParser.HtmlAttribute htmlAttribute) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onInterceptHtmlAttributeStarted(depth, currentHtmlTag, htmlAttribute);
+    }
+
+    @Override
+    public void onInterceptHtmlTagClosed(int depth, TemplateParser.HtmlTag htmlTag) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onInterceptHtmlTagClosed(depth, htmlTag);
+    }
+
+    @Override
+    public void onHtmlAttributeOutput(int depth, TemplateParser.HtmlTag currentHtmlTag, TemplateParser.HtmlAttribute htmlAttribute) {
+        if (isDead()) {
+            return;
+        }
+
+        flushText();
+        delegate.onHtmlAttributeOutput(depth, currentHtmlTag, htmlAttribute);
+    }
+
+    private boolean isDead() {
+        if (deadConditions > 0) {
+            return true;
+        }
+
+        Condition current = conditions.peek();
+        return current != null && !current.live;
+    }
+
+    private void flushText() {
+        if (text.length() > 0) {
+            delegate.onTextPart(textDepth, text.toString());
+            text.setLength(0);
+        }
+    }
+
+    static Boolean parseConstantCondition(String condition) {
+        String trimmed = condition.trim();
+        if ("true".equals(trimmed)) {
+            return Boolean.TRUE;
+        } else if ("false".equals(trimmed)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the given code, if it is a single string literal that is the same in Java and Kotlin, otherwise null
+     */
+    static String parseStringLiteral(String code) {
+        String trimmed = code.trim();
+        int length = trimmed.length();
+        if (length < 2 || trimmed.charAt(0) != '"' || trimmed.charAt(length - 1) != '"') {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 1; i < length - 1; ++i) {
+            char c = trimmed.charAt(i);
+            if (c == '"' || c == '$' || c == '\n' || c == '\r') {
+                return null;
+            }
+
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+
+            if (++i >= length - 1) {
+                return null;
+            }
+
+            char escaped = trimmed.charAt(i);
+            switch (escaped) {
+                case 'n': result.append('\n'); break;
+                case 't': result.append('\t'); break;
+                case 'r': result.append('\r'); break;
+                case 'b': result.append('\b'); break;
+                case '"': result.append('"'); break;
+                case '\'': result.append('\''); break;
+                case '\\': result.append('\\'); break;
+                case 'u':
+                    if (i + 4 >= length - 1) {
+                        return null;
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(trimmed.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        return result.toString();
+    }
+
+    private static final class Condition {
+        /** The depth of the condition, its branches are one level deeper */
+        final int depth;
+        /** The delegate has an open if statement for this condition */
+        boolean forwarded;
+        /** The current branch is rendered */
+        boolean live;
+        /** The current branch is rendered without an enclosing if statement */
+        boolean inlined;
+        /** A branch was taken unconditionally, all following branches are dead */
+        boolean taken;
+        /** A scope was opened for code statements of the inlined branch */
+        boolean scoped;
+
+        Condition(int depth, boolean forwarded, boolean live, boolean inlined, boolean taken) {
+            this.depth = depth;
+            this.forwarded = forwarded;
+            this.live = live;
+            this.inlined = inlined;
+            this.taken = taken;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package gg.jte.compiler;
+
+import gg.jte.TemplateConfig;
+import gg.jte.runtime.TemplateType;
+
+import java.util.List;
+
+/**
+ * Finds out if a template contains code statements, before the actual code is generated.
+ * Code statements may assign local variables, which then cannot be captured by outlined loop and branch bodies.
+ */
+class TemplateCodeStatementVisitor implements TemplateParserVisitor {
+
+    static boolean hasCodeStatements(String templateCode, TemplateType type, TemplateConfig config) {
+        try {
+            new TemplateParser(templateCode, type, new TemplateCodeStatementVisitor(), config).parse();
+            return false;
+        } catch (Found found) {
+            return true;
+        } catch (RuntimeException e) {
+            return true; // The error is reported by the actual code generation
+        }
+    }
+
+    @Override
+    public void onImport(String importClass) {
+        // not relevant
+    }
+
+    @Override
+    public void onParam(String parameter) {
+        // not relevant
+    }
+
+    @Override
+    public void onParamsComplete() {
+        // not relevant
+    }
+
+    @Override
+    public void onTextPart(int depth, String textPart) {
+        // not relevant
+    }
+
+    @Override
+    public void onCodePart(int depth, String codePart) {
+        // not relevant
+    }
+
+    @Override
+    public void onHtmlTagBodyCodePart(int depth, String codePart, String tagName) {
+        // not relevant
+    }
+
+    @Override
+    public void onHtmlTagAttributeCodePart(int depth, String codePart, String tagName, String attributeName) {
+        // not relevant
+    }
+
+    @Override
+    public void onUnsafeCodePart(int depth, String codePart) {
+        // not relevant
+    }
+
+    @Override
+    public void onCodeStatement(int depth, String codePart) {
+        throw new Found();
+    }
+
+    @Override
+    public void onConditionStart(int depth, String condition) {
+        // not relevant
+    }
+
+    @Override
+    public void onConditionElse(int depth, String condition) {
+        // not relevant
+    }
+
+    @Override
+    public void onConditionElse(int depth) {
+        // not relevant
+    }
+
+    @Override
+    public void onConditionEnd(int depth) {
+        // not relevant
+    }
+
+    @Override
+    public void onForLoopStart(int depth, String codePart) {
+        // not relevant
+    }
+
+    @Override
+    public void onForLoopEnd(int depth) {
+        // not relevant
+    }
+
+    @Override
+    public void onTag(int depth, TemplateType type, String name, List<String> params) {
+        // not relevant
+    }
+
+    @Override
+    public void onLineFinished() {
+        // not relevant
+    }
+
+    @Override
+    public void onComplete() {
+        // not relevant
+    }
+
+    @Override
+    public void onError(String message) {
+        // not relevant
+    }
+
+    @Override
+    public void onInterceptHtmlTagOpened(int depth, TemplateParser.HtmlTag htmlTag) {
+        // not relevant
+    }
+
+    @Override
+    public void onInterceptHtmlAttributeStarted(int depth, TemplateParser.HtmlTag currentHtmlTag, TemplateParser.HtmlAttribute htmlAttribute) {
+        // not relevant
+    }
+
+    @Override
+    public void onInterceptHtmlTagClosed(int depth, TemplateParser.HtmlTag htmlTag) {
+        // not relevant
+    }
+
+    @Override
+    public void onHtmlAttributeOutput(int depth, TemplateParser.HtmlTag currentHtmlTag, TemplateParser.HtmlAttribute htmlAttribute) {
+        // not relevant
+    }
+
+    private static final class Found extends RuntimeException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import gg.jte.TemplateConfig;
 import gg.jte.TemplateException;
 import gg.jte.TemplateNotFoundException;
 import gg.jte.compiler.java.JavaClassCompiler;
+import gg.jte.compiler.java.JavaCompilationService;
 import gg.jte.compiler.java.JavaCodeGenerator;
 import gg.jte.output.FileOutput;
 import gg.jte.runtime.*;
@@ -12,26 +13,54 @@ import gg.jte.runtime.*;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class TemplateCompiler extends TemplateLoader {
 
     public static final boolean DEBUG = false;
 
+    /**
+     * Templates are only compiled in parallel batches, if every batch contains at least this many templates.
+     * Otherwise, the overhead of another compiler run is not worth it.
+     */
+    static final int MIN_TEMPLATES_PER_BATCH = 64;
+
     private final TemplateConfig config;
     private final CodeResolver codeResolver;
     private final ClassLoader parentClassLoader;
 
     private final ConcurrentHashMap<String, LinkedHashSet<String>> templateDependencies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LinkedHashSet<String>> directDependencies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> templatesUsing = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> unchangedGenerations = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, List<ParamInfo>> paramOrder = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, ClassInfo> templateByClassName = new ConcurrentHashMap<>();
+    private final ThreadLocal<Generation> currentGeneration = new ThreadLocal<>();
+    private final ConcurrentHashMap<String, byte[]> classesInMemory = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, byte[]> resourcesInMemory = new ConcurrentHashMap<>();
+    private final JavaCompilationService javaCompilationService = new JavaCompilationService();
+    private final Object compileLock = new Object();
 
     private List<String> classPath;
+    private volatile boolean cleanRequired = true;
 
     public TemplateCompiler(TemplateConfig config, CodeResolver codeResolver, Path classDirectory, ClassLoader parentClassLoader) {
         super(classDirectory, config.packageName);
@@ -42,10 +71,26 @@ public class TemplateCompiler extends TemplateLoader {
 
     @Override
     public Template load(String name) {
-        precompile(Collections.singletonList(name));
+        cleanIfRequired();
+
+        // Templates loaded concurrently may share tags and layouts, their sources must not be rewritten while another thread compiles them
+        synchronized (compileLock) {
+            if (config.compileInMemory) {
+                compileInMemory(Collections.singletonList(name));
+            } else {
+                precompile(Collections.singletonList(name));
+            }
+        }
         return super.load(name);
     }
 
+    /**
+     * @return the compiler used for Java templates, for instance to obtain compile time metrics.
+     */
+    public JavaCompilationService getJavaCompilationService() {
+        return javaCompilationService;
+    }
+
     @Override
     protected ClassInfo getClassInfo(ClassLoader classLoader, String className) {
         return templateByClassName.get(className);
@@ -53,25 +98,399 @@ public class TemplateCompiler extends TemplateLoader {
 
     @Override
     protected ClassLoader getClassLoader() {
+        if (config.compileInMemory) {
+            return new MemoryClassLoader(createClassLoader(parentClassLoader), classesInMemory, resourcesInMemory);
+        }
         return createClassLoader(parentClassLoader);
     }
 
     @Override
     public void cleanAll() {
+        cleanRequired = false;
+        clean();
+    }
+
+    private void clean() {
+        classesInMemory.clear();
+        resourcesInMemory.clear();
         IoUtils.deleteDirectoryContent(classDirectory.resolve(config.packageName.replace('.', '/')));
+        try {
+            Files.deleteIfExists(classDirectory.resolve(TemplateIndex.FILE_NAME));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stale classes of a previous run are removed before this compiler is used for the first time.
+     * With incremental compilation, they are kept, as they are reused if still up-to-date.
+     */
+    private void cleanIfRequired() {
+        if (cleanRequired) {
+            synchronized (this) {
+                if (cleanRequired) {
+                    if (!config.incrementalCompilation) {
+                        clean();
+                    }
+                    cleanRequired = false; // Only after cleaning, so that no other thread can compile while the directory is cleaned
+                }
+            }
+        }
     }
 
     @Override
     public List<String> generateAll() {
-        LinkedHashSet<ClassDefinition> classDefinitions = generate(codeResolver.resolveAllTemplateNames());
-        return classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+        cleanIfRequired();
+
+        List<String> result;
+        if (config.incrementalCompilation) {
+            result = updateIncrementally(false);
+        } else {
+            LinkedHashSet<ClassDefinition> classDefinitions = generate(codeResolver.resolveAllTemplateNames(), isBundlingBinaryContent());
+            writeBinaryContentBundle(classDefinitions, Collections.emptySet());
+            result = classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+            writeManifest(name -> null);
+        }
+
+        return result;
     }
 
     @Override
     public List<String> precompileAll() {
-        return precompile(codeResolver.resolveAllTemplateNames());
+        cleanIfRequired();
+
+        try {
+            List<String> result;
+            if (config.incrementalCompilation) {
+                result = updateIncrementally(true);
+            } else {
+                LinkedHashSet<ClassDefinition> classDefinitions = generate(codeResolver.resolveAllTemplateNames(), isBundlingBinaryContent());
+                writeBinaryContentBundle(classDefinitions, Collections.emptySet());
+                compile(classDefinitions);
+                result = classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+
+                try (URLClassLoader classLoader = createManifestClassLoader()) {
+                    writeManifest(name -> loadParams(classLoader, name));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            return result;
+        } finally {
+            // Precompiling is a one-off batch, class path archives must not stay open in build daemons
+            javaCompilationService.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        javaCompilationService.close();
+    }
+
+    /**
+     * Writes a manifest of all templates, that is read by precompiled template engines on startup.
+     * Parameter types can only be determined if templates were compiled, otherwise they are resolved by the runtime when needed.
+     * @param paramsByName returns the parameters of a template as pairs of name and binary class name separated by '=', or null if unknown
+     */
+    private void writeManifest(Function<String, List<String>> paramsByName) {
+        List<String> names = new ArrayList<>(codeResolver.resolveAllTemplateNames());
+        Collections.sort(names);
+
+        TemplateManifest manifest = new TemplateManifest();
+        for (String name : names) {
+            ClassInfo classInfo = new ClassInfo(name, config.packageName);
+
+            String[] paramNames = null;
+            String[] paramTypes = null;
+            List<String> params = paramsByName.apply(name);
+            if (params != null) {
+                paramNames = new String[params.size()];
+                paramTypes = new String[params.size()];
+                for (int i = 0; i < params.size(); ++i) {
+                    String param = params.get(i);
+                    int separator = param.indexOf('=');
+                    paramNames[i] = param.substring(0, separator);
+                    paramTypes[i] = param.substring(separator + 1);
+                }
+            }
+
+            LinkedHashSet<String> dependencies = templateDependencies.get(name);
+            manifest.add(new TemplateManifest.Entry(name, classInfo.fullName, paramNames, paramTypes, dependencies == null ? new String[0] : dependencies.toArray(new String[0])));
+        }
+
+        Path resourceDirectory = config.resourceDirectory == null ? classDirectory : config.resourceDirectory;
+        Path file = resourceDirectory.resolve(TemplateManifest.getResourceName(config.packageName));
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                manifest.write(outputStream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private URLClassLoader createManifestClassLoader() throws IOException {
+        List<URL> urls = new ArrayList<>();
+        urls.add(classDirectory.toUri().toURL());
+        if (config.classPath != null) {
+            for (String entry : config.classPath) {
+                urls.add(Paths.get(entry).toUri().toURL());
+            }
+        }
+
+        ClassLoader parent = parentClassLoader != null ? parentClassLoader : TemplateCompiler.class.getClassLoader();
+        return new URLClassLoader(urls.toArray(new URL[0]), parent);
+    }
+
+    private List<String> loadParams(ClassLoader classLoader, String name) {
+        try {
+            Class<?> clazz = classLoader.loadClass(new ClassInfo(name, config.packageName).fullName);
+            Map<String, Class<?>> paramInfo = new Template(name, getTemplateType(name), clazz).getParamInfo();
+
+            List<String> params = new ArrayList<>(paramInfo.size());
+            for (Map.Entry<String, Class<?>> param : paramInfo.entrySet()) {
+                params.add(param.getKey() + '=' + param.getValue().getName());
+            }
+            return params;
+        } catch (Exception | LinkageError e) {
+            return null; // Resolved by the runtime when needed
+        }
+    }
+
+    /**
+     * Only generates (and compiles) templates, that changed since the last call, that call a tag or layout whose parameters changed,
+     * or that reference a class of a class path directory that changed.
+     * Which templates are up-to-date is determined by an index, that is stored in the class directory.
+     * @param compile true, to compile templates, false to only generate sources
+     * @return list of generated source files
+     */
+    private List<String> updateIncrementally(boolean compile) {
+        Path indexFile = classDirectory.resolve(TemplateIndex.FILE_NAME);
+        ClassReferences classReferences = compile ? new ClassReferences(getClassPath(), config.packageName) : null;
+        String fingerprint = createFingerprint(classReferences);
+        TemplateIndex previousIndex = TemplateIndex.read(indexFile, fingerprint);
+
+        List<String> names = codeResolver.resolveAllTemplateNames();
+        Map<String, String> sourceHashes = new HashMap<>();
+        for (String name : names) {
+            sourceHashes.put(name, IoUtils.hash(resolveCode(name, null)));
+        }
+
+        for (TemplateIndex.Entry entry : previousIndex.getEntries()) {
+            if (!sourceHashes.containsKey(entry.name)) {
+                deleteOutput(entry);
+            }
+        }
+
+        List<String> changedNames = new ArrayList<>();
+        for (String name : names) {
+            TemplateIndex.Entry entry = previousIndex.get(name);
+            if (entry == null || !entry.sourceHash.equals(sourceHashes.get(name)) || !isOutputPresent(entry, compile) || (compile && classReferences.hasChanged(entry.classReferences))) {
+                changedNames.add(name);
+            }
+        }
+
+        LinkedHashSet<ClassDefinition> classDefinitions = new LinkedHashSet<>();
+        Set<String> updatedNames = new HashSet<>();
+        update(changedNames, compile, classDefinitions, updatedNames);
+
+        List<String> affectedNames = new ArrayList<>();
+        for (String name : names) {
+            if (!updatedNames.contains(name) && hasDependencyWithChangedSignature(previousIndex.get(name), previousIndex, sourceHashes, updatedNames)) {
+                affectedNames.add(name);
+            }
+        }
+        update(affectedNames, compile, classDefinitions, updatedNames);
+
+        TemplateIndex index = new TemplateIndex(fingerprint);
+        try (URLClassLoader classLoader = compile && !updatedNames.isEmpty() ? createManifestClassLoader() : null) {
+            for (String name : names) {
+                if (updatedNames.contains(name)) {
+                    ClassInfo classInfo = new ClassInfo(name, config.packageName);
+                    ClassDefinition classDefinition = new ClassDefinition(classInfo.fullName, classInfo);
+                    List<String> references = compile ? classReferences.collect(classDirectory, classDefinition.getName()) : new ArrayList<>();
+                    List<String> params = classLoader != null ? loadParams(classLoader, name) : null;
+                    index.put(new TemplateIndex.Entry(name, sourceHashes.get(name), getSignatureHash(name), classDefinition.getName(), classDefinition.getSourceFileName(), references, params, new ArrayList<>(directDependencies.get(name))));
+                } else {
+                    index.put(previousIndex.get(name));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index.write(indexFile);
+
+        Set<String> retainedClassNames = new HashSet<>();
+        for (TemplateIndex.Entry entry : index.getEntries()) {
+            retainedClassNames.add(entry.className);
+        }
+        writeBinaryContentBundle(classDefinitions, retainedClassNames);
+
+        for (String name : names) {
+            if (!updatedNames.contains(name)) {
+                putTemplateDependencies(name, collectDependencies(index, name));
+            }
+        }
+
+        if (config.generateNativeImageResources) {
+            LinkedHashSet<ClassDefinition> allClassDefinitions = new LinkedHashSet<>();
+            for (TemplateIndex.Entry entry : index.getEntries()) {
+                allClassDefinitions.add(new ClassDefinition(entry.className, new ClassInfo(entry.name, config.packageName)));
+            }
+            generateNativeResources(allClassDefinitions);
+        }
+
+        // Parameters of templates, that were not compiled in this run, are taken from the index
+        writeManifest(name -> index.get(name) == null ? null : index.get(name).params);
+
+        return classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+    }
+
+    private void update(List<String> names, boolean compile, LinkedHashSet<ClassDefinition> classDefinitions, Set<String> updatedNames) {
+        if (names.isEmpty()) {
+            return;
+        }
+
+        LinkedHashSet<ClassDefinition> generatedClassDefinitions = generate(names, isBundlingBinaryContent());
+        if (compile) {
+            compile(generatedClassDefinitions);
+        }
+
+        for (ClassDefinition classDefinition : generatedClassDefinitions) {
+            updatedNames.add(templateByClassName.get(classDefinition.getName()).name);
+        }
+        classDefinitions.addAll(generatedClassDefinitions);
+    }
+
+    private boolean hasDependencyWithChangedSignature(TemplateIndex.Entry entry, TemplateIndex previousIndex, Map<String, String> sourceHashes, Set<String> updatedNames) {
+        for (String dependency : entry.dependencies) {
+            if (!sourceHashes.containsKey(dependency)) {
+                return true; // Removed, the template needs to be generated again to report the error
+            }
+
+            if (updatedNames.contains(dependency)) {
+                TemplateIndex.Entry previousDependency = previousIndex.get(dependency);
+                if (previousDependency == null || !previousDependency.signatureHash.equals(getSignatureHash(dependency))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String getSignatureHash(String name) {
+        StringBuilder signature = new StringBuilder();
+        List<ParamInfo> params = paramOrder.get(name);
+        if (params != null) {
+            for (ParamInfo param : params) {
+                signature.append(param.type).append(param.varargs ? "..." : "").append(' ').append(param.name);
+                if (param.defaultValue != null) {
+                    signature.append(" = ").append(param.defaultValue);
+                }
+                signature.append('\n');
+            }
+        }
+        return IoUtils.hash(signature.toString());
+    }
+
+    private LinkedHashSet<String> collectDependencies(TemplateIndex index, String name) {
+        LinkedHashSet<String> dependencies = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        if (getTemplateType(name) == TemplateType.Template) {
+            pending.addAll(index.get(name).dependencies);
+        } else {
+            pending.add(name);
+        }
+
+        while (!pending.isEmpty()) {
+            String dependency = pending.poll();
+            if (dependencies.add(dependency)) {
+                TemplateIndex.Entry entry = index.get(dependency);
+                if (entry != null) {
+                    pending.addAll(entry.dependencies);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private boolean isOutputPresent(TemplateIndex.Entry entry, boolean compile) {
+        if (compile) {
+            return Files.exists(classDirectory.resolve(entry.className.replace('.', '/') + ".class"));
+        } else {
+            return Files.exists(classDirectory.resolve(entry.sourceFileName));
+        }
+    }
+
+    private void deleteOutput(TemplateIndex.Entry entry) {
+        Path sourceFile = classDirectory.resolve(entry.sourceFileName);
+        String simpleClassName = entry.className.substring(entry.className.lastIndexOf('.') + 1);
+        Path resourceDirectory = config.resourceDirectory == null ? classDirectory : config.resourceDirectory;
+
+        try {
+            Files.deleteIfExists(sourceFile);
+            Files.deleteIfExists(resourceDirectory.resolve(entry.className.replace('.', '/') + ".bin"));
+
+            Path directory = sourceFile.getParent();
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> classFiles = Files.newDirectoryStream(directory, simpleClassName + "{,$*}.class")) {
+                    for (Path classFile : classFiles) {
+                        Files.delete(classFile);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-    
+
+    /**
+     * Generated code depends on the template configuration, and compiled code on the class path.
+     * If any of these change, the entire index is invalidated. Of classes in class path directories, only compile-time constants
+     * are part of the fingerprint, other changes are tracked for each template by {@link ClassReferences}.
+     * @param classReferences the class references, or null if templates are only generated
+     */
+    private String createFingerprint(ClassReferences classReferences) {
+        boolean compile = classReferences != null;
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(compile).append('\n');
+        fingerprint.append(config.contentType).append('\n');
+        fingerprint.append(config.packageName).append('\n');
+        fingerprint.append(config.trimControlStructures).append('\n');
+        fingerprint.append(config.htmlPolicy == null ? null : config.htmlPolicy.getClass().getName()).append('\n');
+        fingerprint.append(Arrays.toString(config.htmlTags)).append('\n');
+        fingerprint.append(Arrays.toString(config.htmlAttributes)).append('\n');
+        fingerprint.append(config.htmlCommentsPreserved).append('\n');
+        fingerprint.append(config.binaryStaticContent).append('\n');
+        fingerprint.append(config.bundleBinaryStaticContent).append('\n');
+        fingerprint.append(config.directBinaryStaticContent).append('\n');
+        fingerprint.append(config.resourceDirectory).append('\n');
+
+        if (compile) {
+            fingerprint.append(Arrays.toString(config.compileArgs)).append('\n');
+            for (String entry : getClassPath()) {
+                fingerprint.append(entry).append(' ').append(createClassPathEntryFingerprint(Paths.get(entry))).append('\n');
+            }
+            fingerprint.append(classReferences.createConstantsFingerprint()).append('\n');
+        }
+
+        return IoUtils.hash(fingerprint.toString());
+    }
+
+    private static String createClassPathEntryFingerprint(Path entry) {
+        try {
+            if (Files.isRegularFile(entry)) {
+                return Files.getLastModifiedTime(entry).toMillis() + ":" + Files.size(entry);
+            }
+
+            return Files.isDirectory(entry) ? "directory" : "-";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Generate configuration files that can be read by Graal native-image.
      * See https://www.graalvm.org/reference-manual/native-image/BuildConfiguration/
@@ -120,9 +539,54 @@ public class TemplateCompiler extends TemplateLoader {
         }
     }
 
+    private void compileInMemory(List<String> names) {
+        LinkedHashSet<ClassDefinition> classDefinitions = generateClassDefinitions(names, false);
+
+        if (classDefinitions.stream().anyMatch(classDefinition -> !"java".equals(classDefinition.getExtension()))) {
+            for (ClassDefinition classDefinition : classDefinitions) {
+                classesInMemory.remove(classDefinition.getName());
+                resourcesInMemory.remove(classDefinition.getBinaryTextPartsFileName());
+            }
+            writeClassDefinitions(classDefinitions, false);
+            compile(classDefinitions);
+            return;
+        }
+
+        Map<String, byte[]> classes = javaCompilationService.compile(classDefinitions, getClassPath(), config, templateByClassName);
+
+        for (ClassDefinition classDefinition : classDefinitions) {
+            List<byte[]> textParts = classDefinition.getBinaryTextParts();
+            if (textParts.isEmpty()) {
+                resourcesInMemory.remove(classDefinition.getBinaryTextPartsFileName());
+            } else {
+                resourcesInMemory.put(classDefinition.getBinaryTextPartsFileName(), join(textParts));
+            }
+        }
+        classesInMemory.putAll(classes);
+    }
+
+    private static byte[] join(List<byte[]> textParts) {
+        int length = 0;
+        for (byte[] textPart : textParts) {
+            length += textPart.length;
+        }
+
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] textPart : textParts) {
+            System.arraycopy(textPart, 0, result, offset, textPart.length);
+            offset += textPart.length;
+        }
+        return result;
+    }
+
     public List<String> precompile(List<String> names) {
-        LinkedHashSet<ClassDefinition> classDefinitions = generate(names);
+        LinkedHashSet<ClassDefinition> classDefinitions = generate(names, false);
+        compile(classDefinitions);
+        return classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+    }
 
+    private void compile(LinkedHashSet<ClassDefinition> classDefinitions) {
         List<String> classPath = getClassPath();
 
         Set<String> extensions = new HashSet<>();
@@ -135,8 +599,13 @@ public class TemplateCompiler extends TemplateLoader {
         }
 
         if (extensions.size() == 1) {
-            ClassCompiler compiler = createCompiler(extensions.iterator().next());
-            compiler.compile(files, classPath, config, classDirectory, templateByClassName);
+            String extension = extensions.iterator().next();
+            if ("java".equals(extension)) {
+                compileJava(classDefinitions, files, classPath);
+            } else {
+                ClassCompiler compiler = createCompiler(extension);
+                compiler.compile(files, classPath, config, classDirectory, templateByClassName);
+            }
         } else if (extensions.size() > 1) {
             // As there is currently only support for java and kotlin as expression language, this is the java / kotlin case.
             // We first need to compile all kotlin classes while passing generate .java files to the kotlin compiler.
@@ -153,8 +622,48 @@ public class TemplateCompiler extends TemplateLoader {
 
             javaCompiler.compile(javaFiles, javaCompilerClassPath, config, classDirectory, templateByClassName);
         }
+    }
 
-        return classDefinitions.stream().map(ClassDefinition::getSourceFileName).collect(Collectors.toList());
+    /**
+     * Templates can only depend on tags and layouts, never on other templates. For large amounts of templates,
+     * all tags and layouts are compiled first. Afterwards, templates are compiled in concurrent batches against them.
+     */
+    private void compileJava(LinkedHashSet<ClassDefinition> classDefinitions, String[] files, List<String> classPath) {
+        List<String> tagAndLayoutFiles = new ArrayList<>();
+        List<String> templateFiles = new ArrayList<>();
+        int i = 0;
+        for (ClassDefinition classDefinition : classDefinitions) {
+            ClassInfo classInfo = templateByClassName.get(classDefinition.getName());
+            if (getTemplateType(classInfo.name) == TemplateType.Template) {
+                templateFiles.add(files[i++]);
+            } else {
+                tagAndLayoutFiles.add(files[i++]);
+            }
+        }
+
+        int batchCount = Math.min(ForkJoinPool.getCommonPoolParallelism(), templateFiles.size() / MIN_TEMPLATES_PER_BATCH);
+        if (batchCount < 2) {
+            javaCompilationService.compile(files, classPath, config, classDirectory, templateByClassName);
+            return;
+        }
+
+        JavaClassCompiler compiler = new JavaClassCompiler();
+        if (!tagAndLayoutFiles.isEmpty()) {
+            compiler.compile(tagAndLayoutFiles.toArray(new String[0]), classPath, config, classDirectory, templateByClassName);
+        }
+
+        List<String> templateClassPath = new ArrayList<>(classPath);
+        templateClassPath.add(classDirectory.toAbsolutePath().toString());
+
+        List<String[]> batches = new ArrayList<>(batchCount);
+        for (int batch = 0; batch < batchCount; ++batch) {
+            int fromIndex = templateFiles.size() * batch / batchCount;
+            int toIndex = templateFiles.size() * (batch + 1) / batchCount;
+            batches.add(templateFiles.subList(fromIndex, toIndex).toArray(new String[0]));
+        }
+
+        // Tags and layouts are already compiled, they must not be compiled again implicitly by concurrent batches
+        forEachInParallel(batches, batch -> compiler.compile(batch, templateClassPath, config, classDirectory, templateByClassName, "-implicit:none"));
     }
 
     private List<String> getClassPath() {
@@ -188,62 +697,199 @@ public class TemplateCompiler extends TemplateLoader {
         }
     }
 
-    private LinkedHashSet<ClassDefinition> generate(List<String> names) {
-        LinkedHashSet<ClassDefinition> classDefinitions = new LinkedHashSet<>();
+    /**
+     * @param bundleBinaryContent true, to put the binary content of all classes into a single bundle, that is written by {@link #writeBinaryContentBundle(Collection, Set)}
+     */
+    private LinkedHashSet<ClassDefinition> generate(List<String> names, boolean bundleBinaryContent) {
+        LinkedHashSet<ClassDefinition> classDefinitions = generateClassDefinitions(names, bundleBinaryContent);
+        writeClassDefinitions(classDefinitions, bundleBinaryContent);
+        generateNativeResources(classDefinitions);
+
+        return classDefinitions;
+    }
+
+    private LinkedHashSet<ClassDefinition> generateClassDefinitions(List<String> names, boolean bundleBinaryContent) {
+        Generation generation = new Generation(bundleBinaryContent);
+        forEachInParallel(names, name -> generate(generation, name));
+
+        LinkedHashSet<ClassDefinition> classDefinitions = generation.collectClassDefinitions(names);
         for (String name : names) {
+            putTemplateDependencies(name, generation.collectDependencies(name));
+        }
+        generation.forEachGenerated(directDependencies::put);
+
+        return classDefinitions;
+    }
+
+    private void writeClassDefinitions(LinkedHashSet<ClassDefinition> classDefinitions, boolean bundleBinaryContent) {
+        Path resourceDirectory = config.resourceDirectory == null ? classDirectory : config.resourceDirectory;
+        forEachInParallel(new ArrayList<>(classDefinitions), classDefinition -> writeClassDefinition(classDefinition, bundleBinaryContent ? null : resourceDirectory));
+    }
+
+    /**
+     * Binary content is only bundled for all templates at once, templates loaded on demand have their own resource.
+     */
+    private boolean isBundlingBinaryContent() {
+        return config.binaryStaticContent && config.bundleBinaryStaticContent;
+    }
+
+    /**
+     * Called by code generators.
+     * @return the resource name of the binary content bundle, if the binary content of the templates currently generated is bundled, otherwise null.
+     */
+    public String getBinaryContentBundle() {
+        Generation generation = currentGeneration.get();
+        if (generation == null || !generation.bundleBinaryContent) {
+            return null;
+        }
+        return BinaryContentBundle.getResourceName(config.packageName);
+    }
+
+    /**
+     * @param classDefinitions the classes that were generated
+     * @param retainedClassNames classes that were not generated, but whose content from the previous bundle is still valid
+     */
+    private void writeBinaryContentBundle(Collection<ClassDefinition> classDefinitions, Set<String> retainedClassNames) {
+        if (!isBundlingBinaryContent()) {
+            return;
+        }
+
+        Path resourceDirectory = config.resourceDirectory == null ? classDirectory : config.resourceDirectory;
+        Path file = resourceDirectory.resolve(BinaryContentBundle.getResourceName(config.packageName));
+
+        try {
+            SortedMap<String, byte[]> contentByClassName = new TreeMap<>();
+            if (!retainedClassNames.isEmpty() && Files.exists(file)) {
+                BinaryContentBundle previousBundle = BinaryContentBundle.read(ByteBuffer.wrap(Files.readAllBytes(file)));
+                for (String className : previousBundle.getClassNames()) {
+                    if (retainedClassNames.contains(className)) {
+                        ByteBuffer content = previousBundle.get(className);
+                        byte[] bytes = new byte[content.remaining()];
+                        content.get(bytes);
+                        contentByClassName.put(className, bytes);
+                    }
+                }
+            }
+
+            for (ClassDefinition classDefinition : classDefinitions) {
+                List<byte[]> textParts = classDefinition.getBinaryTextParts();
+                if (textParts.isEmpty()) {
+                    contentByClassName.remove(classDefinition.getName());
+                } else {
+                    contentByClassName.put(classDefinition.getName(), join(textParts));
+                }
+            }
+
+            // The bundle may be memory-mapped by a running template engine, so it must not be modified in place
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), BinaryContentBundle.FILE_NAME, ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                BinaryContentBundle.write(outputStream, contentByClassName);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void generate(Generation generation, String name) {
+        currentGeneration.set(generation);
+        try {
             switch (getTemplateType(name)) {
                 case Template:
-                    generateTemplate(name, classDefinitions);
+                    generateTemplate(name);
                     break;
                 case Tag:
-                    generateTemplateFromTag(name, classDefinitions);
+                    generateTagOrLayout(TemplateType.Tag, name, new LinkedHashSet<>(), new LinkedHashSet<>(), null);
                     break;
                 case Layout:
-                    generateTemplateFromLayout(name, classDefinitions);
+                    generateTagOrLayout(TemplateType.Layout, name, new LinkedHashSet<>(), new LinkedHashSet<>(), null);
                     break;
             }
+        } finally {
+            currentGeneration.remove();
         }
+    }
 
-        Path resourceDirectory = config.resourceDirectory == null ? classDirectory : config.resourceDirectory;
-        for (ClassDefinition classDefinition : classDefinitions) {
-            try (FileOutput fileOutput = new FileOutput(classDirectory.resolve(classDefinition.getSourceFileName()))) {
-                fileOutput.writeContent(classDefinition.getCode());
+    private void writeClassDefinition(ClassDefinition classDefinition, Path resourceDirectory) {
+        try (FileOutput fileOutput = new FileOutput(classDirectory.resolve(classDefinition.getSourceFileName()))) {
+            fileOutput.writeContent(classDefinition.getCode());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<byte[]> textParts = classDefinition.getBinaryTextParts();
+        if (resourceDirectory != null && !textParts.isEmpty()) {
+            try (OutputStream os = Files.newOutputStream(resourceDirectory.resolve(classDefinition.getBinaryTextPartsFileName()), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)) {
+                for (byte[] textPart : textParts) {
+                    os.write(textPart);
+                }
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
+        }
+    }
 
-            List<byte[]> textParts = classDefinition.getBinaryTextParts();
-            if (!textParts.isEmpty()) {
-                try (OutputStream os = Files.newOutputStream(resourceDirectory.resolve(classDefinition.getBinaryTextPartsFileName()), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)) {
-                    for (byte[] textPart : textParts) {
-                        os.write(textPart);
-                    }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
+    /**
+     * Runs the action for all elements, in parallel if there is more than one element.
+     * If actions fail, the failure of the first element in list order is thrown, so that errors are reported deterministically.
+     */
+    private static <T> void forEachInParallel(List<T> elements, Consumer<T> action) {
+        if (elements.size() <= 1) {
+            elements.forEach(action);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(elements.size());
+        for (T element : elements) {
+            futures.add(ForkJoinPool.commonPool().submit(() -> action.accept(element)));
+        }
+
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TemplateException("Interrupted while generating templates", e);
             }
         }
 
-        generateNativeResources(classDefinitions);
-
-        return classDefinitions;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new TemplateException("Failed to generate templates", failure);
+        }
     }
 
-    private void generateTemplate(String name, LinkedHashSet<ClassDefinition> classDefinitions) {
+    private void generateTemplate(String name) {
         String code = resolveCode(name, null);
 
-        LinkedHashSet<String> templateDependencies = new LinkedHashSet<>();
-
         ClassInfo templateInfo = new ClassInfo(name, config.packageName);
+        ClassDefinition templateDefinition = new ClassDefinition(templateInfo.fullName, templateInfo);
 
-        CodeGenerator codeGenerator = createCodeGenerator(templateInfo, classDefinitions, templateDependencies);
-        new TemplateParser(code, TemplateType.Template, codeGenerator, config).parse();
-
-        this.templateDependencies.put(name, templateDependencies);
+        GeneratedClass generatedClass = new GeneratedClass(TemplateType.Template, templateDefinition);
+        if (currentGeneration.get().claim(name, generatedClass) != null) {
+            return; // Same template was passed twice
+        }
 
-        ClassDefinition templateDefinition = new ClassDefinition(templateInfo.fullName, templateInfo);
-        templateDefinition.setCode(codeGenerator.getCode(), codeGenerator.getBinaryTextParts());
-        classDefinitions.add(templateDefinition);
+        try {
+            CodeGenerator codeGenerator = createCodeGenerator(templateInfo, TemplateType.Template, code, new LinkedHashSet<>(), generatedClass.dependencies);
+            new TemplateParser(code, TemplateType.Template, codeGenerator, config).parse();
+
+            templateDefinition.setCode(codeGenerator.getCode(), codeGenerator.getBinaryTextParts());
+        } catch (RuntimeException | Error e) {
+            generatedClass.fail(e);
+            throw e;
+        } finally {
+            generatedClass.complete();
+        }
 
         templateByClassName.put(templateDefinition.getName(), templateInfo);
 
@@ -252,26 +898,6 @@ public class TemplateCompiler extends TemplateLoader {
         }
     }
 
-    private void generateTemplateFromTag(String name, LinkedHashSet<ClassDefinition> classDefinitions) {
-        LinkedHashSet<String> templateDependencies = new LinkedHashSet<>();
-
-        ClassInfo templateInfo = generateTagOrLayout(TemplateType.Tag, name, classDefinitions, templateDependencies, null);
-
-        this.templateDependencies.put(name, templateDependencies);
-
-        templateByClassName.put(templateInfo.name, templateInfo);
-    }
-
-    private void generateTemplateFromLayout(String name, LinkedHashSet<ClassDefinition> classDefinitions) {
-        LinkedHashSet<String> templateDependencies = new LinkedHashSet<>();
-
-        ClassInfo templateInfo = generateTagOrLayout(TemplateType.Layout, name, classDefinitions, templateDependencies, null);
-
-        this.templateDependencies.put(name, templateDependencies);
-
-        templateByClassName.put(templateInfo.name, templateInfo);
-    }
-
     public ClassInfo generateTagOrLayout(TemplateType type, String simpleName, String extension, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies, DebugInfo debugInfo) {
         String name = resolveTagOrLayoutName(type, simpleName, extension);
         try {
@@ -292,23 +918,45 @@ public class TemplateCompiler extends TemplateLoader {
         return directory + simpleName.replace('.', '/') + "." + extension;
     }
 
+    /**
+     * Generates the tag or layout with the given name, unless it was already generated, or is being generated by another thread.
+     * In the latter case, this method waits until the parameters of the tag or layout are known, since the caller needs them
+     * to generate the call. This cannot deadlock, as parameters are always declared before any other tag or layout is called.
+     */
     public ClassInfo generateTagOrLayout(TemplateType type, String name, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies, DebugInfo debugInfo) {
         templateDependencies.add(name);
         ClassInfo classInfo = new ClassInfo(name, config.packageName);
 
-        ClassDefinition classDefinition = new ClassDefinition(classInfo.fullName, classInfo);
-        if (classDefinitions.contains(classDefinition)) {
+        Generation generation = currentGeneration.get();
+        GeneratedClass existing = generation.get(name);
+        if (existing != null) {
+            existing.awaitParams();
             return classInfo;
         }
 
         String code = resolveCode(name, debugInfo);
 
-        classDefinitions.add(classDefinition);
+        ClassDefinition classDefinition = new ClassDefinition(classInfo.fullName, classInfo);
+        GeneratedClass generatedClass = new GeneratedClass(type, classDefinition);
+
+        existing = generation.claim(name, generatedClass);
+        if (existing != null) {
+            existing.awaitParams();
+            return classInfo;
+        }
 
-        CodeGenerator codeGenerator = createCodeGenerator(classInfo, classDefinitions, templateDependencies);
-        new TemplateParser(code, type, codeGenerator, config).parse();
+        try {
+            CodeGenerator codeGenerator = createCodeGenerator(classInfo, type, code, classDefinitions, generatedClass.dependencies);
+            new TemplateParser(code, type, codeGenerator, config).parse();
+
+            classDefinition.setCode(codeGenerator.getCode(), codeGenerator.getBinaryTextParts());
+        } catch (RuntimeException | Error e) {
+            generatedClass.fail(e);
+            throw e;
+        } finally {
+            generatedClass.complete();
+        }
 
-        classDefinition.setCode(codeGenerator.getCode(), codeGenerator.getBinaryTextParts());
         templateByClassName.put(classDefinition.getName(), classInfo);
 
         if (DEBUG) {
@@ -318,7 +966,28 @@ public class TemplateCompiler extends TemplateLoader {
         return classInfo;
     }
 
-    private CodeGenerator createCodeGenerator(ClassInfo classInfo, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies) {
+    /**
+     * Called by code generators, as soon as all parameters of a template are known.
+     * @param classInfo the template
+     * @param parameters all parameters of the template, in declaration order
+     */
+    public void registerParams(ClassInfo classInfo, List<ParamInfo> parameters) {
+        paramOrder.put(classInfo.name, parameters);
+
+        Generation generation = currentGeneration.get();
+        if (generation != null) {
+            GeneratedClass generatedClass = generation.get(classInfo.name);
+            if (generatedClass != null) {
+                generatedClass.publishParams();
+            }
+        }
+    }
+
+    private CodeGenerator createCodeGenerator(ClassInfo classInfo, TemplateType type, String code, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies) {
+        return new OptimizingCodeGenerator(createLanguageCodeGenerator(classInfo, type, code, classDefinitions, templateDependencies), config);
+    }
+
+    private CodeGenerator createLanguageCodeGenerator(ClassInfo classInfo, TemplateType type, String code, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies) {
         if ("kte".equals(classInfo.extension)) {
             try {
                 Class<?> compilerClass = Class.forName("gg.jte.compiler.kotlin.KotlinCodeGenerator");
@@ -327,7 +996,7 @@ public class TemplateCompiler extends TemplateLoader {
                 throw new TemplateException("Failed to create kotlin generator. To handle .kte files, you need to add gg.jte:jte-kotlin to your project.", e);
             }
         } else {
-            return new JavaCodeGenerator(this, this.config, paramOrder, classInfo, classDefinitions, templateDependencies);
+            return new JavaCodeGenerator(this, this.config, paramOrder, classInfo, classDefinitions, templateDependencies, TemplateCodeStatementVisitor.hasCodeStatements(code, type, config));
         }
     }
 
@@ -343,8 +1012,30 @@ public class TemplateCompiler extends TemplateLoader {
         return code;
     }
 
+    /**
+     * If the code resolver tracks changes, the dependencies of a template are only checked once per generation.
+     */
     @Override
     public boolean hasChanged(String name) {
+        long generation = codeResolver.getGeneration();
+        if (generation >= 0) {
+            Long unchangedGeneration = unchangedGenerations.get(name);
+            if (unchangedGeneration != null && unchangedGeneration == generation) {
+                return false;
+            }
+        }
+
+        if (hasChangedDependency(name)) {
+            return true;
+        }
+
+        if (generation >= 0) {
+            unchangedGenerations.put(name, generation);
+        }
+        return false;
+    }
+
+    private boolean hasChangedDependency(String name) {
         if (codeResolver.hasChanged(name)) {
             return true;
         }
@@ -365,13 +1056,172 @@ public class TemplateCompiler extends TemplateLoader {
 
     @Override
     public List<String> getTemplatesUsing(String name) {
-        List<String> result = new ArrayList<>();
-        for (Map.Entry<String, LinkedHashSet<String>> dependencies : templateDependencies.entrySet()) {
-            if (dependencies.getValue().contains(name)) {
-                result.add(dependencies.getKey());
+        Set<String> result = templatesUsing.get(name);
+        if (result == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Dependencies are transitive, so the reverse index directly contains all templates using a tag or layout.
+     */
+    private void putTemplateDependencies(String name, LinkedHashSet<String> dependencies) {
+        synchronized (templatesUsing) {
+            LinkedHashSet<String> previousDependencies = templateDependencies.put(name, dependencies);
+            if (previousDependencies != null) {
+                for (String dependency : previousDependencies) {
+                    Set<String> names = templatesUsing.get(dependency);
+                    if (names != null) {
+                        names.remove(name);
+                        if (names.isEmpty()) {
+                            templatesUsing.remove(dependency);
+                        }
+                    }
+                }
+            }
+
+            for (String dependency : dependencies) {
+                templatesUsing.computeIfAbsent(dependency, d -> ConcurrentHashMap.newKeySet()).add(name);
             }
         }
+    }
 
-        return result;
+    /**
+     * Shared state of one generate call, all class definitions are registered here before they are generated.
+     */
+    private static final class Generation {
+        private final ConcurrentHashMap<String, GeneratedClass> generatedClasses = new ConcurrentHashMap<>();
+        private final boolean bundleBinaryContent;
+
+        Generation(boolean bundleBinaryContent) {
+            this.bundleBinaryContent = bundleBinaryContent;
+        }
+
+        GeneratedClass get(String name) {
+            return generatedClasses.get(name);
+        }
+
+        GeneratedClass claim(String name, GeneratedClass generatedClass) {
+            return generatedClasses.putIfAbsent(name, generatedClass);
+        }
+
+        void forEachGenerated(BiConsumer<String, LinkedHashSet<String>> directDependenciesConsumer) {
+            generatedClasses.forEach((name, generatedClass) -> directDependenciesConsumer.accept(name, generatedClass.dependencies));
+        }
+
+        /**
+         * @return all class definitions in the same order a sequential depth-first generation would produce them.
+         */
+        LinkedHashSet<ClassDefinition> collectClassDefinitions(List<String> names) {
+            LinkedHashSet<ClassDefinition> classDefinitions = new LinkedHashSet<>();
+            for (String name : names) {
+                collectClassDefinitions(name, classDefinitions);
+            }
+            return classDefinitions;
+        }
+
+        private void collectClassDefinitions(String name, LinkedHashSet<ClassDefinition> classDefinitions) {
+            GeneratedClass generatedClass = generatedClasses.get(name);
+            if (generatedClass == null) {
+                return; // Dependency could not be resolved, e.g. an alternative extension was used instead
+            }
+
+            if (generatedClass.type == TemplateType.Template) {
+                for (String dependency : generatedClass.dependencies) {
+                    collectClassDefinitions(dependency, classDefinitions);
+                }
+                classDefinitions.add(generatedClass.classDefinition);
+            } else if (classDefinitions.add(generatedClass.classDefinition)) {
+                for (String dependency : generatedClass.dependencies) {
+                    collectClassDefinitions(dependency, classDefinitions);
+                }
+            }
+        }
+
+        /**
+         * @return all tags and layouts the given template depends on, directly or transitively. Tags and layouts depend on themselves.
+         */
+        LinkedHashSet<String> collectDependencies(String name) {
+            LinkedHashSet<String> dependencies = new LinkedHashSet<>();
+            GeneratedClass generatedClass = generatedClasses.get(name);
+            if (generatedClass != null && generatedClass.type == TemplateType.Template) {
+                for (String dependency : generatedClass.dependencies) {
+                    collectDependencies(dependency, dependencies);
+                }
+            } else {
+                collectDependencies(name, dependencies);
+            }
+            return dependencies;
+        }
+
+        private void collectDependencies(String name, LinkedHashSet<String> dependencies) {
+            GeneratedClass generatedClass = generatedClasses.get(name);
+            if (dependencies.add(name) && generatedClass != null) {
+                for (String dependency : generatedClass.dependencies) {
+                    collectDependencies(dependency, dependencies);
+                }
+            }
+        }
+    }
+
+    private static final class GeneratedClass {
+        final TemplateType type;
+        final ClassDefinition classDefinition;
+        final LinkedHashSet<String> dependencies = new LinkedHashSet<>(); // Direct dependencies, in order of appearance
+
+        private final CountDownLatch paramsLatch = new CountDownLatch(1);
+        private volatile boolean paramsPublished;
+        private volatile Throwable failure;
+
+        GeneratedClass(TemplateType type, ClassDefinition classDefinition) {
+            this.type = type;
+            this.classDefinition = classDefinition;
+        }
+
+        void publishParams() {
+            paramsPublished = true;
+            paramsLatch.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+        }
+
+        void complete() {
+            paramsLatch.countDown();
+        }
+
+        void awaitParams() {
+            if (!paramsPublished) {
+                try {
+                    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                        @Override
+                        public boolean block() throws InterruptedException {
+                            paramsLatch.await();
+                            return true;
+                        }
+
+                        @Override
+                        public boolean isReleasable() {
+                            return paramsLatch.getCount() == 0;
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TemplateException("Interrupted while waiting for " + classDefinition.getName(), e);
+                }
+            }
+
+            if (!paramsPublished) {
+                Throwable failure = this.failure;
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                } else if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw new IllegalStateException("No parameter information for " + classDefinition.getName());
+            }
+        }
     }
 }
@@ -0,0 +1,138 @@
+package gg.jte.compiler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Persistent state of the last incremental compilation, stored in the class directory.
+ * For every template, it contains a hash of the template source, a hash of the parameter signature, the referenced classes of class path directories,
+ * the compiled parameter types and all tags and layouts that are called directly.
+ */
+final class TemplateIndex {
+    static final String FILE_NAME = ".jte-index";
+
+    private static final String UNKNOWN = "?";
+    private static final String HEADER = "jte-index 3";
+
+    static final class Entry {
+        final String name;
+        final String sourceHash;
+        final String signatureHash;
+        final String className;
+        final String sourceFileName;
+        final List<String> classReferences;
+        /**
+         * Parameters in declaration order, each as name and binary class name, separated by '=', or null if unknown.
+         */
+        final List<String> params;
+        final List<String> dependencies;
+
+        Entry(String name, String sourceHash, String signatureHash, String className, String sourceFileName, List<String> classReferences, List<String> params, List<String> dependencies) {
+            this.name = name;
+            this.sourceHash = sourceHash;
+            this.signatureHash = signatureHash;
+            this.className = className;
+            this.sourceFileName = sourceFileName;
+            this.classReferences = classReferences;
+            this.params = params;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final String fingerprint;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    TemplateIndex(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    Entry get(String name) {
+        return entries.get(name);
+    }
+
+    void put(Entry entry) {
+        entries.put(entry.name, entry);
+    }
+
+    Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * @return the stored index, or an empty index, if there is no index yet or the index was created with a different fingerprint.
+     */
+    static TemplateIndex read(Path file, String fingerprint) {
+        TemplateIndex index = new TemplateIndex(fingerprint);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine()) || !fingerprint.equals(reader.readLine())) {
+                return index;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 7) {
+                    return new TemplateIndex(fingerprint);
+                }
+
+                List<String> classReferences = readList(fields[5]);
+                List<String> params = UNKNOWN.equals(fields[6]) ? null : readList(fields[6]);
+                List<String> dependencies = new ArrayList<>(Arrays.asList(fields).subList(7, fields.length));
+                index.put(new Entry(fields[0], fields[1], fields[2], fields[3], fields[4], classReferences, params, dependencies));
+            }
+        } catch (NoSuchFileException e) {
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return index;
+    }
+
+    private static List<String> readList(String field) {
+        return field.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(field.split(" ")));
+    }
+
+    void write(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.write('\n');
+                writer.write(fingerprint);
+                writer.write('\n');
+
+                for (Entry entry : entries.values()) {
+                    writer.write(entry.name);
+                    writer.write('\t');
+                    writer.write(entry.sourceHash);
+                    writer.write('\t');
+                    writer.write(entry.signatureHash);
+                    writer.write('\t');
+                    writer.write(entry.className);
+                    writer.write('\t');
+                    writer.write(entry.sourceFileName);
+                    writer.write('\t');
+                    writer.write(String.join(" ", entry.classReferences));
+                    writer.write('\t');
+                    writer.write(entry.params == null ? UNKNOWN : String.join(" ", entry.params));
+                    for (String dependency : entry.dependencies) {
+                        writer.write('\t');
+                        writer.write(dependency);
+                    }
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
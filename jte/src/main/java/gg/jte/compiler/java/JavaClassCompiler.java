@@ -18,11 +18,19 @@ import java.util.Map;
 public class JavaClassCompiler implements ClassCompiler {
     @Override
     public void compile(String[] files, List<String> classPath, TemplateConfig config, Path classDirectory, Map<String, ClassInfo> templateByClassName) {
-        List<String> args = new ArrayList<>(files.length + classPath.size() + 8);
+        compile(files, classPath, config, classDirectory, templateByClassName, new String[0]);
+    }
+
+    /**
+     * Same as {@link #compile(String[], List, TemplateConfig, Path, Map)}, but passes additional arguments to the compiler.
+     */
+    public void compile(String[] files, List<String> classPath, TemplateConfig config, Path classDirectory, Map<String, ClassInfo> templateByClassName, String... additionalArgs) {
+        List<String> args = new ArrayList<>(files.length + classPath.size() + additionalArgs.length + 8);
 
         if (config.compileArgs != null) {
             args.addAll(Arrays.asList(config.compileArgs));
         }
+        args.addAll(Arrays.asList(additionalArgs));
         args.add("-encoding");
         args.add("UTF-8");
         args.add("-parameters");
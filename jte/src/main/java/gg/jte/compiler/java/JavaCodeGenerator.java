@@ -10,14 +10,38 @@ import gg.jte.runtime.DebugInfo;
 import gg.jte.runtime.TemplateType;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static gg.jte.runtime.Constants.HTML_ATTRIBUTES;
 import static gg.jte.runtime.Constants.TEXT_PART_BINARY;
 
 public class JavaCodeGenerator implements CodeGenerator {
+    /**
+     * The render method and content blocks are split into chained parts, once their generated source exceeds this length.
+     * Loop and branch bodies that exceed it are outlined into a content block.
+     * Generated source is a lot larger than the resulting bytecode, so that methods stay well below HotSpot's HugeMethodLimit (8000 bytes) and remain eligible for JIT compilation.
+     */
+    static final int MAX_RENDER_METHOD_LENGTH = 10000;
+
+    /**
+     * Larger line info is encoded as string, to not exceed the code size limit of the static initializer.
+     */
+    private static final int MAX_LINE_INFO_ARRAY_LENGTH = 2048;
+    private static final int MAX_LINE_INFO_RUNS_PER_STRING = 4096;
+
+    private static final String FOR_SUPPORT_PACKAGE = "gg.jte.support.";
+    private static final String FOR_SUPPORT_CLASS = FOR_SUPPORT_PACKAGE + "ForSupport";
+    private static final Set<String> FOR_SUPPORT_TYPES = new HashSet<>(Arrays.asList("var", "ForSupport", "IntForSupport", "LongForSupport", "DoubleForSupport"));
+
     private final TemplateCompiler compiler;
     private final TemplateConfig config;
     private final ConcurrentHashMap<String, List<ParamInfo>> paramOrder;
@@ -27,23 +51,41 @@ public class JavaCodeGenerator implements CodeGenerator {
     private final LinkedHashSet<String> templateDependencies;
     private final List<ParamInfo> parameters = new ArrayList<>();
     private final List<byte[]> binaryTextParts = new ArrayList<>();
+    private final Map<String, Integer> htmlAttributeNames = new LinkedHashMap<>();
+    private final boolean hasCodeStatements;
 
     private boolean hasWrittenPackage;
     private boolean hasWrittenClass;
 
+    private RenderMethod renderMethod = new RenderMethod(null, false, 0);
+    private boolean forSupportImported;
+
     public JavaCodeGenerator(TemplateCompiler compiler, TemplateConfig config, ConcurrentHashMap<String, List<ParamInfo>> paramOrder, ClassInfo classInfo, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies) {
+        this(compiler, config, paramOrder, classInfo, classDefinitions, templateDependencies, true);
+    }
+
+    /**
+     * @param hasCodeStatements true, if the template contains code statements. They may assign local variables, which then cannot be
+     *                          captured by outlined loop and branch bodies.
+     */
+    public JavaCodeGenerator(TemplateCompiler compiler, TemplateConfig config, ConcurrentHashMap<String, List<ParamInfo>> paramOrder, ClassInfo classInfo, LinkedHashSet<ClassDefinition> classDefinitions, LinkedHashSet<String> templateDependencies, boolean hasCodeStatements) {
         this.compiler = compiler;
         this.config = config;
         this.paramOrder = paramOrder;
         this.classInfo = classInfo;
         this.classDefinitions = classDefinitions;
         this.templateDependencies = templateDependencies;
+        this.hasCodeStatements = hasCodeStatements;
     }
 
     @Override
     public void onImport(String importClass) {
         writePackageIfRequired();
         javaCode.append("import ").append(importClass).append(";\n");
+
+        if (FOR_SUPPORT_CLASS.equals(importClass.trim())) {
+            forSupportImported = true;
+        }
     }
 
     private void writePackageIfRequired() {
@@ -101,8 +143,9 @@ public class JavaCodeGenerator implements CodeGenerator {
         }
 
         javaCode.append(") {\n");
+        renderMethod.startIndex = javaCode.getLength();
 
-        paramOrder.put(classInfo.name, parameters);
+        compiler.registerParams(classInfo, parameters);
     }
 
     @Override
@@ -116,12 +159,14 @@ public class JavaCodeGenerator implements CodeGenerator {
         if (!binaryTextParts.isEmpty()) {
             lineCount += binaryTextParts.size() + 1;
         }
+        lineCount += htmlAttributeNames.size();
         javaCode.insertFieldLines(lineCount);
 
         StringBuilder fields = new StringBuilder(64 + 32 * lineCount);
         addNameField(fields, classInfo.name);
         addLineInfoField(fields);
         writeBinaryTextParts(fields);
+        writeHtmlAttributeNames(fields);
 
         javaCode.insertFields(fields);
 
@@ -159,12 +204,61 @@ public class JavaCodeGenerator implements CodeGenerator {
         javaCode.append(");\n");
         javaCode.append("\t}\n");
 
+        writeRenderArray();
+
         javaCode.append("}\n");
 
         this.classInfo.lineInfo = javaCode.getLineInfo();
     }
 
+    private void writeRenderArray() {
+        javaCode.append("\tpublic static void renderArray(");
+        writeTemplateOutputParam();
+        javaCode.append(", gg.jte.html.HtmlInterceptor jteHtmlInterceptor");
+
+        javaCode.append(", Object[] params) {\n");
+        if (parameters.stream().anyMatch(p -> p.varargs)) {
+            javaCode.append("\t\tthrow gg.jte.runtime.TemplateUtils.createVarargsNotSupportedException(").append(Constants.NAME_FIELD).append(");\n");
+            javaCode.append("\t}\n");
+            return;
+        }
+
+        int required = 0; // Only trailing parameters with a default value can be omitted
+        for (int i = 0; i < parameters.size(); ++i) {
+            if (parameters.get(i).defaultValue == null) {
+                required = i + 1;
+            }
+        }
+        javaCode.append("\t\tgg.jte.runtime.TemplateUtils.checkParamCount(").append(Constants.NAME_FIELD).append(", params, ").append(required).append(", ").append(parameters.size()).append(");\n");
+
+        int index = 0;
+        for (ParamInfo parameter : parameters) {
+            javaCode.setCurrentTemplateLine(parameter.templateLine);
+            javaCode.append("\t\t").append(parameter.type).append(" ").append(parameter.name).append(" = ");
+            if (parameter.defaultValue != null) {
+                javaCode.append("params.length > ").append(index).append(" ? (").append(parameter.type).append(")params[").append(index).append("] : ");
+                writeJavaCodeWithContentSupport(0, parameter.defaultValue);
+                javaCode.append(";\n");
+            } else {
+                javaCode.append("(").append(parameter.type).append(")params[").append(index).append("];\n");
+            }
+            ++index;
+        }
+        javaCode.append("\t\trender(jteOutput, jteHtmlInterceptor");
+
+        for (ParamInfo parameter : parameters) {
+            javaCode.append(", ").append(parameter.name);
+        }
+        javaCode.append(");\n");
+        javaCode.append("\t}\n");
+    }
+
     private void addLineInfoField(StringBuilder fields) {
+        if (javaCode.getCurrentCodeLine() > MAX_LINE_INFO_ARRAY_LENGTH) {
+            addEncodedLineInfoField(fields);
+            return;
+        }
+
         fields.append("\tpublic static final int[] ").append(Constants.LINE_INFO_FIELD).append(" = {");
         for (int i = 0; i < javaCode.getCurrentCodeLine(); ++i) {
             if (i > 0) {
@@ -175,6 +269,34 @@ public class JavaCodeGenerator implements CodeGenerator {
         fields.append("};\n");
     }
 
+    private void addEncodedLineInfoField(StringBuilder fields) {
+        fields.append("\tpublic static final int[] ").append(Constants.LINE_INFO_FIELD).append(" = gg.jte.runtime.TemplateUtils.decodeLineInfo(\"");
+
+        int runs = 0;
+        int codeLines = javaCode.getCurrentCodeLine();
+        for (int i = 0; i < codeLines; ) {
+            int line = javaCode.getLineInfo(i);
+            int count = 1;
+            while (i + count < codeLines && javaCode.getLineInfo(i + count) == line) {
+                ++count;
+            }
+
+            if (runs > 0) {
+                // Keep each string constant well below the 65535 byte limit of the constant pool
+                fields.append(runs % MAX_LINE_INFO_RUNS_PER_STRING == 0 ? "\", \"" : ",");
+            }
+            fields.append(line);
+            if (count > 1) {
+                fields.append('*').append(count);
+            }
+
+            ++runs;
+            i += count;
+        }
+
+        fields.append("\");\n");
+    }
+
     private void addNameField(StringBuilder fields, String name) {
         fields.append("\tpublic static final String ").append(Constants.NAME_FIELD).append(" = \"");
         fields.append(name);
@@ -191,13 +313,22 @@ public class JavaCodeGenerator implements CodeGenerator {
     }
 
     private void writeBinaryTextPartsContent(StringBuilder fields) {
-        String contentFileName = new ClassDefinition(classInfo.className, "java").getBinaryTextPartsFileName();
+        String bundle = compiler.getBinaryContentBundle();
+        if (bundle != null) {
+            fields.append("\tprivate static final gg.jte.runtime.BinaryContent BINARY_CONTENT = gg.jte.runtime.BinaryContent.loadBundled").append(config.directBinaryStaticContent ? "Direct(" : "(")
+                    .append(classInfo.className)
+                    .append(".class, \"")
+                    .append(bundle)
+                    .append("\", ");
+        } else {
+            String contentFileName = new ClassDefinition(classInfo.className, "java").getBinaryTextPartsFileName();
 
-        fields.append("\tprivate static final gg.jte.runtime.BinaryContent BINARY_CONTENT = gg.jte.runtime.BinaryContent.load(")
-                .append(classInfo.className)
-                .append(".class, \"")
-                .append(contentFileName)
-                .append("\", ");
+            fields.append("\tprivate static final gg.jte.runtime.BinaryContent BINARY_CONTENT = gg.jte.runtime.BinaryContent.load").append(config.directBinaryStaticContent ? "Direct(" : "(")
+                    .append(classInfo.className)
+                    .append(".class, \"")
+                    .append(contentFileName)
+                    .append("\", ");
+        }
 
         for (int i = 0; i < binaryTextParts.size(); ++i) {
             if (i > 0) {
@@ -211,7 +342,21 @@ public class JavaCodeGenerator implements CodeGenerator {
 
     private void writeBinaryTextPartsConstants(StringBuilder fields) {
         for (int i = 0; i < binaryTextParts.size(); ++i) {
-            fields.append("\tprivate static final byte[] ").append(TEXT_PART_BINARY).append(i).append(" = BINARY_CONTENT.get(").append(i).append(");\n");
+            if (config.directBinaryStaticContent) {
+                fields.append("\tprivate static final java.nio.ByteBuffer ").append(TEXT_PART_BINARY).append(i).append(" = BINARY_CONTENT.getBuffer(").append(i).append(");\n");
+            } else {
+                fields.append("\tprivate static final byte[] ").append(TEXT_PART_BINARY).append(i).append(" = BINARY_CONTENT.get(").append(i).append(");\n");
+            }
+        }
+    }
+
+    private void writeHtmlAttributeNames(StringBuilder fields) {
+        for (Map.Entry<String, Integer> entry : htmlAttributeNames.entrySet()) {
+            fields.append("\tprivate static final String[] ").append(HTML_ATTRIBUTES).append(entry.getValue()).append(" = {");
+            if (!entry.getKey().isEmpty()) {
+                fields.append('"').append(entry.getKey().replace(" ", "\",\"")).append('"');
+            }
+            fields.append("};\n");
         }
     }
 
@@ -227,6 +372,8 @@ public class JavaCodeGenerator implements CodeGenerator {
             return;
         }
 
+        splitRenderMethodIfRequired(depth);
+
         if (config.binaryStaticContent) {
             writeTextBinary(depth, textPart);
         } else {
@@ -284,50 +431,62 @@ public class JavaCodeGenerator implements CodeGenerator {
         writeIndentation(depth);
         javaCode.append("jteOutput.writeContent(\"");
         javaCode.appendEscaped(text);
+        renderMethod.excludedLength += text.length();
         javaCode.append("\");\n");
     }
 
     @Override
     public void onCodePart(int depth, String codePart) {
+        splitRenderMethodIfRequired(depth);
         writeCodePart(depth, codePart);
     }
 
     @Override
     public void onHtmlTagBodyCodePart(int depth, String codePart, String tagName) {
-        writeIndentation(depth);
-        javaCode.append("jteOutput.setContext(\"").append(tagName).append("\", null);\n");
-
-        writeCodePart(depth, codePart);
+        splitRenderMethodIfRequired(depth);
+        writeCodePart(depth, codePart, CodeGenerator.getHtmlContextOutput(tagName, null));
     }
 
     @Override
     public void onHtmlTagAttributeCodePart(int depth, String codePart, String tagName, String attributeName) {
-        writeIndentation(depth);
-        javaCode.append("jteOutput.setContext(\"").append(tagName).append("\", \"").append(attributeName).append("\");\n");
-
-        writeCodePart(depth, codePart);
+        splitRenderMethodIfRequired(depth);
+        writeCodePart(depth, codePart, CodeGenerator.getHtmlContextOutput(tagName, attributeName));
     }
 
     @Override
     public void onUnsafeCodePart(int depth, String codePart) {
+        splitRenderMethodIfRequired(depth);
+
         if (config.contentType == ContentType.Html) {
-            writeIndentation(depth);
-            javaCode.append("jteOutput.setContext(null, null);\n");
+            writeCodePart(depth, codePart, "forUnescaped()");
+        } else {
+            writeCodePart(depth, codePart);
         }
-
-        writeCodePart(depth, codePart);
     }
 
     private void writeCodePart(int depth, String codePart) {
+        writeCodePart(depth, codePart, null);
+    }
+
+    private void writeCodePart(int depth, String codePart, String contextOutput) {
         writeIndentation(depth);
 
-        javaCode.append("jteOutput.writeUserContent(");
+        javaCode.append("jteOutput.");
+        if (contextOutput != null) {
+            javaCode.append(contextOutput).append(".");
+        }
+        javaCode.append("writeUserContent(");
         writeJavaCodeWithContentSupport(depth, codePart);
         javaCode.append(");\n");
     }
 
     @Override
     public void onCodeStatement(int depth, String codePart) {
+        splitRenderMethodIfRequired(depth);
+        if (renderMethod.blocks.isEmpty()) {
+            renderMethod.hasTopLevelVariables = true; // Types of local variables are unknown, they cannot be passed to the next part
+        }
+
         writeIndentation(depth);
         writeJavaCodeWithContentSupport(depth, codePart);
         javaCode.append(";\n");
@@ -335,6 +494,9 @@ public class JavaCodeGenerator implements CodeGenerator {
 
     @Override
     public void onConditionStart(int depth, String condition) {
+        splitRenderMethodIfRequired(depth);
+        renderMethod.blocks.push(Boolean.FALSE);
+
         writeIndentation(depth);
 
         javaCode.append("if (");
@@ -344,6 +506,8 @@ public class JavaCodeGenerator implements CodeGenerator {
 
     @Override
     public void onConditionElse(int depth, String condition) {
+        closeOutlinedBlocks(depth);
+
         writeIndentation(depth);
         javaCode.append("} else if (");
         javaCode.append(condition);
@@ -352,24 +516,140 @@ public class JavaCodeGenerator implements CodeGenerator {
 
     @Override
     public void onConditionElse(int depth) {
+        closeOutlinedBlocks(depth);
+
         writeIndentation(depth);
         javaCode.append("} else {\n");
     }
 
     @Override
     public void onConditionEnd(int depth) {
+        closeOutlinedBlocks(depth);
+        renderMethod.blocks.pop();
+
         writeIndentation(depth);
         javaCode.append("}\n");
     }
 
     @Override
     public void onForLoopStart(int depth, String codePart) {
+        splitRenderMethodIfRequired(depth);
+        renderMethod.blocks.push(codePart.indexOf(';') != -1); // Variables of basic for loops are not effectively final
+
         writeIndentation(depth);
-        javaCode.append("for (").append(codePart).append(") {\n");
+        javaCode.append("for (").append(rewriteForSupportLoop(codePart)).append(") {\n");
+    }
+
+    /**
+     * Loops over ForSupport.of(...) call ForSupport.advance() directly, instead of going through Iterable and Iterator.
+     * Together with the index-based ForSupport variants for lists and arrays, this results in a plain indexed loop.
+     * Only loop variables declared as var or as one of the ForSupport types are rewritten, a supertype like Object would
+     * neither compile nor have the same meaning.
+     *
+     * @return the rewritten loop header, or the given one if it is not a ForSupport loop
+     */
+    String rewriteForSupportLoop(String codePart) {
+        int colonIndex = codePart.indexOf(':');
+        if (colonIndex == -1) {
+            return codePart;
+        }
+
+        String declaration = codePart.substring(0, colonIndex).trim();
+        String expression = codePart.substring(colonIndex + 1).trim();
+        if (!isForSupportExpression(expression)) {
+            return codePart;
+        }
+
+        String variableName = getLoopVariableName(declaration);
+        if (variableName == null || !isForSupportType(declaration.substring(0, declaration.length() - variableName.length()))) {
+            return codePart;
+        }
+
+        return declaration + " = " + expression + "; " + variableName + ".advance(); ";
+    }
+
+    private boolean isForSupportExpression(String expression) {
+        int argumentsIndex;
+        if (expression.startsWith(FOR_SUPPORT_CLASS + ".of(")) {
+            argumentsIndex = FOR_SUPPORT_CLASS.length() + 3;
+        } else if (forSupportImported && expression.startsWith("ForSupport.of(")) {
+            argumentsIndex = "ForSupport.of".length();
+        } else {
+            return false;
+        }
+
+        // The parenthesis of ForSupport.of must be closed by the last character, otherwise there are further calls on the result
+        int depth = 0;
+        char quote = 0;
+        for (int i = argumentsIndex; i < expression.length(); ++i) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    ++i;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(') {
+                ++depth;
+            } else if (c == ')' && --depth == 0) {
+                return i == expression.length() - 1;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isForSupportType(String type) {
+        int genericsIndex = type.indexOf('<');
+        if (genericsIndex != -1) {
+            type = type.substring(0, genericsIndex);
+        }
+        type = type.trim();
+        if (type.indexOf('[') != -1) {
+            return false;
+        }
+
+        int modifierIndex = Math.max(type.lastIndexOf(' '), type.lastIndexOf('\t'));
+        type = type.substring(modifierIndex + 1);
+        if (type.startsWith(FOR_SUPPORT_PACKAGE)) {
+            type = type.substring(FOR_SUPPORT_PACKAGE.length());
+        }
+
+        return FOR_SUPPORT_TYPES.contains(type);
+    }
+
+    private static String getLoopVariableName(String declaration) {
+        int nameIndex = declaration.length();
+        while (nameIndex > 0 && Character.isJavaIdentifierPart(declaration.charAt(nameIndex - 1))) {
+            --nameIndex;
+        }
+
+        if (nameIndex == 0 || nameIndex == declaration.length() || !Character.isJavaIdentifierStart(declaration.charAt(nameIndex))) {
+            return null;
+        }
+
+        String type = declaration.substring(0, nameIndex).trim();
+        if (type.isEmpty()) {
+            return null;
+        }
+
+        for (int i = 0; i < type.length(); ++i) {
+            char c = type.charAt(i);
+            if (c == '(' || c == '=' || c == ';' || c == '"') {
+                return null;
+            }
+        }
+
+        return declaration.substring(nameIndex);
     }
 
     @Override
     public void onForLoopEnd(int depth) {
+        closeOutlinedBlocks(depth);
+        renderMethod.blocks.pop();
+
         writeIndentation(depth);
         javaCode.append("}\n");
     }
@@ -378,6 +658,7 @@ public class JavaCodeGenerator implements CodeGenerator {
     public void onTag(int depth, TemplateType type, String name, List<String> params) {
         ClassInfo tagInfo = compiler.generateTagOrLayout(type, name, "jte", classDefinitions, templateDependencies, getCurrentDebugInfo());
 
+        splitRenderMethodIfRequired(depth);
         writeIndentation(depth);
 
         javaCode.append(tagInfo.fullName).append(".render(jteOutput, jteHtmlInterceptor");
@@ -388,22 +669,25 @@ public class JavaCodeGenerator implements CodeGenerator {
 
     @Override
     public void onInterceptHtmlTagOpened(int depth, TemplateParser.HtmlTag htmlTag) {
+        splitRenderMethodIfRequired(depth);
         writeIndentation(depth);
-        javaCode.append("jteHtmlInterceptor.onHtmlTagOpened(\"").append(htmlTag.name).append("\", ");
-        writeAttributeMap(htmlTag);
-        javaCode.append(", jteOutput);\n");
+        javaCode.append("try { jteHtmlInterceptor.onHtmlTagOpened(\"").append(htmlTag.name).append("\", ");
+        writeHtmlAttributes(htmlTag);
+        javaCode.append(", jteOutput); } finally { jteOutput.releaseHtmlAttributes(); }\n");
     }
 
     @Override
     public void onInterceptHtmlAttributeStarted(int depth, TemplateParser.HtmlTag currentHtmlTag, TemplateParser.HtmlAttribute htmlAttribute) {
+        splitRenderMethodIfRequired(depth);
         writeIndentation(depth);
-        javaCode.append("jteHtmlInterceptor.onHtmlAttributeStarted(\"").append(htmlAttribute.name).append("\", ");
-        writeAttributeMap(currentHtmlTag);
-        javaCode.append(", jteOutput);\n");
+        javaCode.append("try { jteHtmlInterceptor.onHtmlAttributeStarted(\"").append(htmlAttribute.name).append("\", ");
+        writeHtmlAttributes(currentHtmlTag);
+        javaCode.append(", jteOutput); } finally { jteOutput.releaseHtmlAttributes(); }\n");
     }
 
     @Override
     public void onInterceptHtmlTagClosed(int depth, TemplateParser.HtmlTag htmlTag) {
+        splitRenderMethodIfRequired(depth);
         writeIndentation(depth);
         javaCode.append("jteHtmlInterceptor.onHtmlTagClosed(\"").append(htmlTag.name).append("\", jteOutput);\n");
     }
@@ -423,8 +707,23 @@ public class JavaCodeGenerator implements CodeGenerator {
         onConditionEnd(depth);
     }
 
-    private void writeAttributeMap(TemplateParser.HtmlTag htmlTag) {
-        CodeGenerator.writeAttributeMap(javaCode, htmlTag);
+    private void writeHtmlAttributes(TemplateParser.HtmlTag htmlTag) {
+        StringBuilder names = new StringBuilder();
+        for (TemplateParser.HtmlAttribute attribute : htmlTag.attributes) {
+            if (names.length() > 0) {
+                names.append(' ');
+            }
+            names.append(attribute.name);
+        }
+
+        Integer index = htmlAttributeNames.computeIfAbsent(names.toString(), n -> htmlAttributeNames.size());
+
+        javaCode.append("jteOutput.getHtmlAttributes().begin(").append(HTML_ATTRIBUTES).append(index).append(")");
+        for (TemplateParser.HtmlAttribute attribute : htmlTag.attributes) {
+            javaCode.append(".add(");
+            CodeGenerator.writeAttributeValue(javaCode, attribute);
+            javaCode.append(")");
+        }
     }
 
     private void writeJavaCodeWithContentSupport(int depth, String code) {
@@ -490,6 +789,106 @@ public class JavaCodeGenerator implements CodeGenerator {
         throw new TemplateException("Failed to compile template, error at " + classInfo.name + ":" + javaCode.getCurrentTemplateLine() + ". No parameter with name " + paramCallInfo.name + " is defined in " + name);
     }
 
+    /**
+     * Continues rendering in a new method, if the current one grew too large.
+     * This is possible between top level statements of a method, where no local variables of unknown type were declared.
+     * Within a loop or branch, the remaining body is outlined into a content block, as long as all local variables
+     * it may capture are effectively final.
+     */
+    private void splitRenderMethodIfRequired(int depth) {
+        if (javaCode.getLength() - renderMethod.startIndex - renderMethod.excludedLength < MAX_RENDER_METHOD_LENGTH) {
+            return;
+        }
+
+        if (renderMethod.blocks.isEmpty()) {
+            if (!renderMethod.hasTopLevelVariables) {
+                continueInNextPart();
+            }
+        } else if (isOutliningPossible()) {
+            outlineBlock(depth);
+        }
+    }
+
+    private void continueInNextPart() {
+        if (renderMethod.parent == null) {
+            String methodName = "renderPart" + (++renderMethod.partCount);
+
+            javaCode.append("\t\t").append(methodName).append("(jteOutput, jteHtmlInterceptor");
+            for (ParamInfo parameter : parameters) {
+                javaCode.append(", ").append(parameter.name);
+            }
+            javaCode.append(");\n");
+            javaCode.append("\t}\n");
+
+            javaCode.append("\tprivate static void ").append(methodName).append("(");
+            writeTemplateOutputParam();
+            javaCode.append(", gg.jte.html.HtmlInterceptor jteHtmlInterceptor");
+            for (ParamInfo parameter : parameters) {
+                javaCode.append(", ").append(parameter.type).append(' ').append(parameter.name);
+            }
+            javaCode.append(") {\n");
+        } else {
+            // Content blocks are anonymous classes, further methods of them can access the same captured variables
+            String methodName = "writeToPart" + (++renderMethod.partCount);
+
+            javaCode.append("\t\t").append(methodName).append("(jteOutput);\n");
+            javaCode.append("\t}\n");
+
+            javaCode.append("\tprivate void ").append(methodName).append("(");
+            writeTemplateOutputParam();
+            javaCode.append(") {\n");
+        }
+
+        renderMethod.startIndex = javaCode.getLength();
+        renderMethod.excludedLength = 0;
+    }
+
+    private boolean isOutliningPossible() {
+        if (hasCodeStatements) {
+            return false;
+        }
+
+        for (RenderMethod method = renderMethod; method != null; method = method.parent) {
+            if (method.blocks.contains(Boolean.TRUE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void outlineBlock(int depth) {
+        int codeStartIndex = javaCode.getLength();
+
+        writeIndentation(depth);
+        javaCode.append("new ").append(getContentClass()).append("() {\n");
+        writeIndentation(depth + 1);
+        javaCode.append("public void writeTo(");
+        writeTemplateOutputParam();
+        javaCode.append(") {\n");
+
+        renderMethod = new RenderMethod(renderMethod, true, codeStartIndex);
+    }
+
+    /**
+     * Outlined blocks end together with the loop or branch they were outlined from.
+     */
+    private void closeOutlinedBlocks(int depth) {
+        while (renderMethod.outlined && renderMethod.blocks.isEmpty()) {
+            writeIndentation(depth + 1);
+            javaCode.append("}\n");
+            writeIndentation(depth);
+            javaCode.append("}.writeTo(jteOutput);\n");
+
+            endRenderMethod();
+        }
+    }
+
+    private void endRenderMethod() {
+        RenderMethod method = renderMethod;
+        renderMethod = method.parent;
+        renderMethod.excludedLength += javaCode.getLength() - method.codeStartIndex;
+    }
+
     private void writeIndentation(int depth) {
         for (int i = 0; i < depth + 2; ++i) {
             javaCode.append('\t');
@@ -553,6 +952,7 @@ public class JavaCodeGenerator implements CodeGenerator {
         private void writeJavaCode() {
             javaCode.append(param, lastWrittenIndex + 1, startIndex - 2);
 
+            int codeStartIndex = javaCode.getLength();
             javaCode.append("new ").append(getContentClass()).append("() {\n");
 
             writeIndentation(depth + 1);
@@ -564,6 +964,8 @@ public class JavaCodeGenerator implements CodeGenerator {
             parser.setStartIndex(startIndex);
             parser.setEndIndex(endIndex);
             parser.setParamsComplete(true);
+
+            renderMethod = new RenderMethod(renderMethod, false, codeStartIndex);
             parser.parse(depth + 2);
 
             writeIndentation(depth + 1);
@@ -571,6 +973,7 @@ public class JavaCodeGenerator implements CodeGenerator {
 
             writeIndentation(depth);
             javaCode.append("}");
+            endRenderMethod();
 
             lastWrittenIndex = endIndex;
 
@@ -579,6 +982,31 @@ public class JavaCodeGenerator implements CodeGenerator {
         }
     }
 
+    /**
+     * A method that code is currently generated into. This is either the render method of the template,
+     * or the writeTo method of a content block, including outlined loop and branch bodies.
+     */
+    private static final class RenderMethod {
+        final RenderMethod parent;
+        /** The method was outlined from a loop or branch body of its parent */
+        final boolean outlined;
+        final int codeStartIndex;
+        /** Open loops and branches, true if they declare variables that are not effectively final */
+        final ArrayDeque<Boolean> blocks = new ArrayDeque<>();
+
+        int startIndex;
+        int excludedLength;
+        int partCount;
+        boolean hasTopLevelVariables;
+
+        RenderMethod(RenderMethod parent, boolean outlined, int startIndex) {
+            this.parent = parent;
+            this.outlined = outlined;
+            this.codeStartIndex = startIndex;
+            this.startIndex = startIndex;
+        }
+    }
+
     private static final class ParamCallInfo {
         final String name;
         final String data;
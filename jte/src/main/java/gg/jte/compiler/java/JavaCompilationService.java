@@ -0,0 +1,360 @@
+package gg.jte.compiler.java;
+
+import gg.jte.TemplateConfig;
+import gg.jte.TemplateException;
+import gg.jte.compiler.ClassDefinition;
+import gg.jte.runtime.ClassInfo;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Long-lived Java compiler for templates that are compiled on demand.
+ *
+ * A new javac run has to open and index every jar on the class path again, which dominates the compile time of
+ * a single template in applications with large class paths. This service keeps one file manager alive between
+ * compilations, so that opened class path archives are reused. The file manager is only replaced, if the class path
+ * changed, or one of its archives was modified. Call {@link #close()} to release the archives.
+ *
+ * Compilations are serialized, since javac file managers are not thread-safe.
+ */
+public final class JavaCompilationService implements Closeable {
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    private StandardJavaFileManager fileManager;
+    private List<String> classPath;
+    private long[] classPathFingerprint;
+
+    private volatile long compileCount;
+    private volatile long fileManagerCount;
+    private volatile long lastCompileNanos;
+    private volatile long totalCompileNanos;
+
+    /**
+     * Compiles the given source files, class files are written next to their sources.
+     * @param files absolute paths of the source files to compile
+     * @param classPath the class path to compile against
+     * @param config the template config
+     * @param classDirectory the directory containing all source files
+     * @param templateByClassName used to map compile errors to template lines
+     */
+    public synchronized void compile(String[] files, List<String> classPath, TemplateConfig config, Path classDirectory, Map<String, ClassInfo> templateByClassName) {
+        long start = System.nanoTime();
+        try {
+            StandardJavaFileManager fileManager = getFileManager(classPath);
+
+            List<String> options = createOptions(config);
+            options.add("-encoding");
+            options.add("UTF-8");
+
+            Path absoluteClassDirectory = classDirectory.toAbsolutePath();
+            run(fileManager, options, fileManager.getJavaFileObjects(files), templateByClassName, source -> getClassName(absoluteClassDirectory, source));
+        } finally {
+            recordCompileTime(start);
+        }
+    }
+
+    /**
+     * Compiles the given class definitions without touching the file system.
+     * @param classDefinitions the generated classes to compile
+     * @param classPath the class path to compile against
+     * @param config the template config
+     * @param templateByClassName used to map compile errors to template lines
+     * @return the bytecode of all compiled classes (including nested classes) by binary class name
+     */
+    public synchronized Map<String, byte[]> compile(Collection<ClassDefinition> classDefinitions, List<String> classPath, TemplateConfig config, Map<String, ClassInfo> templateByClassName) {
+        long start = System.nanoTime();
+        try {
+            List<JavaFileObject> sources = new ArrayList<>(classDefinitions.size());
+            for (ClassDefinition classDefinition : classDefinitions) {
+                sources.add(new SourceFile(classDefinition));
+            }
+
+            // Not closed on purpose, closing would close the shared file manager as well
+            MemoryFileManager fileManager = new MemoryFileManager(getFileManager(classPath));
+            run(fileManager, createOptions(config), sources, templateByClassName, source -> source instanceof SourceFile ? ((SourceFile) source).className : null);
+
+            Map<String, byte[]> result = new HashMap<>();
+            for (ClassFile classFile : fileManager.classFiles) {
+                result.put(classFile.className, classFile.getBytes());
+            }
+            return result;
+        } finally {
+            recordCompileTime(start);
+        }
+    }
+
+    /**
+     * @return how many compilations were run by this service.
+     */
+    public long getCompileCount() {
+        return compileCount;
+    }
+
+    /**
+     * @return how many file managers were created by this service. Every time the class path changes, a new file manager is required.
+     */
+    public long getFileManagerCount() {
+        return fileManagerCount;
+    }
+
+    /**
+     * @return the duration of the last compilation in nanoseconds, including failed compilations.
+     */
+    public long getLastCompileNanos() {
+        return lastCompileNanos;
+    }
+
+    /**
+     * @return the total duration of all compilations in nanoseconds.
+     */
+    public long getTotalCompileNanos() {
+        return totalCompileNanos;
+    }
+
+    private void recordCompileTime(long start) {
+        long nanos = System.nanoTime() - start;
+        lastCompileNanos = nanos;
+        totalCompileNanos += nanos;
+        compileCount++;
+    }
+
+    /**
+     * Closes the file manager and all class path archives it opened. The next compilation opens a new file manager.
+     */
+    @Override
+    public synchronized void close() {
+        if (fileManager == null) {
+            return;
+        }
+
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            fileManager = null;
+            classPath = null;
+            classPathFingerprint = null;
+        }
+    }
+
+    private StandardJavaFileManager getFileManager(List<String> classPath) {
+        long[] classPathFingerprint = createFingerprint(classPath);
+
+        if (fileManager != null) {
+            if (classPath.equals(this.classPath) && Arrays.equals(classPathFingerprint, this.classPathFingerprint)) {
+                return fileManager;
+            }
+
+            close();
+        }
+
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, Locale.ENGLISH, StandardCharsets.UTF_8);
+        if (!classPath.isEmpty()) {
+            List<File> files = new ArrayList<>(classPath.size());
+            for (String entry : classPath) {
+                files.add(new File(entry));
+            }
+
+            try {
+                fileManager.setLocation(StandardLocation.CLASS_PATH, files);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        this.fileManager = fileManager;
+        this.classPath = new ArrayList<>(classPath);
+        this.classPathFingerprint = classPathFingerprint;
+        fileManagerCount++;
+
+        return fileManager;
+    }
+
+    /**
+     * Archives are cached by the file manager, so their modification must be detected. Directories are listed by javac during every compilation.
+     */
+    private static long[] createFingerprint(List<String> classPath) {
+        long[] fingerprint = new long[classPath.size() * 2];
+        for (int i = 0; i < classPath.size(); ++i) {
+            File file = new File(classPath.get(i));
+            if (file.isFile()) {
+                fingerprint[2 * i] = file.lastModified();
+                fingerprint[2 * i + 1] = file.length();
+            }
+        }
+        return fingerprint;
+    }
+
+    private static List<String> createOptions(TemplateConfig config) {
+        List<String> options = new ArrayList<>();
+        if (config.compileArgs != null) {
+            options.addAll(Arrays.asList(config.compileArgs));
+        }
+        options.add("-parameters");
+        return options;
+    }
+
+    private void run(JavaFileManager fileManager, List<String> options, Iterable<? extends JavaFileObject> sources, Map<String, ClassInfo> templateByClassName, Function<JavaFileObject, String> classNameResolver) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+        if (!Boolean.TRUE.equals(success)) {
+            throw new TemplateException(getErrorMessage(diagnostics.getDiagnostics(), templateByClassName, classNameResolver));
+        }
+    }
+
+    private static String getClassName(Path classDirectory, JavaFileObject source) {
+        try {
+            String relativePath = classDirectory.relativize(Paths.get(source.toUri())).toString();
+            return relativePath.substring(0, relativePath.length() - JavaFileObject.Kind.SOURCE.extension.length()).replace(File.separatorChar, '.');
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String getErrorMessage(List<Diagnostic<? extends JavaFileObject>> diagnostics, Map<String, ClassInfo> templateByClassName, Function<JavaFileObject, String> classNameResolver) {
+        StringBuilder errors = new StringBuilder();
+        Diagnostic<? extends JavaFileObject> firstError = null;
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+
+            if (firstError == null) {
+                firstError = diagnostic;
+            }
+
+            appendError(errors, diagnostic);
+        }
+
+        if (firstError != null && firstError.getSource() != null) {
+            String className = classNameResolver.apply(firstError.getSource());
+            ClassInfo templateInfo = className == null ? null : templateByClassName.get(className);
+            long javaLine = firstError.getLineNumber();
+            if (templateInfo != null && javaLine > 0 && javaLine <= templateInfo.lineInfo.length) {
+                int templateLine = templateInfo.lineInfo[(int) javaLine - 1] + 1;
+                return "Failed to compile template, error at " + templateInfo.name + ":" + templateLine + "\n" + errors;
+            }
+        }
+
+        return "Failed to compile template, error at\n" + errors;
+    }
+
+    /**
+     * Formats the error the same way the javac command line tool does, including the source line and a caret below the error position.
+     */
+    private static void appendError(StringBuilder errors, Diagnostic<? extends JavaFileObject> diagnostic) {
+        String message = diagnostic.getMessage(Locale.ENGLISH);
+        int firstLineEnd = message.indexOf('\n');
+        String firstLine = firstLineEnd == -1 ? message : message.substring(0, firstLineEnd);
+
+        JavaFileObject source = diagnostic.getSource();
+        if (source != null) {
+            errors.append(source.getName()).append(':').append(diagnostic.getLineNumber()).append(": ");
+        }
+        errors.append("error: ").append(firstLine).append('\n');
+
+        if (source != null && diagnostic.getLineNumber() > 0) {
+            String line = getLine(source, (int) diagnostic.getLineNumber());
+            if (line != null) {
+                errors.append(line).append('\n');
+                for (long i = 1; i < diagnostic.getColumnNumber(); ++i) {
+                    errors.append(' ');
+                }
+                errors.append("^\n");
+            }
+        }
+
+        if (firstLineEnd != -1) {
+            errors.append(message, firstLineEnd + 1, message.length()).append('\n');
+        }
+    }
+
+    private static String getLine(JavaFileObject source, int lineNumber) {
+        String code;
+        try {
+            code = source.getCharContent(true).toString();
+        } catch (IOException e) {
+            return null;
+        }
+
+        int start = 0;
+        for (int i = 1; i < lineNumber; ++i) {
+            start = code.indexOf('\n', start) + 1;
+            if (start == 0) {
+                return null;
+            }
+        }
+
+        int end = code.indexOf('\n', start);
+        return end == -1 ? code.substring(start) : code.substring(start, end);
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        final String className;
+        private final String code;
+
+        SourceFile(ClassDefinition classDefinition) {
+            super(URI.create("string:///" + classDefinition.getSourceFileName()), Kind.SOURCE);
+            this.className = classDefinition.getName();
+            this.code = classDefinition.getCode();
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+        final String className;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.className = className;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+
+        byte[] getBytes() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        final List<ClassFile> classFiles = new ArrayList<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+            if (kind == JavaFileObject.Kind.CLASS) {
+                ClassFile classFile = new ClassFile(className);
+                classFiles.add(classFile);
+                return classFile;
+            }
+            return super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package gg.jte.resolve;
+
+import gg.jte.CodeResolver;
+import gg.jte.compiler.IoUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates one or more code resolvers with a size-bounded cache of template sources.
+ *
+ * Layers are looked up in the given order, the first layer that resolves a template wins. This allows to override
+ * some templates, for instance with a {@link ResourceCodeResolver} on top of a {@link DirectoryCodeResolver}.
+ * Once resolved, the layer owning a template is cached together with its source.
+ *
+ * A cached source is returned as long as the owning layer reports it unchanged and no layer of higher precedence
+ * started to provide the template. Layers of higher precedence are only asked for the template if their
+ * {@link CodeResolver#getGeneration() generation} changed or if they do not support generations. In case a layer reports a change,
+ * the source is resolved again and only considered changed if its content hash differs from the last resolved source,
+ * so that touching a file does not cause its templates to be compiled again.
+ */
+public class CachingCodeResolver implements CodeResolver {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final CodeResolver[] layers;
+    private final Map<String, Entry> cache;
+    private final ConcurrentHashMap<String, String> contentHashes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingCodeResolver(CodeResolver... layers) {
+        this(DEFAULT_MAX_SIZE, layers);
+    }
+
+    /**
+     * @param maxSize the maximum amount of template sources to keep in memory, least recently used sources are evicted first
+     * @param layers the code resolvers to look up templates in, in order of precedence
+     */
+    public CachingCodeResolver(int maxSize, CodeResolver... layers) {
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("At least one code resolver is required");
+        }
+
+        this.layers = layers.clone();
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public String resolve(String name) {
+        Entry entry = getCached(name);
+        if (entry != null && isUpToDate(name, entry)) {
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = resolveFromLayers(name);
+            if (entry == null) {
+                return null;
+            }
+        }
+
+        contentHashes.put(name, entry.hash);
+        return entry.code;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        Entry entry = getCached(name);
+        if (entry != null && isUpToDate(name, entry)) {
+            return true;
+        }
+
+        for (CodeResolver layer : layers) {
+            if (layer.exists(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares the content hash of the current source with the source that was last returned by {@link #resolve(String)}.
+     */
+    @Override
+    public boolean hasChanged(String name) {
+        Entry entry = getCached(name);
+        if (entry == null ? hasChangedUncached(name) : !isUpToDate(name, entry)) {
+            entry = resolveFromLayers(name);
+            if (entry == null) {
+                return true;
+            }
+        } else if (entry == null) {
+            return false;
+        }
+
+        return !entry.hash.equals(contentHashes.get(name));
+    }
+
+    private boolean isUpToDate(String name, Entry entry) {
+        if (layers[entry.layer].hasChanged(name)) {
+            return false;
+        }
+
+        for (int i = 0; i < entry.layer; ++i) {
+            long generation = layers[i].getGeneration();
+            if ((generation < 0 || generation != entry.generations[i]) && layers[i].exists(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasChangedUncached(String name) {
+        for (CodeResolver layer : layers) {
+            if (layer.hasChanged(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long getGeneration() {
+        long result = 0;
+        for (CodeResolver layer : layers) {
+            long generation = layer.getGeneration();
+            if (generation < 0) {
+                return -1;
+            }
+            result += generation;
+        }
+        return result;
+    }
+
+    /**
+     * Layers that do not support listing templates are skipped, unless none of the layers supports it.
+     */
+    @Override
+    public List<String> resolveAllTemplateNames() {
+        Set<String> result = new LinkedHashSet<>();
+        UnsupportedOperationException unsupported = null;
+        boolean supported = false;
+
+        for (CodeResolver layer : layers) {
+            try {
+                result.addAll(layer.resolveAllTemplateNames());
+                supported = true;
+            } catch (UnsupportedOperationException e) {
+                unsupported = e;
+            }
+        }
+
+        if (!supported) {
+            throw unsupported;
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Removes all cached template sources.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        contentHashes.clear();
+    }
+
+    /**
+     * @return how many templates were resolved from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many templates had to be resolved by one of the layers.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Entry getCached(String name) {
+        synchronized (cache) {
+            return cache.get(name);
+        }
+    }
+
+    private Entry resolveFromLayers(String name) {
+        long[] generations = new long[layers.length];
+        for (int i = 0; i < layers.length; ++i) {
+            generations[i] = layers[i].getGeneration();
+            String code = layers[i].resolve(name);
+            if (code != null) {
+                Entry entry = new Entry(i, Arrays.copyOf(generations, i), code);
+                synchronized (cache) {
+                    cache.put(name, entry);
+                }
+                return entry;
+            }
+        }
+
+        synchronized (cache) {
+            cache.remove(name);
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        final int layer;
+        final long[] generations;
+        final String code;
+        final String hash;
+
+        Entry(int layer, long[] generations, String code) {
+            this.layer = layer;
+            this.generations = generations;
+            this.code = code;
+            this.hash = IoUtils.hash(code);
+        }
+    }
+}
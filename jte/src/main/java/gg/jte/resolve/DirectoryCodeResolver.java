@@ -8,8 +8,12 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -17,6 +21,10 @@ public class DirectoryCodeResolver implements CodeResolver {
     private final Path root;
     private final ConcurrentMap<String, Long> modificationTimes = new ConcurrentHashMap<>();
 
+    private final Set<String> dirtyTemplates = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Thread watchThread;
+
     public DirectoryCodeResolver(Path root) {
         this.root = root;
     }
@@ -25,6 +33,8 @@ public class DirectoryCodeResolver implements CodeResolver {
     public String resolve(String name) {
         try {
             Path file = root.resolve(name);
+            // Must happen before reading, so that a modification during reading is not lost
+            dirtyTemplates.remove(name);
             byte[] bytes = Files.readAllBytes(file);
             modificationTimes.put(name, getLastModified(file));
             return new String(bytes, StandardCharsets.UTF_8);
@@ -48,11 +58,23 @@ public class DirectoryCodeResolver implements CodeResolver {
             return true;
         }
 
+        if (watchThread != null) {
+            return dirtyTemplates.contains(name);
+        }
+
         long lastModified = getLastModified(root.resolve(name));
 
         return lastModified != lastResolveTime;
     }
 
+    @Override
+    public long getGeneration() {
+        if (watchThread == null) {
+            return -1;
+        }
+        return generation.get();
+    }
+
     private long getLastModified(Path file) {
         return file.toFile().lastModified();
     }
@@ -73,4 +95,175 @@ public class DirectoryCodeResolver implements CodeResolver {
     public Path getRoot() {
         return root;
     }
+
+    /**
+     * Detects template changes by file system events instead of checking the modification time of every template
+     * and its dependencies before each render.
+     * @see #startWatching(long)
+     */
+    public void startWatching() {
+        startWatching(0);
+    }
+
+    /**
+     * Starts a daemon thread, that listens to file system events within the root directory. While watching,
+     * {@link #hasChanged(String)} is a lookup in the set of modified templates and no longer touches the file system.
+     *
+     * Some file systems (for instance network shares) do not reliably report events. For those, a sweep interval
+     * can be passed, after which the modification times of all resolved templates are compared as a fallback.
+     *
+     * @param sweepIntervalMillis interval of the modification time sweep in milliseconds, or 0 to rely on file system events only.
+     */
+    public synchronized void startWatching(long sweepIntervalMillis) {
+        if (watchThread != null) {
+            throw new IllegalStateException("Already watching " + root);
+        }
+
+        WatchService watchService;
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            registerRecursive(watchService, root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch " + root, e);
+        }
+
+        Thread thread = new Thread(() -> watch(watchService, sweepIntervalMillis));
+        thread.setName("jte-directory-code-resolver");
+        thread.setDaemon(true);
+
+        watchThread = thread;
+
+        // Templates resolved before the watch service was registered could have been modified in the meantime
+        sweep();
+
+        thread.start();
+    }
+
+    /**
+     * Stops watching the root directory. Afterwards, modification times are checked before each render again.
+     */
+    public synchronized void stopWatching() {
+        Thread thread = watchThread;
+        if (thread == null) {
+            return;
+        }
+
+        watchThread = null;
+        thread.interrupt();
+    }
+
+    private void watch(WatchService watchService, long sweepIntervalMillis) {
+        try (WatchService ignored = watchService) {
+            long nextSweep = System.currentTimeMillis() + sweepIntervalMillis;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey watchKey;
+                if (sweepIntervalMillis > 0) {
+                    watchKey = watchService.poll(Math.max(1, nextSweep - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } else {
+                    watchKey = watchService.take();
+                }
+
+                if (watchKey != null) {
+                    try {
+                        handleEvents(watchService, watchKey);
+                    } finally {
+                        watchKey.reset();
+                    }
+                }
+
+                if (sweepIntervalMillis > 0 && System.currentTimeMillis() >= nextSweep) {
+                    sweep();
+                    nextSweep = System.currentTimeMillis() + sweepIntervalMillis;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Watching was stopped
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch " + root, e);
+        } finally {
+            stopped(Thread.currentThread());
+        }
+    }
+
+    /**
+     * If the watch thread ends for any other reason than {@link #stopWatching()}, the resolver must fall back to
+     * modification time checks. Otherwise, template changes would no longer be detected at all.
+     */
+    private synchronized void stopped(Thread thread) {
+        if (watchThread == thread) {
+            watchThread = null;
+        }
+    }
+
+    private void handleEvents(WatchService watchService, WatchKey watchKey) {
+        Path directory = (Path) watchKey.watchable();
+
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                markAllDirty();
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                try {
+                    registerRecursive(watchService, file);
+                    markDirtyRecursive(file); // Files could have been written before the directory was registered
+                } catch (IOException | UncheckedIOException e) {
+                    // The directory (or one of its children) was deleted again while walking it, which happens a lot
+                    // with temporary directories of build tools. We cannot tell what was missed, so play it safe.
+                    markAllDirty();
+                }
+                continue;
+            }
+
+            String name = root.relativize(file).toString().replace('\\', '/');
+            if (IoUtils.isTemplateFile(name)) {
+                markDirty(name);
+            }
+        }
+    }
+
+    private void registerRecursive(WatchService watchService, Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
+            for (Path path : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+                path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void markDirtyRecursive(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                String name = root.relativize(path).toString().replace('\\', '/');
+                if (IoUtils.isTemplateFile(name)) {
+                    markDirty(name);
+                }
+            }
+        }
+    }
+
+    private void sweep() {
+        for (Map.Entry<String, Long> entry : modificationTimes.entrySet()) {
+            if (getLastModified(root.resolve(entry.getKey())) != entry.getValue()) {
+                markDirty(entry.getKey());
+            }
+        }
+    }
+
+    private void markAllDirty() {
+        for (String name : modificationTimes.keySet()) {
+            markDirty(name);
+        }
+    }
+
+    /**
+     * The template must be marked dirty before the generation is incremented,
+     * otherwise a concurrent render could cache the new generation as unchanged.
+     */
+    private void markDirty(String name) {
+        dirtyTemplates.add(name);
+        generation.incrementAndGet();
+    }
 }
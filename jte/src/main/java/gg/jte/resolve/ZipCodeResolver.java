@@ -0,0 +1,306 @@
+package gg.jte.resolve;
+
+import gg.jte.CodeResolver;
+import gg.jte.compiler.IoUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Resolves templates from a zip or jar archive, for instance templates packaged within a fat jar.
+ *
+ * The archive is memory-mapped once and its central directory is read into a hash index, so that lookups do not
+ * need to go through a class loader. Since the archive is expected to be immutable, templates never change.
+ */
+public class ZipCodeResolver implements CodeResolver {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+
+    private static final int ZIP64_EXTENDED_INFORMATION = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final Path archive;
+    private final String root;
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+
+    public ZipCodeResolver(Path archive) {
+        this(archive, null);
+    }
+
+    /**
+     * @param archive the zip or jar file
+     * @param root the directory within the archive containing all templates, or null if templates are located at the top level
+     */
+    public ZipCodeResolver(Path archive, String root) {
+        this.archive = archive;
+        this.root = root == null || root.isEmpty() ? "" : root + "/";
+
+        try {
+            buffer = map(archive);
+            entries = readEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + archive, e);
+        }
+    }
+
+    @Override
+    public String resolve(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            return entry.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + root + name + " from " + archive, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return entries.containsKey(name);
+    }
+
+    @Override
+    public boolean hasChanged(String name) {
+        return false;
+    }
+
+    @Override
+    public List<String> resolveAllTemplateNames() {
+        List<String> result = new ArrayList<>();
+        for (String name : entries.keySet()) {
+            if (IoUtils.isTemplateFile(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    public Path getArchive() {
+        return archive;
+    }
+
+    private static ByteBuffer map(Path archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ZipException("Archives larger than 2GB are not supported");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private Map<String, Entry> readEntries() throws IOException {
+        int endOfCentralDirectory = findEndOfCentralDirectory();
+
+        long entryCount = Short.toUnsignedInt(buffer.getShort(endOfCentralDirectory + 10));
+        long centralDirectoryOffset = Integer.toUnsignedLong(buffer.getInt(endOfCentralDirectory + 16));
+
+        int zip64Locator = endOfCentralDirectory - 20;
+        if (zip64Locator >= 0 && buffer.getInt(zip64Locator) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+            int zip64EndOfCentralDirectory = toPosition(buffer.getLong(zip64Locator + 8));
+            if (buffer.getInt(zip64EndOfCentralDirectory) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new ZipException("Invalid zip64 end of central directory record");
+            }
+            entryCount = buffer.getLong(zip64EndOfCentralDirectory + 32);
+            centralDirectoryOffset = buffer.getLong(zip64EndOfCentralDirectory + 48);
+        }
+
+        Map<String, Entry> result = new HashMap<>();
+
+        int position = toPosition(centralDirectoryOffset);
+        for (long i = 0; i < entryCount; ++i) {
+            if (buffer.getInt(position) != CENTRAL_DIRECTORY_ENTRY) {
+                throw new ZipException("Invalid central directory entry at offset " + position);
+            }
+
+            int flags = Short.toUnsignedInt(buffer.getShort(position + 8));
+            int method = Short.toUnsignedInt(buffer.getShort(position + 10));
+            long compressedSize = Integer.toUnsignedLong(buffer.getInt(position + 20));
+            long size = Integer.toUnsignedLong(buffer.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(position + 42));
+
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                // Values that do not fit into 32 bits are stored in the zip64 extended information extra field, in this order
+                int field = findExtraField(position + 46 + nameLength, extraLength, ZIP64_EXTENDED_INFORMATION);
+                if (field != -1) {
+                    int fieldPosition = field + 4;
+                    int fieldEnd = fieldPosition + Short.toUnsignedInt(buffer.getShort(field + 2));
+                    if (size == ZIP64_MAGIC && fieldPosition + 8 <= fieldEnd) {
+                        size = buffer.getLong(fieldPosition);
+                        fieldPosition += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC && fieldPosition + 8 <= fieldEnd) {
+                        compressedSize = buffer.getLong(fieldPosition);
+                        fieldPosition += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC && fieldPosition + 8 <= fieldEnd) {
+                        localHeaderOffset = buffer.getLong(fieldPosition);
+                    }
+                }
+            }
+
+            String name = decode(position + 46, nameLength);
+            if (name.startsWith(root) && !name.endsWith("/")) {
+                result.put(name.substring(root.length()), new Entry(flags, method, compressedSize, size, localHeaderOffset));
+            }
+
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+
+        return result;
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int last = buffer.capacity() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT_SIZE);
+        for (int position = last; position >= first; --position) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+                return position;
+            }
+        }
+        throw new ZipException("End of central directory record not found, is this a zip file?");
+    }
+
+    /**
+     * @return the position of the extra field with the given header id, or -1 if there is none
+     */
+    private int findExtraField(int position, int length, int headerId) {
+        int end = Math.min(position + length, buffer.capacity());
+        while (position + 4 <= end) {
+            int id = Short.toUnsignedInt(buffer.getShort(position));
+            int size = Short.toUnsignedInt(buffer.getShort(position + 2));
+            if (id == headerId) {
+                return position + 4 + size <= end ? position : -1;
+            }
+            position += 4 + size;
+        }
+        return -1;
+    }
+
+    private int toPosition(long value) throws ZipException {
+        if (value < 0 || value > buffer.capacity()) {
+            throw new ZipException("Invalid offset or size " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes UTF-8 directly from the mapped archive, without copying the bytes first.
+     */
+    private String decode(int position, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        ((Buffer) slice).limit(position + length).position(position);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    private final class Entry {
+        private final int flags;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        Entry(int flags, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.flags = flags;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        /**
+         * Sizes and offsets are validated when the entry is read, so that a single broken entry does not fail the whole archive.
+         */
+        String read() throws IOException {
+            if (size < 0 || size > Integer.MAX_VALUE - 8 || compressedSize < 0 || localHeaderOffset < 0 || localHeaderOffset > buffer.capacity() - 30) {
+                throw new ZipException("Invalid entry, size " + size + " or offset " + localHeaderOffset + " is out of range");
+            }
+
+            if ((flags & 1) != 0) {
+                throw new ZipException("Encrypted entries are not supported");
+            }
+
+            int header = (int) localHeaderOffset;
+            if (buffer.getInt(header) != LOCAL_FILE_HEADER) {
+                throw new ZipException("Invalid local file header at offset " + header);
+            }
+
+            int nameLength = Short.toUnsignedInt(buffer.getShort(header + 26));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(header + 28));
+            int data = toPosition((long) header + 30 + nameLength + extraLength);
+            int length = toPosition((long) data + compressedSize) - data;
+
+            if (method == STORED) {
+                return decode(data, length);
+            } else if (method == DEFLATED) {
+                return inflate(data, length, (int) size);
+            } else {
+                throw new ZipException("Unsupported compression method " + method);
+            }
+        }
+
+        private String inflate(int data, int compressedSize, int size) throws IOException {
+            byte[] input = new byte[compressedSize];
+            ByteBuffer compressed = buffer.duplicate();
+            ((Buffer) compressed).position(data);
+            compressed.get(input);
+
+            byte[] output = new byte[size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(input);
+                int length = 0;
+                while (length < size && !inflater.finished()) {
+                    int inflated = inflater.inflate(output, length, size - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+
+                if (length != size) {
+                    throw new ZipException("Invalid compressed data, expected " + size + " bytes but got " + length);
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed data: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+
+            return new String(output, StandardCharsets.UTF_8);
+        }
+    }
+}
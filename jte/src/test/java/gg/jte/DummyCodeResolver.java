@@ -22,6 +22,10 @@ public class DummyCodeResolver implements CodeResolver {
         codeLookup.put(name, code);
     }
 
+    public void remove(String name) {
+        codeLookup.remove(name);
+    }
+
     @Override
     public List<String> resolveAllTemplateNames() {
         return new ArrayList<>(codeLookup.keySet());
@@ -0,0 +1,126 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class TemplateEngine_ArrayParamsTest {
+    StringOutput output = new StringOutput();
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, ContentType.Plain);
+
+    @Test
+    void tag() {
+        givenTag("card", "@param String firstParam\n" +
+                "@param int secondParam\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        templateEngine.renderTag("tag/card.jte", output, "Hello", 42);
+
+        thenOutputIs("One: Hello, two: 42");
+    }
+
+    @Test
+    void tag_defaultParams() {
+        givenTag("card", "@param String firstParam\n" +
+                "@param int secondParam = 3\n" +
+                "@param String thirdParam = \"test\"\n" +
+                "One: ${firstParam}, two: ${secondParam}, three: ${thirdParam}");
+
+        templateEngine.renderTag("tag/card.jte", output, "Hello");
+
+        thenOutputIs("One: Hello, two: 3, three: test");
+    }
+
+    @Test
+    void tag_defaultParamOverridden() {
+        givenTag("card", "@param String firstParam = \"test\"\n" +
+                "@param long secondParam = 3L\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        templateEngine.renderTag("tag/card.jte", output, "Hello", 42L);
+
+        thenOutputIs("One: Hello, two: 42");
+    }
+
+    @Test
+    void tag_noParams() {
+        givenTag("card", "Hello");
+
+        templateEngine.renderTag("tag/card.jte", output);
+
+        thenOutputIs("Hello");
+    }
+
+    @Test
+    void tag_tooFewParams() {
+        givenTag("card", "@param String firstParam\n" +
+                "@param int secondParam\n" +
+                "@param String thirdParam = \"test\"\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        Throwable throwable = catchThrowable(() -> templateEngine.renderTag("tag/card.jte", output, "Hello"));
+
+        assertThat(throwable).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.jte, expected 2 to 3 parameters, got 1");
+    }
+
+    @Test
+    void tag_tooManyParams() {
+        givenTag("card", "@param String firstParam\n" +
+                "One: ${firstParam}");
+
+        Throwable throwable = catchThrowable(() -> templateEngine.renderTag("tag/card.jte", output, "Hello", 42));
+
+        assertThat(throwable).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.jte, expected 1 parameters, got 2");
+    }
+
+    @Test
+    void tag_requiredParamAfterDefaultParam() {
+        givenTag("card", "@param String firstParam = \"test\"\n" +
+                "@param int secondParam\n" +
+                "One: ${firstParam}, two: ${secondParam}");
+
+        Throwable throwable = catchThrowable(() -> templateEngine.renderTag("tag/card.jte", output, "Hello"));
+
+        assertThat(throwable).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.jte, expected 2 parameters, got 1");
+    }
+
+    @Test
+    void tag_varargsAreNotSupported() {
+        givenTag("card", "@param String firstParam\n" +
+                "@param String... rest\n" +
+                "One: ${firstParam}, rest: ${rest.length}");
+
+        Throwable throwable = catchThrowable(() -> templateEngine.renderTag("tag/card.jte", output, "Hello"));
+
+        assertThat(throwable).isInstanceOf(TemplateException.class).hasMessage("Failed to render tag/card.jte, templates with varargs parameters cannot be rendered with positional parameters");
+    }
+
+    @Test
+    void layout_oneParamAndTwoDefinitions() {
+        givenLayout("page", "@param String name\n" +
+                "@param gg.jte.Content content\n" +
+                "@param gg.jte.Content footer\n" +
+                "Hello ${name} ${content}, ${footer}");
+
+        templateEngine.renderLayout("layout/page.jte", output, "jte", (Content) output -> output.writeContent("<p>content</p>"), (Content) output -> output.writeContent("<p>footer</p>"));
+
+        thenOutputIs("Hello jte <p>content</p>, <p>footer</p>");
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private void givenTag(String name, String code) {
+        dummyCodeResolver.givenCode("tag/" + name + ".jte", code);
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private void givenLayout(String name, String code) {
+        dummyCodeResolver.givenCode("layout/" + name + ".jte", code);
+    }
+
+    private void thenOutputIs(String expected) {
+        assertThat(output.toString()).isEqualTo(expected);
+    }
+}
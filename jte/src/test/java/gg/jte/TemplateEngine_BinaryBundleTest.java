@@ -0,0 +1,141 @@
+package gg.jte;
+
+import gg.jte.output.Utf8ByteOutput;
+import gg.jte.output.Utf8StreamOutput;
+import gg.jte.runtime.BinaryContentBundle;
+import gg.jte.runtime.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateEngine_BinaryBundleTest {
+
+    DummyCodeResolver codeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+
+    @BeforeEach
+    void setUp() {
+        TemplateEngine.create(codeResolver, classDirectory, ContentType.Html, null, Constants.PACKAGE_NAME_ON_DEMAND).cleanAll();
+
+        codeResolver.givenCode("tag/greeting.jte", "@param String name\n<b>Hello ${name}!</b>");
+        codeResolver.givenCode("page.jte", "<p>@tag.greeting(name = \"page\")</p>");
+        codeResolver.givenCode("other.jte", "<i>Grüße</i>");
+    }
+
+    @Test
+    void singleResource() throws IOException {
+        createPrecompiler().precompileAll();
+
+        assertThat(findBinaryResources()).containsExactly(BinaryContentBundle.FILE_NAME);
+        thenOutputIs("page.jte", "<p><b>Hello page!</b></p>");
+        thenOutputIs("other.jte", "<i>Grüße</i>");
+    }
+
+    @Test
+    void direct() throws IOException {
+        TemplateEngine precompiler = createPrecompiler();
+        precompiler.setDirectBinaryStaticContent(true);
+        precompiler.precompileAll();
+
+        TemplateEngine templateEngine = TemplateEngine.createPrecompiled(classDirectory, ContentType.Html, null, Constants.PACKAGE_NAME_ON_DEMAND);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Utf8StreamOutput output = new Utf8StreamOutput(os);
+        templateEngine.render("page.jte", null, output);
+        output.flush();
+
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("<p><b>Hello page!</b></p>");
+    }
+
+    @Test
+    void bundleIsLoadedPerTemplateLoader() {
+        createPrecompiler().precompileAll();
+        TemplateEngine templateEngine = TemplateEngine.createPrecompiled(classDirectory, ContentType.Html, null, Constants.PACKAGE_NAME_ON_DEMAND);
+        thenOutputIs(templateEngine, "other.jte", "<i>Grüße</i>");
+
+        codeResolver.givenCode("other.jte", "<i>Grüße!</i>");
+        createPrecompiler().precompileAll();
+
+        thenOutputIs("other.jte", "<i>Grüße!</i>");
+        thenOutputIs(templateEngine, "page.jte", "<p><b>Hello page!</b></p>");
+    }
+
+    @Test
+    void generateOnly() throws IOException {
+        createPrecompiler().generateAll();
+
+        assertThat(findBinaryResources()).containsExactly(BinaryContentBundle.FILE_NAME);
+    }
+
+    @Test
+    void incremental() {
+        TemplateEngine precompiler = createPrecompiler();
+        precompiler.setIncrementalCompilation(true);
+        precompiler.precompileAll();
+
+        codeResolver.givenCode("other.jte", "<i>Grüße!</i>");
+
+        precompiler = createPrecompiler();
+        precompiler.setIncrementalCompilation(true);
+        assertThat(precompiler.precompileAll()).hasSize(1);
+
+        thenOutputIs("page.jte", "<p><b>Hello page!</b></p>");
+        thenOutputIs("other.jte", "<i>Grüße!</i>");
+    }
+
+    @Test
+    void onDemandTemplatesAreNotBundled() throws IOException {
+        TemplateEngine templateEngine = createPrecompiler();
+
+        Utf8ByteOutput output = new Utf8ByteOutput();
+        templateEngine.render("page.jte", null, output);
+
+        assertThat(toString(output)).isEqualTo("<p><b>Hello page!</b></p>");
+        assertThat(findBinaryResources()).containsExactlyInAnyOrder("JtepageGenerated.bin", "JtegreetingGenerated.bin");
+    }
+
+    private TemplateEngine createPrecompiler() {
+        TemplateEngine templateEngine = TemplateEngine.create(codeResolver, classDirectory, ContentType.Html, null, Constants.PACKAGE_NAME_ON_DEMAND);
+        templateEngine.setBinaryStaticContent(true);
+        templateEngine.setBundleBinaryStaticContent(true);
+        return templateEngine;
+    }
+
+    private List<String> findBinaryResources() throws IOException {
+        try (Stream<Path> files = Files.walk(classDirectory.resolve(Constants.PACKAGE_NAME_ON_DEMAND.replace('.', '/')))) {
+            return files.map(p -> p.getFileName().toString()).filter(n -> n.endsWith(".bin") && !n.equals("jte-manifest.bin")).collect(Collectors.toList());
+        }
+    }
+
+    private void thenOutputIs(String name, String expected) {
+        thenOutputIs(TemplateEngine.createPrecompiled(classDirectory, ContentType.Html, null, Constants.PACKAGE_NAME_ON_DEMAND), name, expected);
+    }
+
+    private void thenOutputIs(TemplateEngine templateEngine, String name, String expected) {
+        Utf8ByteOutput output = new Utf8ByteOutput();
+        templateEngine.render(name, null, output);
+
+        assertThat(toString(output)).isEqualTo(expected);
+    }
+
+    private String toString(Utf8ByteOutput output) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            output.writeTo(os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
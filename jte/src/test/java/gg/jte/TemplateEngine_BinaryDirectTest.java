@@ -0,0 +1,16 @@
+package gg.jte;
+
+import org.junit.jupiter.api.BeforeEach;
+
+/**
+ * Ensure the template engine test works with off-heap binary content, too
+ */
+public class TemplateEngine_BinaryDirectTest extends TemplateEngineTest {
+    @Override
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        templateEngine.setBinaryStaticContent(true);
+        templateEngine.setDirectBinaryStaticContent(true);
+    }
+}
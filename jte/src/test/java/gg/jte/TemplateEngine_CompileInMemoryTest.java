@@ -0,0 +1,34 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ensure the template engine test works with in memory compilation, too
+ */
+public class TemplateEngine_CompileInMemoryTest extends TemplateEngineTest {
+    @Override
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        templateEngine.setCompileInMemory(true);
+        templateEngine.setBinaryStaticContent(true);
+    }
+
+    @Test
+    void noFilesAreWritten() {
+        dummyCodeResolver.givenCode("test/hello.jte", "@param String hello\n${hello} World");
+
+        StringOutput output = new StringOutput();
+        templateEngine.render("test/hello.jte", "Hello", output);
+
+        assertThat(output.toString()).isEqualTo("Hello World");
+
+        assertThat(Paths.get("jte-classes", "gg", "jte", "generated", "ondemand", "test")).doesNotExist();
+    }
+}
@@ -0,0 +1,114 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ensures that loops over ForSupport do not go through Iterable and Iterator
+ */
+public class TemplateEngine_ForSupportTest {
+
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Plain);
+
+    @BeforeEach
+    void setUp() {
+        templateEngine.cleanAll();
+    }
+
+    @Test
+    void list() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param java.util.List<String> items\n" +
+                "@for(var item : ForSupport.of(items))${item.getIndex()}:${item.get()}@if(!item.isLast()),@endif@endfor");
+        thenOutputIs("0:a,1:b,2:c", true, Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    void iterable() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param java.util.Set<String> items\n" +
+                "@for(var item : ForSupport.of(items))${item.get()}@if(item.isFirst())!@endif@if(!item.isLast()),@endif@endfor");
+        thenOutputIs("a!,b,c", true, new LinkedHashSet<>(Arrays.asList("a", "b", "c")));
+    }
+
+    @Test
+    void array() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param String[] items\n" +
+                "@for(gg.jte.support.ForSupport<String> item : ForSupport.of(items))${item.get()}@if(!item.isLast()),@endif@endfor");
+        thenOutputIs("a,b,c", true, (Object) new String[]{"a", "b", "c"});
+    }
+
+    @Test
+    void intArray() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param int[] items\n" +
+                "@for(final var item : ForSupport.of(items))${item.get() * 2}@if(!item.isLast()),@endif@endfor");
+        thenOutputIs("2,4,6", true, (Object) new int[]{1, 2, 3});
+    }
+
+    @Test
+    void empty() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param long[] items\n" +
+                "@for(var item : ForSupport.of(items))${item.get()}@endfor!");
+        thenOutputIs("!", true, (Object) new long[0]);
+    }
+
+    @Test
+    void fullyQualified() throws IOException {
+        givenTemplate("@param double[] items\n" +
+                "@for(var item : gg.jte.support.ForSupport.of(items))${item.get()} @endfor");
+        thenOutputIs("1.5 2.5 ", true, (Object) new double[]{1.5, 2.5});
+    }
+
+    @Test
+    void supertypeDeclared() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param java.util.List<String> items\n" +
+                "@for(Object item : ForSupport.of(items))${(String)((ForSupport<?>)item).get()}@endfor");
+        thenOutputIs("ab", false, Arrays.asList("a", "b"));
+    }
+
+    @Test
+    void intForSupportDeclared() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param int[] items\n" +
+                "@for(final gg.jte.support.IntForSupport item : ForSupport.of(items))${item.get()}@endfor");
+        thenOutputIs("12", true, (Object) new int[]{1, 2});
+    }
+
+    @Test
+    void notImported() throws IOException {
+        givenTemplate("@param java.util.List<String> items\n" +
+                "@for(var item : items)${item}@endfor");
+        thenOutputIs("ab", false, Arrays.asList("a", "b"));
+    }
+
+    @Test
+    void furtherCallsOnResult() throws IOException {
+        givenTemplate("@import gg.jte.support.ForSupport\n@param java.util.List<String> items\n" +
+                "@for(var item : ForSupport.of(items).iterator().next().get().split(\",\"))${item}.@endfor");
+        thenOutputIs("a.b.", false, Arrays.asList("a,b", "c"));
+    }
+
+    private void givenTemplate(String code) {
+        dummyCodeResolver.givenCode("test.jte", code);
+    }
+
+    private void thenOutputIs(String expected, boolean rewritten, Object param) throws IOException {
+        StringOutput output = new StringOutput();
+        templateEngine.render("test.jte", param, output);
+
+        assertThat(output.toString()).isEqualTo(expected);
+
+        String javaCode = new String(Files.readAllBytes(classDirectory.resolve("gg/jte/generated/ondemand/JtetestGenerated.java")), StandardCharsets.UTF_8);
+        assertThat(javaCode.contains("item.advance();")).isEqualTo(rewritten);
+    }
+}
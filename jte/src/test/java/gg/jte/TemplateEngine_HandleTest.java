@@ -0,0 +1,87 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TemplateEngine_HandleTest {
+    StringOutput output = new StringOutput();
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, ContentType.Plain);
+
+    @Test
+    void template() {
+        dummyCodeResolver.givenCode("page.jte", "@param String name\nHello ${name}!");
+
+        TemplateHandle<String> handle = templateEngine.handle("page.jte", String.class);
+        handle.render("jte", output);
+
+        assertThat(output.toString()).isEqualTo("Hello jte!");
+        assertThat(handle.getName()).isEqualTo("page.jte");
+        assertThat(handle.getParamType()).isEqualTo(String.class);
+    }
+
+    @Test
+    void reuse() {
+        dummyCodeResolver.givenCode("page.jte", "@param String name\n${name}");
+
+        TemplateHandle<String> handle = templateEngine.handle("page.jte", String.class);
+        handle.render("a", output);
+        handle.render("b", output);
+
+        assertThat(output.toString()).isEqualTo("ab");
+    }
+
+    @Test
+    void subType() {
+        dummyCodeResolver.givenCode("page.jte", "@param Object name\n${name.toString()}");
+
+        templateEngine.handle("page.jte", String.class).render("jte", output);
+
+        assertThat(output.toString()).isEqualTo("jte");
+    }
+
+    @Test
+    void primitive() {
+        dummyCodeResolver.givenCode("page.jte", "@param long value\n${value}");
+
+        templateEngine.handle("page.jte", Integer.class).render(42, output);
+
+        assertThat(output.toString()).isEqualTo("42");
+    }
+
+    @Test
+    void noParam() {
+        dummyCodeResolver.givenCode("page.jte", "Hello!");
+
+        templateEngine.handle("page.jte", Object.class).render(null, output);
+
+        assertThat(output.toString()).isEqualTo("Hello!");
+    }
+
+    @Test
+    void typeMismatch() {
+        dummyCodeResolver.givenCode("page.jte", "@param String name\n${name}");
+
+        assertThatThrownBy(() -> templateEngine.handle("page.jte", Integer.class))
+                .isInstanceOf(TemplateException.class)
+                .hasMessage("Failed to bind page.jte, type mismatch for parameter: Expected java.lang.String, got java.lang.Integer");
+    }
+
+    @Test
+    void multipleParams() {
+        dummyCodeResolver.givenCode("page.jte", "@param String first\n@param String second\n${first}${second}");
+
+        assertThatThrownBy(() -> templateEngine.handle("page.jte", String.class))
+                .isInstanceOf(TemplateException.class)
+                .hasMessage("Failed to bind page.jte, the template does not have exactly one parameter");
+    }
+
+    @Test
+    void notFound() {
+        assertThatThrownBy(() -> templateEngine.handle("missing.jte", String.class))
+                .isInstanceOf(TemplateNotFoundException.class);
+    }
+}
@@ -56,6 +56,24 @@ class TemplateEngine_HotReloadTest {
         thenTemplateOutputIs("Hello hot reload!!!");
     }
 
+    @Test
+    void handle() {
+        whenFileIsWritten(TEMPLATE, "@param String name\nHello ${name}!");
+        TemplateHandle<String> handle = templateEngine.handle(TEMPLATE, String.class);
+        thenHandleOutputIs(handle, "Hello hot reload!");
+
+        TestUtils.sleepIfLegacyJavaVersion(1000); // File.getLastModified() only has seconds precision on most Java 8 versions
+
+        whenFileIsWritten(TEMPLATE, "@param String name\nHello ${name}!!!");
+        thenHandleOutputIs(handle, "Hello hot reload!!!");
+    }
+
+    private void thenHandleOutputIs(TemplateHandle<String> handle, String expected) {
+        StringOutput output = new StringOutput();
+        handle.render("hot reload", output);
+        assertThat(output.toString()).isEqualTo(expected);
+    }
+
     private void thenTemplateOutputIs(String expected) {
         StringOutput output = new StringOutput();
         templateEngine.render(TEMPLATE, "hot reload", output);
@@ -0,0 +1,143 @@
+package gg.jte;
+
+import gg.jte.html.HtmlAttributes;
+import gg.jte.html.HtmlAttributesInterceptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ensure the html interceptor test works with the flyweight attributes API, too
+ */
+public class TemplateEngine_HtmlAttributesInterceptorTest extends TemplateEngine_HtmlInterceptorTest {
+
+    MySampleAttributesInterceptor attributesInterceptor = new MySampleAttributesInterceptor();
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        templateEngine.setHtmlInterceptor(attributesInterceptor);
+    }
+
+    @Test
+    void attributesAreReused() {
+        dummyCodeResolver.givenCode("page.jte", "@param String url\n" +
+                "<form action=\"${url}\">\n" +
+                "<input name=\"param1\">\n" +
+                "<input name=\"param2\" disabled>\n" +
+                "</form>");
+
+        templateEngine.render("page.jte", "hello.htm", output);
+
+        assertThat(attributesInterceptor.attributes).hasSize(3);
+        assertThat(new IdentityHashMap<HtmlAttributes, Boolean>() {{
+            attributesInterceptor.attributes.forEach(a -> put(a, true));
+        }}).hasSize(1);
+    }
+
+    @Test
+    void nestedInterceptedRender() {
+        dummyCodeResolver.givenCode("nested.jte", "<input name=\"nested\">");
+        dummyCodeResolver.givenCode("page.jte", "<form action=\"outer.htm\"></form>");
+        templateEngine.setHtmlInterceptor(new HtmlAttributesInterceptor() {
+            @Override
+            public void onHtmlTagOpened(String name, HtmlAttributes attributes, TemplateOutput output) {
+                if ("form".equals(name)) {
+                    templateEngine.render("nested.jte", null, output);
+                    output.writeContent(" data-action=\"" + attributes.get("action") + "\"");
+                }
+            }
+
+            @Override
+            public void onHtmlAttributeStarted(String name, HtmlAttributes attributesBefore, TemplateOutput output) {
+            }
+
+            @Override
+            public void onHtmlTagClosed(String name, TemplateOutput output) {
+            }
+        });
+
+        templateEngine.render("page.jte", null, output);
+
+        assertThat(output.toString()).isEqualTo("<form action=\"outer.htm\"<input name=\"nested\"> data-action=\"outer.htm\"></form>");
+    }
+
+    @Test
+    void mapAdapter() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("name", "param1");
+        attributes.put("disabled", true);
+
+        attributesInterceptor.onHtmlTagOpened("input", attributes, output);
+
+        assertThat(attributesInterceptor.fieldNames).isEmpty();
+        assertThat(output.toString()).isEqualTo(" value=\"?\"");
+    }
+
+    @Test
+    void attributesView() {
+        HtmlAttributes attributes = new HtmlAttributes().begin(new String[]{"name", "disabled", "value"}).add("param1").add(true).add(null);
+
+        assertThat(attributes.size()).isEqualTo(3);
+        assertThat(attributes.getName(1)).isEqualTo("disabled");
+        assertThat(attributes.getValue(1)).isEqualTo(true);
+        assertThat(attributes.indexOf("value")).isEqualTo(2);
+        assertThat(attributes.contains("value")).isTrue();
+        assertThat(attributes.get("value")).isNull();
+        assertThat(attributes.contains("class")).isFalse();
+        assertThat(attributes.toMap()).containsEntry("name", "param1").containsEntry("disabled", true).containsEntry("value", null);
+    }
+
+    public class MySampleAttributesInterceptor implements HtmlAttributesInterceptor {
+
+        private String action;
+        private final List<String> fieldNames = new ArrayList<>();
+        private final List<HtmlAttributes> attributes = new ArrayList<>();
+
+        @Override
+        public void onHtmlTagOpened(String name, HtmlAttributes attributes, TemplateOutput output) {
+            this.attributes.add(attributes);
+
+            if ("form".equals(name)) {
+                action = (String)attributes.get("action");
+                output.writeContent(" data-form=\"x\"");
+            } else if ("input".equals(name)) {
+                if (!Boolean.TRUE.equals(attributes.get("disabled"))) {
+                    fieldNames.add((String) attributes.get("name"));
+                }
+                if (attributes.contains("name") && !attributes.contains("value")) {
+                    output.writeContent(" value=\"?\"");
+                }
+            } else if ("select".equals(name)) {
+                fieldNames.add((String)attributes.get("name"));
+            } else if ("option".equals(name)) {
+                String value = (String)attributes.get("value");
+                if (value != null && value.equals(controller.getFoodOption())) {
+                    output.writeContent(" selected");
+                }
+            }
+        }
+
+        @Override
+        public void onHtmlAttributeStarted(String name, HtmlAttributes attributesBefore, TemplateOutput output) {
+            if ("class".equals(name) && "error".equals(attributesBefore.get("name"))) {
+                output.writeContent("error ");
+            }
+        }
+
+        @Override
+        public void onHtmlTagClosed(String name, TemplateOutput output) {
+            if ("form".equals(name)) {
+                output.writeContent("<input name=\"__fp\" value=\"a:" + action + ", p:" + String.join(",", fieldNames) + "\">\n");
+            }
+        }
+    }
+}
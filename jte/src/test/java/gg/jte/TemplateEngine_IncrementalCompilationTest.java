@@ -0,0 +1,210 @@
+package gg.jte;
+
+import gg.jte.compiler.ClassUtils;
+import gg.jte.compiler.IoUtils;
+import gg.jte.output.StringOutput;
+import gg.jte.runtime.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateEngine_IncrementalCompilationTest {
+
+    private static final String PAGE = "gg/jte/generated/ondemand/JtepageGenerated.java";
+    private static final String OTHER = "gg/jte/generated/ondemand/JteotherGenerated.java";
+    private static final String TAG = "gg/jte/generated/ondemand/tag/JtegreetingGenerated.java";
+    private static final String MODEL = "gg/jte/generated/ondemand/JtemodelGenerated.java";
+
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+
+    Path appDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        appDirectory = Files.createTempDirectory("app-classes");
+        TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Plain).cleanAll();
+
+        dummyCodeResolver.givenCode("tag/greeting.jte", "@param String name\nHello ${name}!");
+        dummyCodeResolver.givenCode("page.jte", "@tag.greeting(name = \"page\")");
+        dummyCodeResolver.givenCode("other.jte", "Other");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        IoUtils.deleteDirectoryContent(appDirectory);
+        Files.delete(appDirectory);
+    }
+
+    @Test
+    void firstBuild() {
+        assertThat(precompileAll()).containsExactlyInAnyOrder(PAGE, TAG, OTHER);
+        thenOutputIs("page.jte", "Hello page!");
+    }
+
+    @Test
+    void nothingChanged() {
+        precompileAll();
+
+        assertThat(precompileAll()).isEmpty();
+        thenOutputIs("page.jte", "Hello page!");
+    }
+
+    @Test
+    void templateChanged() {
+        precompileAll();
+
+        dummyCodeResolver.givenCode("other.jte", "Other changed");
+
+        assertThat(precompileAll()).containsExactly(OTHER);
+        thenOutputIs("other.jte", "Other changed");
+    }
+
+    @Test
+    void tagBodyChanged() {
+        precompileAll();
+
+        dummyCodeResolver.givenCode("tag/greeting.jte", "@param String name\nHi ${name}!");
+
+        assertThat(precompileAll()).containsExactly(TAG);
+        thenOutputIs("page.jte", "Hi page!");
+    }
+
+    @Test
+    void tagSignatureChanged() {
+        precompileAll();
+
+        dummyCodeResolver.givenCode("tag/greeting.jte", "@param String greeting = \"Hi\"\n@param String name\n${greeting} ${name}!");
+
+        assertThat(precompileAll()).containsExactlyInAnyOrder(TAG, PAGE);
+        thenOutputIs("page.jte", "Hi page!");
+    }
+
+    @Test
+    void templateRemoved() {
+        precompileAll();
+        assertThat(classDirectory.resolve("gg/jte/generated/ondemand/JteotherGenerated.class")).exists();
+
+        dummyCodeResolver.remove("other.jte");
+
+        assertThat(precompileAll()).isEmpty();
+        assertThat(classDirectory.resolve("gg/jte/generated/ondemand/JteotherGenerated.class")).doesNotExist();
+        assertThat(classDirectory.resolve(OTHER)).doesNotExist();
+    }
+
+    @Test
+    void cleanAllForcesFullBuild() {
+        precompileAll();
+
+        TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Plain).cleanAll();
+
+        assertThat(precompileAll()).containsExactlyInAnyOrder(PAGE, TAG, OTHER);
+    }
+
+    @Test
+    void configurationChanged() {
+        precompileAll();
+
+        TemplateEngine templateEngine = createTemplateEngine();
+        templateEngine.setTrimControlStructures(true);
+
+        assertThat(templateEngine.precompileAll()).containsExactlyInAnyOrder(PAGE, TAG, OTHER);
+    }
+
+    @Test
+    void generateOnly() {
+        assertThat(createTemplateEngine().generateAll()).containsExactlyInAnyOrder(PAGE, TAG, OTHER);
+        assertThat(createTemplateEngine().generateAll()).isEmpty();
+
+        dummyCodeResolver.givenCode("tag/greeting.jte", "@param String name\nHi ${name}!");
+
+        assertThat(createTemplateEngine().generateAll()).containsExactly(TAG);
+    }
+
+    @Test
+    void referencedClassChanged() throws IOException {
+        givenAppClass("Model", "public String greeting() { return \"Hello\"; }");
+        givenAppClass("Unrelated", "");
+        dummyCodeResolver.givenCode("model.jte", "@param app.Model model\n${model.greeting()}");
+        assertThat(precompileAll(appClassPath())).containsExactlyInAnyOrder(PAGE, TAG, OTHER, MODEL);
+
+        givenAppClass("Unrelated", "public int answer() { return 42; }");
+        assertThat(precompileAll(appClassPath())).isEmpty();
+
+        givenAppClass("Model", "public String greeting() { return \"Hi\"; }");
+        assertThat(precompileAll(appClassPath())).containsExactly(MODEL);
+    }
+
+    @Test
+    void referencedSuperclassChanged() throws IOException {
+        givenAppClass("Base", "public String greeting() { return \"Hello\"; }");
+        givenAppClass("Model extends Base", "");
+        dummyCodeResolver.givenCode("model.jte", "@param app.Model model\n${model.greeting()}");
+        precompileAll(appClassPath());
+
+        givenAppClass("Base", "public String greeting() { return \"Hi\"; }");
+        assertThat(precompileAll(appClassPath())).containsExactly(MODEL);
+    }
+
+    @Test
+    void referencedConstantChanged() throws IOException {
+        givenAppClass("Constants", "public static final String TITLE = \"Hello\";");
+        dummyCodeResolver.givenCode("model.jte", "@import static app.Constants.TITLE\n${TITLE}");
+        precompileAll(appClassPath());
+
+        givenAppClass("Constants", "public static final String TITLE = \"Hi\";");
+        assertThat(precompileAll(appClassPath())).contains(MODEL);
+        thenOutputIs("model.jte", "Hi");
+    }
+
+    private void givenAppClass(String declaration, String body) throws IOException {
+        String name = declaration.split(" ")[0];
+        Path sourceFile = appDirectory.resolve("app/" + name + ".java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, ("package app;\npublic class " + declaration + " {\n" + body + "\n}").getBytes(StandardCharsets.UTF_8));
+
+        int result = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-cp", appDirectory.toString(), "-d", appDirectory.toString(), sourceFile.toString());
+        assertThat(result).isEqualTo(0);
+    }
+
+    private List<String> appClassPath() {
+        List<String> classPath = new ArrayList<>();
+        ClassUtils.resolveClasspathFromClassLoader(null, classPath::add);
+        classPath.add(appDirectory.toAbsolutePath().toString());
+        return classPath;
+    }
+
+    private List<String> precompileAll(List<String> classPath) {
+        return createTemplateEngine().precompileAll(classPath);
+    }
+
+    private List<String> precompileAll() {
+        return createTemplateEngine().precompileAll();
+    }
+
+    private TemplateEngine createTemplateEngine() {
+        TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Plain);
+        templateEngine.setIncrementalCompilation(true);
+        return templateEngine;
+    }
+
+    private void thenOutputIs(String name, String expected) {
+        TemplateEngine templateEngine = TemplateEngine.createPrecompiled(classDirectory, ContentType.Plain, null, Constants.PACKAGE_NAME_ON_DEMAND);
+
+        StringOutput output = new StringOutput();
+        templateEngine.render(name, null, output);
+
+        assertThat(output.toString()).isEqualTo(expected);
+    }
+}
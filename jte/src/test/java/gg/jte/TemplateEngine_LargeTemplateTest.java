@@ -0,0 +1,179 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import gg.jte.runtime.TemplateUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TemplateEngine_LargeTemplateTest {
+
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Html);
+
+    @BeforeEach
+    void setUp() {
+        templateEngine.cleanAll();
+    }
+
+    @Test
+    void renderMethodIsSplit() throws IOException {
+        givenLargeTemplate("");
+
+        StringOutput output = new StringOutput();
+        templateEngine.render("large.jte", TemplateUtils.toMap("model", createModel(), "count", 2), output);
+
+        assertThat(output.toString()).startsWith("<div>\n<p>Line 0 of 2: Hello</p>\n").endsWith("<p>Line 1999 of 2: Hello</p>\n</div>");
+        assertThat(output.toString()).contains("<li>0</li><li>1</li>");
+        assertThat(getGeneratedCode()).contains("private static void renderPart1(", "renderPart1(jteOutput, jteHtmlInterceptor, model, count);");
+    }
+
+    @Test
+    void lineNumbersInSplitMethods() {
+        givenLargeTemplate("${model.getThatThrows()}");
+
+        assertThatThrownBy(() -> templateEngine.render("large.jte", TemplateUtils.toMap("model", createModel(), "count", 2), new StringOutput()))
+                .isInstanceOf(TemplateException.class)
+                .hasMessage("Failed to render large.jte, error at large.jte:2005");
+    }
+
+    @Test
+    void topLevelVariablesPreventSplitting() throws IOException {
+        givenLargeTemplate(300, "", "!{String greeting = \"Hello\";}\n");
+
+        StringOutput output = new StringOutput();
+        templateEngine.render("large.jte", TemplateUtils.toMap("model", createModel(), "count", 2), output);
+
+        assertThat(output.toString()).endsWith("<p>Line 299 of 2: Hello</p>\n</div>");
+        assertThat(getGeneratedCode()).doesNotContain("renderPart1");
+    }
+
+    @Test
+    void loopBodyIsOutlined() throws IOException {
+        givenTemplate("@for(String item : java.util.Arrays.asList(\"a\", \"b\"))\n" + lines(1000, "${item}") + "@endfor");
+
+        String output = render();
+
+        assertThat(output).startsWith("\n<p>Line 0 of 2: a</p>\n").contains("<p>Line 999 of 2: a</p>\n\n<p>Line 0 of 2: b</p>\n").endsWith("<p>Line 999 of 2: b</p>\n");
+        assertThat(getGeneratedCode()).contains("}.writeTo(jteOutput);", "writeToPart1(jteOutput);");
+    }
+
+    @Test
+    void branchesAreOutlined() throws IOException {
+        givenTemplate("@if(count > 2)\n" + lines(1000, "if") + "@elseif(count > 1)\n" + lines(1000, "else if") + "@else\n" + lines(1000, "else") + "@endif");
+
+        String output = render();
+
+        assertThat(output).startsWith("\n<p>Line 0 of 2: else if</p>\n").endsWith("<p>Line 999 of 2: else if</p>\n").doesNotContain("else</p>");
+        assertThat(countOccurrences(getGeneratedCode(), "}.writeTo(jteOutput);")).isEqualTo(3);
+    }
+
+    @Test
+    void contentBlockIsSplit() throws IOException {
+        dummyCodeResolver.givenCode("layout/page.jte", "@param gg.jte.Content content\n<body>${content}</body>");
+        givenTemplate("@layout.page(content = @`\n" + lines(2000, "${model.hello}") + "`)");
+
+        String output = render();
+
+        assertThat(output).startsWith("<body>\n<p>Line 0 of 2: Hello</p>\n").endsWith("<p>Line 1999 of 2: Hello</p>\n</body>");
+        assertThat(getGeneratedCode()).contains("private void writeToPart1(", "writeToPart1(jteOutput);");
+    }
+
+    @Test
+    void basicForLoopIsNotOutlined() throws IOException {
+        givenTemplate("@for(int i = 0; i < count; ++i)\n" + lines(1000, "${i}") + "@endfor");
+
+        assertThat(render()).endsWith("<p>Line 999 of 2: 1</p>\n");
+        assertThat(getGeneratedCode()).doesNotContain("}.writeTo(jteOutput);");
+    }
+
+    @Test
+    void codeStatementsPreventOutlining() throws IOException {
+        givenTemplate("@for(String item : java.util.Arrays.asList(\"a\", \"b\"))\n!{String x = item;}\n" + lines(1000, "${x}") + "@endfor");
+
+        assertThat(render()).endsWith("<p>Line 999 of 2: b</p>\n");
+        assertThat(getGeneratedCode()).doesNotContain("}.writeTo(jteOutput);");
+    }
+
+    @Test
+    void codeStatementSyntaxInCommentDoesNotPreventOutlining() throws IOException {
+        givenTemplate("<%-- !{String x = \"a\";} is not a code statement in a comment --%>\n@for(String item : java.util.Arrays.asList(\"a\", \"b\"))\n" + lines(1000, "${item}") + "@endfor");
+
+        assertThat(render()).endsWith("<p>Line 999 of 2: b</p>\n");
+        assertThat(getGeneratedCode()).contains("}.writeTo(jteOutput);");
+    }
+
+    private String render() {
+        StringOutput output = new StringOutput();
+        templateEngine.render("large.jte", TemplateUtils.toMap("model", createModel(), "count", 2), output);
+        return output.toString();
+    }
+
+    private void givenTemplate(String body) {
+        dummyCodeResolver.givenCode("large.jte", "@param gg.jte.TemplateEngineTest.Model model\n@param int count\n" + body);
+    }
+
+    private static String lines(int lines, String content) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < lines; ++i) {
+            code.append("<p>Line ").append(i).append(" of ${count}: ").append(content).append("</p>\n");
+        }
+        return code.toString();
+    }
+
+    private static int countOccurrences(String string, String substring) {
+        int count = 0;
+        int index = 0;
+        while ((index = string.indexOf(substring, index)) != -1) {
+            ++count;
+            index += substring.length();
+        }
+        return count;
+    }
+
+    private static TemplateEngineTest.Model createModel() {
+        TemplateEngineTest.Model model = new TemplateEngineTest.Model();
+        model.hello = "Hello";
+        return model;
+    }
+
+    private void givenLargeTemplate(String lastLine) {
+        givenLargeTemplate(2000, lastLine, "");
+    }
+
+    private void givenLargeTemplate(int lines, String lastLine, String variables) {
+        StringBuilder code = new StringBuilder();
+        code.append("@param gg.jte.TemplateEngineTest.Model model\n");
+        code.append("@param int count\n");
+        code.append(variables);
+        code.append("<div>\n");
+        for (int i = 0; i < lines; ++i) {
+            code.append("<p>Line ").append(i).append(" of ${count}: ");
+            if (variables.isEmpty()) {
+                code.append("${model.hello}");
+            } else {
+                code.append("${greeting}");
+            }
+            code.append("</p>\n");
+            if (i == lines / 2) {
+                code.append("<ul>@for(int j = 0; j < count; ++j)<li>${j}</li>@endfor</ul>\n");
+            }
+        }
+        code.append("</div>");
+        code.append(lastLine);
+        dummyCodeResolver.givenCode("large.jte", code.toString());
+    }
+
+    private String getGeneratedCode() throws IOException {
+        return new String(Files.readAllBytes(classDirectory.resolve("gg/jte/generated/ondemand/JtelargeGenerated.java")), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import gg.jte.runtime.Constants;
+import gg.jte.runtime.TemplateManifest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class TemplateEngine_ManifestTest {
+
+    DummyCodeResolver codeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+    TemplateEngine precompiler = TemplateEngine.create(codeResolver, classDirectory, ContentType.Plain, null, Constants.PACKAGE_NAME_PRECOMPILED);
+
+    @BeforeEach
+    void setUp() {
+        codeResolver.givenCode("tag/name.jte", "@param String name\n${name}");
+        codeResolver.givenCode("layout/main.jte", "@param gg.jte.Content content\n${content}");
+        codeResolver.givenCode("page.jte", "@param int count\n@param java.util.List<String> names\n@layout.main(content = @`@tag.name(name = \"page\") ${count}`)");
+        codeResolver.givenCode("other.jte", "@tag.name(name = \"other\")");
+    }
+
+    @Test
+    void manifestIsWritten() throws IOException {
+        precompiler.precompileAll();
+
+        TemplateManifest manifest;
+        try (InputStream is = Files.newInputStream(classDirectory.resolve(TemplateManifest.getResourceName(Constants.PACKAGE_NAME_PRECOMPILED)))) {
+            manifest = TemplateManifest.read(is);
+        }
+
+        assertThat(manifest.getNames()).containsExactly("layout/main.jte", "other.jte", "page.jte", "tag/name.jte");
+        assertThat(manifest.get("page.jte").className).isEqualTo(Constants.PACKAGE_NAME_PRECOMPILED + ".JtepageGenerated");
+        assertThat(manifest.get("page.jte").paramNames).containsExactly("count", "names");
+        assertThat(manifest.get("page.jte").paramTypes).containsExactly("int", "java.util.List");
+        assertThat(manifest.get("page.jte").dependencies).containsExactlyInAnyOrder("layout/main.jte", "tag/name.jte");
+    }
+
+    @Test
+    void incrementalBuildTakesParamsFromIndex() throws IOException {
+        precompiler.cleanAll();
+        precompiler.setIncrementalCompilation(true);
+        precompiler.precompileAll();
+
+        codeResolver.givenCode("other.jte", "@param String greeting\n@tag.name(name = greeting)");
+        TemplateEngine incremental = TemplateEngine.create(codeResolver, classDirectory, ContentType.Plain, null, Constants.PACKAGE_NAME_PRECOMPILED);
+        incremental.setIncrementalCompilation(true);
+        assertThat(incremental.precompileAll()).doesNotContain("gg/jte/generated/precompiled/JtepageGenerated.java");
+
+        TemplateManifest manifest;
+        try (InputStream is = Files.newInputStream(classDirectory.resolve(TemplateManifest.getResourceName(Constants.PACKAGE_NAME_PRECOMPILED)))) {
+            manifest = TemplateManifest.read(is);
+        }
+
+        assertThat(manifest.get("page.jte").paramNames).containsExactly("count", "names");
+        assertThat(manifest.get("page.jte").paramTypes).containsExactly("int", "java.util.List");
+        assertThat(manifest.get("other.jte").paramNames).containsExactly("greeting");
+        assertThat(manifest.get("other.jte").paramTypes).containsExactly("java.lang.String");
+    }
+
+    @Test
+    void hasTemplate() {
+        TemplateEngine templateEngine = precompile();
+
+        assertThat(templateEngine.hasTemplate("page.jte")).isTrue();
+        assertThat(templateEngine.hasTemplate("tag/name.jte")).isTrue();
+        assertThat(templateEngine.hasTemplate("unknown.jte")).isFalse();
+    }
+
+    @Test
+    void getParamInfo() {
+        TemplateEngine templateEngine = precompile();
+
+        assertThat(templateEngine.getParamInfo("page.jte")).containsExactly(entry("count", int.class), entry("names", List.class));
+        assertThat(templateEngine.getParamInfo("other.jte")).isEmpty();
+    }
+
+    @Test
+    void getTemplatesUsing() {
+        TemplateEngine templateEngine = precompile();
+
+        assertThat(templateEngine.getTemplatesUsing("tag/name.jte")).containsExactlyInAnyOrder("other.jte", "page.jte", "tag/name.jte");
+        assertThat(templateEngine.getTemplatesUsing("layout/main.jte")).containsExactlyInAnyOrder("page.jte", "layout/main.jte");
+    }
+
+    @Test
+    void generateOnly() throws IOException {
+        precompiler.generateAll();
+
+        TemplateManifest manifest;
+        try (InputStream is = Files.newInputStream(classDirectory.resolve(TemplateManifest.getResourceName(Constants.PACKAGE_NAME_PRECOMPILED)))) {
+            manifest = TemplateManifest.read(is);
+        }
+
+        assertThat(manifest.getNames()).hasSize(4);
+        assertThat(manifest.get("page.jte").paramNames).isNull();
+    }
+
+    @Test
+    void eagerLoading() {
+        TemplateEngine templateEngine = precompile();
+        templateEngine.setLoadingPolicy(LoadingPolicy.Eager);
+
+        TemplateEngine reloaded = templateEngine.reloadPrecompiled(classDirectory);
+
+        StringOutput output = new StringOutput();
+        reloaded.render("other.jte", null, output);
+        assertThat(output.toString()).isEqualTo("other");
+    }
+
+    @Test
+    void withoutManifest() throws IOException {
+        precompiler.precompileAll();
+        Files.delete(classDirectory.resolve(TemplateManifest.getResourceName(Constants.PACKAGE_NAME_PRECOMPILED)));
+
+        TemplateEngine templateEngine = TemplateEngine.createPrecompiled(classDirectory, ContentType.Plain);
+        templateEngine.setLoadingPolicy(LoadingPolicy.Eager);
+
+        assertThat(templateEngine.hasTemplate("page.jte")).isTrue();
+        assertThat(templateEngine.hasTemplate("unknown.jte")).isFalse();
+        assertThat(templateEngine.getParamInfo("page.jte")).containsExactly(entry("count", int.class), entry("names", List.class));
+        assertThat(templateEngine.getTemplatesUsing("tag/name.jte")).isEmpty();
+    }
+
+    private TemplateEngine precompile() {
+        precompiler.precompileAll();
+        return TemplateEngine.createPrecompiled(classDirectory, ContentType.Plain);
+    }
+}
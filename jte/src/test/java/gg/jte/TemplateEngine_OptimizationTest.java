@@ -0,0 +1,155 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ensures that static template parts are merged and constant conditions are resolved at compile time
+ */
+public class TemplateEngine_OptimizationTest {
+
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    Path classDirectory = Paths.get("jte-classes");
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, classDirectory, ContentType.Plain);
+
+    @BeforeEach
+    void setUp() {
+        templateEngine.cleanAll();
+    }
+
+    @Test
+    void commentsAreMerged() throws IOException {
+        givenTemplate("Hello <%-- comment --%>World<%-- another comment --%>!");
+        thenOutputIs("Hello World!", 1);
+    }
+
+    @Test
+    void linesAreMerged() throws IOException {
+        givenTemplate("@param String name\nHello\n${name}\nand\nbye\n");
+        thenOutputIs("Hello\nfoo\nand\nbye\n", 2, "foo");
+    }
+
+    @Test
+    void ifTrue() throws IOException {
+        givenTemplate("Hello @if(true)World@endif!");
+        thenOutputIs("Hello World!", 1);
+    }
+
+    @Test
+    void ifFalse() throws IOException {
+        givenTemplate("Hello @if(false)World@endif!");
+        thenOutputIs("Hello !", 1);
+    }
+
+    @Test
+    void ifFalseElse() throws IOException {
+        givenTemplate("Hello @if(false)World@elseif(false)Universe@else${\"Moon\"}@endif!");
+        thenOutputIs("Hello Moon!", 1);
+    }
+
+    @Test
+    void ifTrueElse() throws IOException {
+        givenTemplate("Hello @if( true )World@elseif(1 / 0 > 0)Universe@else${\"Moon\"}@endif!");
+        thenOutputIs("Hello World!", 1);
+    }
+
+    @Test
+    void ifFalseElseIf() throws IOException {
+        givenTemplate("@param int x\nHello @if(false)World@elseif(x > 1)Universe@elseif(true)Moon@elseif(x > 0)Sun@endif!");
+        thenOutputIs("Hello Universe!", 4, 2);
+        thenOutputIs("Hello Moon!", 4, 0);
+    }
+
+    @Test
+    void elseIfTrue() throws IOException {
+        givenTemplate("@param int x\nHello @if(x > 1)World@elseif(true)Moon@else Sun@endif!");
+        thenOutputIs("Hello World!", 4, 2);
+        thenOutputIs("Hello Moon!", 4, 0);
+    }
+
+    @Test
+    void elseIfFalse() throws IOException {
+        givenTemplate("@param int x\nHello @if(x > 1)World@elseif(false)Moon@else Sun@endif!");
+        thenOutputIs("Hello World!", 4, 2);
+        thenOutputIs("Hello  Sun!", 4, 0);
+    }
+
+    @Test
+    void nestedIf() throws IOException {
+        givenTemplate("@if(true)a@if(false)b@if(true)c@endif@else d@endif@endif e");
+        thenOutputIs("a d e", 1);
+    }
+
+    @Test
+    void ifTrueWithVariables() throws IOException {
+        givenTemplate("@if(true)!{var x = 1;}${x}@endif!{var x = 2;}${x}");
+        thenOutputIs("12", 0);
+    }
+
+    @Test
+    void ifTrueWithVariablesInLoop() throws IOException {
+        givenTemplate("@param java.util.List<String> items\n@if(true)@for(String item : items)!{String x = item;}${x}, @endforEND@endif");
+        thenOutputIs("a, b, END", 2, java.util.Arrays.asList("a", "b"));
+    }
+
+    @Test
+    void ifTrueWithVariablesInLoopAndBranch() throws IOException {
+        givenTemplate("@param java.util.List<String> items\n@if(true)@for(String item : items)!{String x = item;}${x}, @endfor!{String x = \"END\";}${x}@endif");
+        thenOutputIs("a, b, END", 1, java.util.Arrays.asList("a", "b"));
+    }
+
+    @Test
+    void literals() throws IOException {
+        givenTemplate("${\"Hello\"} ${\"\\\"World\\\"\\t\\u0021\"}");
+        thenOutputIs("Hello \"World\"\t!", 1);
+    }
+
+    @Test
+    void unsafeLiteral() throws IOException {
+        givenTemplate("$unsafe{\"Hello\"} World");
+        thenOutputIs("Hello World", 1);
+    }
+
+    @Test
+    void notALiteral() throws IOException {
+        givenTemplate("${\"Hello\" + \" \" + \"World\"}");
+        thenOutputIs("Hello World", 0);
+    }
+
+    private void givenTemplate(String code) {
+        dummyCodeResolver.givenCode("test.jte", code);
+    }
+
+    private void thenOutputIs(String expected, int expectedWriteContentCalls, Object ... params) throws IOException {
+        StringOutput output = new StringOutput();
+        if (params.length == 0) {
+            templateEngine.render("test.jte", null, output);
+        } else {
+            templateEngine.render("test.jte", params[0], output);
+        }
+
+        assertThat(output.toString()).isEqualTo(expected);
+
+        String javaCode = new String(Files.readAllBytes(classDirectory.resolve("gg/jte/generated/ondemand/JtetestGenerated.java")), StandardCharsets.UTF_8);
+        assertThat(countOccurrences(javaCode, "jteOutput.writeContent(")).isEqualTo(expectedWriteContentCalls);
+    }
+
+    private static int countOccurrences(String string, String substring) {
+        int count = 0;
+        int index = 0;
+        while ((index = string.indexOf(substring, index)) != -1) {
+            ++count;
+            index += substring.length();
+        }
+        return count;
+    }
+}
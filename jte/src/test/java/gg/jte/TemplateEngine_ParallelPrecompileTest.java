@@ -0,0 +1,61 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TemplateEngine_ParallelPrecompileTest {
+
+    private static final int TEMPLATE_COUNT = 150;
+
+    DummyCodeResolver dummyCodeResolver = new DummyCodeResolver();
+    TemplateEngine templateEngine = TemplateEngine.create(dummyCodeResolver, ContentType.Plain);
+
+    @Test
+    void manyTemplatesSharingTags() {
+        dummyCodeResolver.givenCode("tag/outer.jte", "@param int i\n(@tag.inner(i = i))");
+        dummyCodeResolver.givenCode("tag/inner.jte", "@param int i\n${i}");
+        dummyCodeResolver.givenCode("layout/page.jte", "@param gg.jte.Content content\n<@tag.inner(i = -1)>${content}");
+        for (int i = 0; i < TEMPLATE_COUNT; ++i) {
+            dummyCodeResolver.givenCode("page" + i + ".jte", "@param int i\n@layout.page(content = @`@tag.outer(i = i)`)");
+        }
+
+        List<String> classes = templateEngine.precompileAll();
+
+        assertThat(classes).hasSize(TEMPLATE_COUNT + 3);
+        for (int i = 0; i < TEMPLATE_COUNT; ++i) {
+            StringOutput output = new StringOutput();
+            templateEngine.render("page" + i + ".jte", i, output);
+            assertThat(output.toString()).isEqualTo("<-1>(" + i + ")");
+        }
+    }
+
+    @Test
+    void dependenciesAreTransitive() {
+        dummyCodeResolver.givenCode("tag/outer.jte", "@param int i\n(@tag.inner(i = i))");
+        dummyCodeResolver.givenCode("tag/inner.jte", "@param int i\n${i}");
+        dummyCodeResolver.givenCode("page1.jte", "@tag.outer(i = 1)");
+        dummyCodeResolver.givenCode("page2.jte", "@tag.outer(i = 2)");
+        dummyCodeResolver.givenCode("page3.jte", "Hello");
+
+        templateEngine.precompileAll();
+
+        assertThat(templateEngine.getTemplatesUsing("tag/inner.jte")).containsExactlyInAnyOrder("tag/outer.jte", "tag/inner.jte", "page1.jte", "page2.jte");
+    }
+
+    @Test
+    void firstErrorIsReported() {
+        dummyCodeResolver.givenCode("tag/broken.jte", "@param int i\n@if(i)");
+        for (int i = 0; i < 10; ++i) {
+            dummyCodeResolver.givenCode("page" + i + ".jte", "@tag.broken(i = 1)");
+        }
+
+        assertThatThrownBy(() -> templateEngine.precompileAll())
+                .isInstanceOf(TemplateException.class)
+                .hasMessageContaining("tag/broken.jte");
+    }
+}
@@ -0,0 +1,120 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class TemplateEngine_PrepareAllTest {
+
+    DummyCodeResolver codeResolver = new DummyCodeResolver();
+    TemplateEngine templateEngine = TemplateEngine.create(codeResolver, ContentType.Plain);
+    RecordingListener listener = new RecordingListener();
+
+    @BeforeEach
+    void setUp() {
+        codeResolver.givenCode("tag/name.jte", "@param String name\n${name}");
+        codeResolver.givenCode("first.jte", "First @tag.name(name = \"tag\")");
+        codeResolver.givenCode("second.jte", "Second");
+        codeResolver.givenCode("third.jte", "Third");
+    }
+
+    @Test
+    void prepareAll() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            templateEngine.prepareAll(Arrays.asList("first.jte", "second.jte", "third.jte", "first.jte"), executor, listener);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(listener.prepared).containsExactlyInAnyOrder("first.jte", "second.jte", "third.jte");
+        assertThat(listener.failed).isEmpty();
+        assertThat(listener.lastDone).isEqualTo(3);
+        assertThat(listener.total).isEqualTo(3);
+
+        thenOutputIs("first.jte", "First tag");
+    }
+
+    @Test
+    void sharedTag() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            String name = "shared" + i + ".jte";
+            codeResolver.givenCode(name, i + " @tag.name(name = \"shared\")");
+            names.add(name);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            templateEngine.prepareAll(names, executor, listener);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(listener.failed).isEmpty();
+        assertThat(listener.prepared).hasSize(20);
+        for (int i = 0; i < 20; ++i) {
+            thenOutputIs("shared" + i + ".jte", i + " shared");
+        }
+    }
+
+    @Test
+    void failures() {
+        codeResolver.givenCode("second.jte", "Second ${unknown}");
+
+        Throwable throwable = catchThrowable(() -> templateEngine.prepareAll(Arrays.asList("first.jte", "second.jte", "third.jte", "missing.jte"), ForkJoinPool.commonPool(), listener));
+
+        assertThat(throwable).isInstanceOf(TemplateException.class).hasMessageStartingWith("Failed to prepare 2 of 4 templates, first failure: Failed to compile template, error at second.jte:1");
+        assertThat(throwable.getSuppressed()).hasSize(1);
+        assertThat(throwable.getSuppressed()[0]).isInstanceOf(TemplateNotFoundException.class);
+
+        assertThat(listener.prepared).containsExactlyInAnyOrder("first.jte", "third.jte");
+        assertThat(listener.failed).containsExactlyInAnyOrder("second.jte", "missing.jte");
+        assertThat(listener.lastDone).isEqualTo(4);
+
+        thenOutputIs("third.jte", "Third");
+    }
+
+    @Test
+    void nothingToPrepare() {
+        templateEngine.prepareAll(Collections.emptyList(), ForkJoinPool.commonPool());
+    }
+
+    private void thenOutputIs(String name, String expected) {
+        StringOutput output = new StringOutput();
+        templateEngine.render(name, null, output);
+        assertThat(output.toString()).isEqualTo(expected);
+    }
+
+    static class RecordingListener implements PrepareListener {
+        final List<String> prepared = Collections.synchronizedList(new ArrayList<>());
+        final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        volatile int lastDone;
+        volatile int total;
+
+        @Override
+        public synchronized void onPrepared(String name, int done, int total) {
+            prepared.add(name);
+            lastDone = Math.max(lastDone, done);
+            this.total = total;
+        }
+
+        @Override
+        public synchronized void onFailed(String name, TemplateException e, int done, int total) {
+            failed.add(name);
+            lastDone = Math.max(lastDone, done);
+            this.total = total;
+        }
+    }
+}
@@ -35,4 +35,10 @@ class IoUtilsTest {
         // non existing directory:
         IoUtils.deleteDirectoryContent(tempDir);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldHash() {
+        assertThat(IoUtils.hash("")).isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        assertThat(IoUtils.hash("hello")).isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+    }
+}
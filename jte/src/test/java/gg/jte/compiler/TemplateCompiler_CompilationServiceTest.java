@@ -0,0 +1,90 @@
+package gg.jte.compiler;
+
+import gg.jte.ContentType;
+import gg.jte.DummyCodeResolver;
+import gg.jte.TemplateConfig;
+import gg.jte.compiler.java.JavaCompilationService;
+import gg.jte.runtime.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateCompiler_CompilationServiceTest {
+
+    DummyCodeResolver codeResolver = new DummyCodeResolver();
+    TemplateConfig config = new TemplateConfig(ContentType.Plain, Constants.PACKAGE_NAME_ON_DEMAND);
+    TemplateCompiler templateCompiler = new TemplateCompiler(config, codeResolver, Paths.get("jte-classes"), null);
+
+    @Test
+    void fileManagerIsReused() {
+        codeResolver.givenCode("hello.jte", "Hello");
+        codeResolver.givenCode("world.jte", "World");
+
+        templateCompiler.load("hello.jte");
+        templateCompiler.load("world.jte");
+        templateCompiler.load("hello.jte");
+
+        JavaCompilationService service = templateCompiler.getJavaCompilationService();
+        assertThat(service.getCompileCount()).isEqualTo(3);
+        assertThat(service.getFileManagerCount()).isEqualTo(1);
+        assertThat(service.getLastCompileNanos()).isPositive();
+        assertThat(service.getTotalCompileNanos()).isGreaterThanOrEqualTo(service.getLastCompileNanos());
+    }
+
+    @Test
+    void fileManagerIsReused_inMemory() {
+        config.compileInMemory = true;
+        codeResolver.givenCode("hello.jte", "Hello");
+        codeResolver.givenCode("world.jte", "World");
+
+        templateCompiler.load("hello.jte");
+        templateCompiler.load("world.jte");
+
+        JavaCompilationService service = templateCompiler.getJavaCompilationService();
+        assertThat(service.getCompileCount()).isEqualTo(2);
+        assertThat(service.getFileManagerCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fileManagerIsReplacedIfClassPathChanges() {
+        JavaCompilationService service = new JavaCompilationService();
+        ClassDefinition classDefinition = new ClassDefinition("test.Hello", "java");
+        classDefinition.setCode("package test; public class Hello {}", Collections.emptyList());
+
+        service.compile(Collections.singletonList(classDefinition), Collections.singletonList("a"), config, Collections.emptyMap());
+        service.compile(Collections.singletonList(classDefinition), Collections.singletonList("a"), config, Collections.emptyMap());
+        assertThat(service.getFileManagerCount()).isEqualTo(1);
+
+        Map<String, byte[]> classes = service.compile(Collections.singletonList(classDefinition), Collections.singletonList("b"), config, Collections.emptyMap());
+        assertThat(service.getFileManagerCount()).isEqualTo(2);
+        assertThat(classes).containsOnlyKeys("test.Hello");
+    }
+
+    @Test
+    void fileManagerIsReopenedAfterClose() {
+        codeResolver.givenCode("hello.jte", "Hello");
+
+        templateCompiler.load("hello.jte");
+        templateCompiler.close();
+        templateCompiler.close();
+        templateCompiler.load("hello.jte");
+
+        assertThat(templateCompiler.getJavaCompilationService().getFileManagerCount()).isEqualTo(2);
+    }
+
+    @Test
+    void fileManagerIsClosedAfterPrecompileAll() {
+        codeResolver.givenCode("hello.jte", "Hello");
+
+        templateCompiler.precompileAll();
+        templateCompiler.load("hello.jte");
+
+        JavaCompilationService service = templateCompiler.getJavaCompilationService();
+        assertThat(service.getCompileCount()).isEqualTo(2);
+        assertThat(service.getFileManagerCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,103 @@
+package gg.jte.compiler;
+
+import gg.jte.ContentType;
+import gg.jte.DummyCodeResolver;
+import gg.jte.TemplateConfig;
+import gg.jte.runtime.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateCompiler_DependencyIndexTest {
+
+    TrackingCodeResolver codeResolver = new TrackingCodeResolver();
+    TemplateCompiler templateCompiler = new TemplateCompiler(new TemplateConfig(ContentType.Plain, Constants.PACKAGE_NAME_ON_DEMAND), codeResolver, Paths.get("jte-classes"), null);
+
+    @BeforeEach
+    void setUp() {
+        codeResolver.givenCode("tag/inner.jte", "inner");
+        codeResolver.givenCode("tag/outer.jte", "@tag.inner()");
+        codeResolver.givenCode("layout/page.jte", "@param gg.jte.Content content\n${content}");
+        codeResolver.givenCode("page.jte", "@layout.page(content = @`@tag.outer()`)");
+        codeResolver.givenCode("other.jte", "@tag.inner()");
+    }
+
+    @Test
+    void templatesUsing() {
+        templateCompiler.load("page.jte");
+        templateCompiler.load("other.jte");
+
+        assertThat(templateCompiler.getTemplatesUsing("tag/inner.jte")).containsExactlyInAnyOrder("page.jte", "other.jte");
+        assertThat(templateCompiler.getTemplatesUsing("tag/outer.jte")).containsExactly("page.jte");
+        assertThat(templateCompiler.getTemplatesUsing("layout/page.jte")).containsExactly("page.jte");
+        assertThat(templateCompiler.getTemplatesUsing("unknown.jte")).isEmpty();
+    }
+
+    @Test
+    void templatesUsing_dependencyRemoved() {
+        templateCompiler.load("page.jte");
+
+        codeResolver.givenCode("page.jte", "No more tags");
+        templateCompiler.load("page.jte");
+
+        assertThat(templateCompiler.getTemplatesUsing("tag/inner.jte")).isEmpty();
+        assertThat(templateCompiler.getTemplatesUsing("layout/page.jte")).isEmpty();
+    }
+
+    @Test
+    void hasChanged_withoutGeneration() {
+        codeResolver.generation = -1;
+        templateCompiler.load("page.jte");
+
+        templateCompiler.hasChanged("page.jte");
+        templateCompiler.hasChanged("page.jte");
+
+        assertThat(codeResolver.hasChangedCalls).isEqualTo(8);
+    }
+
+    @Test
+    void hasChanged_sameGeneration() {
+        templateCompiler.load("page.jte");
+
+        assertThat(templateCompiler.hasChanged("page.jte")).isFalse();
+        assertThat(templateCompiler.hasChanged("page.jte")).isFalse();
+        assertThat(templateCompiler.hasChanged("page.jte")).isFalse();
+
+        assertThat(codeResolver.hasChangedCalls).isEqualTo(4);
+    }
+
+    @Test
+    void hasChanged_nextGeneration() {
+        templateCompiler.load("page.jte");
+        assertThat(templateCompiler.hasChanged("page.jte")).isFalse();
+
+        codeResolver.changed.add("tag/inner.jte");
+        assertThat(templateCompiler.hasChanged("page.jte")).isFalse();
+
+        codeResolver.generation++;
+        assertThat(templateCompiler.hasChanged("page.jte")).isTrue();
+        assertThat(templateCompiler.hasChanged("page.jte")).isTrue();
+    }
+
+    static class TrackingCodeResolver extends DummyCodeResolver {
+        final Set<String> changed = new HashSet<>();
+        long generation;
+        int hasChangedCalls;
+
+        @Override
+        public boolean hasChanged(String name) {
+            hasChangedCalls++;
+            return changed.contains(name);
+        }
+
+        @Override
+        public long getGeneration() {
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package gg.jte.html;
+
+import gg.jte.Content;
+import gg.jte.TemplateOutput;
+import gg.jte.output.StringOutput;
+import gg.jte.output.Utf8ByteOutput;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwaspHtmlTemplateOutputTest {
+
+    @Test
+    void tagBody() {
+        assertThat(renderUtf8("div", null, "<script>alert('Hello & \"bye\"')</script>"))
+                .isEqualTo("&lt;script&gt;alert('Hello &amp; \"bye\"')&lt;/script&gt;");
+    }
+
+    @Test
+    void tagAttribute() {
+        assertThat(renderUtf8("div", "title", "<b>'Hello' & \"bye\"</b>"))
+                .isEqualTo("&lt;b>&#39;Hello&#39; &amp; &#34;bye&#34;&lt;/b>");
+    }
+
+    @Test
+    void longRunsSpanChunks() {
+        String value = "The quick brown fox jumps over the lazy dog & 💩 < the quick brown fox jumps over the lazy dog";
+        assertThat(renderUtf8("div", null, value)).isEqualTo(renderString("div", null, value));
+    }
+
+    @Test
+    void allCodePoints_tagBody() {
+        thenUtf8IsSameAsOwasp("div", null, allCodePoints());
+    }
+
+    @Test
+    void allCodePoints_tagAttribute() {
+        thenUtf8IsSameAsOwasp("div", "title", allCodePoints());
+    }
+
+    @Test
+    void unpairedSurrogates() {
+        thenUtf8IsSameAsOwasp("div", null, "a\uD800b\uDC00c\uDBFF");
+        thenUtf8IsSameAsOwasp("div", "title", "\uDC00\uD800𐀀\uD800");
+    }
+
+    @Test
+    void randomStrings() {
+        Random random = new Random(42);
+        String alphabet = "abc<>&\"' \t\n\r\u0000\u001f\u007f\u0080\u0085\u009fä€﷐￾￿💩𐀀";
+        for (int i = 0; i < 1000; ++i) {
+            StringBuilder value = new StringBuilder();
+            int length = random.nextInt(64);
+            for (int j = 0; j < length; ++j) {
+                value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            thenUtf8IsSameAsOwasp("div", null, value.toString());
+            thenUtf8IsSameAsOwasp("div", "title", value.toString());
+        }
+    }
+
+    @Test
+    void contextOutputs() {
+        String value = "<b onclick=\"alert('Hello & bye')\">\u2028</b>";
+        thenContextOutputIsSameAsSetContext("div", null, value, output -> output.forTagBody("div"));
+        thenContextOutputIsSameAsSetContext("script", null, value, output -> output.forScriptBlock("script"));
+        thenContextOutputIsSameAsSetContext("div", "title", value, output -> output.forTagAttribute("div", "title"));
+        thenContextOutputIsSameAsSetContext("div", "onclick", value, output -> output.forJavaScriptAttribute("div", "onclick"));
+        thenContextOutputIsSameAsSetContext("a", "href", value, output -> output.forHref("a", "href"));
+        thenContextOutputIsSameAsSetContext(null, null, value, HtmlTemplateOutput::forUnescaped);
+    }
+
+    @Test
+    void href_javascript() {
+        StringOutput output = new StringOutput();
+        new OwaspHtmlTemplateOutput(output).forHref("a", "href").writeUserContent(" JavaScript:alert(1)");
+        assertThat(output.toString()).isEmpty();
+    }
+
+    @Test
+    void contextOutput_primitives() {
+        StringOutput output = new StringOutput();
+        TemplateOutput contextOutput = new OwaspHtmlTemplateOutput(output).forTagAttribute("div", "title");
+
+        contextOutput.writeUserContent(42);
+        contextOutput.writeUserContent(' ');
+        contextOutput.writeUserContent(true);
+        contextOutput.writeUserContent('"');
+
+        assertThat(output.toString()).isEqualTo("42 true&#34;");
+    }
+
+    @Test
+    void contextOutput_content() {
+        StringOutput output = new StringOutput();
+        Content content = o -> {
+            o.writeContent("<b>");
+            o.writeUserContent("<i>");
+            o.writeContent("</b>");
+        };
+
+        OwaspHtmlTemplateOutput htmlOutput = new OwaspHtmlTemplateOutput(output);
+        htmlOutput.forTagBody("div").writeUserContent(content);
+        htmlOutput.forTagAttribute("div", "title").writeUserContent(content);
+        htmlOutput.forUnescaped().writeUserContent(content);
+
+        assertThat(output.toString()).isEqualTo("<b>&lt;i&gt;</b>&lt;b>&lt;i>&lt;/b><b><i></b>");
+    }
+
+    @Test
+    void attributeContentIsStreamed() {
+        Content content = o -> {
+            o.writeContent("<b class=\"x\">");
+            o.writeUserContent("'Hello' & \"bye\"");
+            o.writeUserContent(42);
+            ((HtmlTemplateOutput) o).forTagAttribute("span", "title").writeUserContent("<i>");
+            ((HtmlTemplateOutput) o).forTagBody("span").writeUserContent("<i>");
+            o.writeContent("</b>");
+        };
+
+        StringOutput output = new StringOutput();
+        OwaspHtmlTemplateOutput htmlOutput = new OwaspHtmlTemplateOutput(output);
+        htmlOutput.forTagAttribute("div", "title").writeUserContent(content);
+        htmlOutput.forJavaScriptAttribute("div", "onclick").writeUserContent(content);
+
+        StringOutput rendered = new StringOutput();
+        content.writeTo(new OwaspHtmlTemplateOutput(rendered));
+
+        assertThat(output.toString()).isEqualTo(renderString("div", "title", rendered.toString()) + renderString("div", "onclick", rendered.toString()));
+        assertThat(renderUtf8Content("div", "title", content)).isEqualTo(renderString("div", "title", rendered.toString()));
+    }
+
+    @Test
+    void attributeContentOutputIsReused() {
+        StringOutput output = new StringOutput();
+        OwaspHtmlTemplateOutput htmlOutput = new OwaspHtmlTemplateOutput(output);
+        TemplateOutput attributeOutput = htmlOutput.forTagAttribute("div", "class");
+
+        HtmlTemplateOutput[] contentOutputs = new HtmlTemplateOutput[2];
+        attributeOutput.writeUserContent((HtmlContent) o -> {
+            contentOutputs[0] = o;
+            o.setContext("script", null);
+            o.writeUserContent("a'");
+        });
+        attributeOutput.writeUserContent((HtmlContent) o -> {
+            contentOutputs[1] = o;
+            o.writeUserContent(" b'");
+        });
+
+        assertThat(contentOutputs[1]).isSameAs(contentOutputs[0]);
+        assertThat(output.toString()).isEqualTo("a\\&#39; b&#39;");
+    }
+
+    private String renderUtf8Content(String tagName, String attributeName, Content content) {
+        Utf8ByteOutput output = new Utf8ByteOutput(16, 8);
+        OwaspHtmlTemplateOutput htmlOutput = new OwaspHtmlTemplateOutput(output);
+        htmlOutput.setContext(tagName, attributeName);
+        htmlOutput.writeUserContent(content);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            output.writeTo(os);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void thenContextOutputIsSameAsSetContext(String tagName, String attributeName, String value, Function<HtmlTemplateOutput, TemplateOutput> contextOutput) {
+        StringOutput output = new StringOutput();
+        contextOutput.apply(new OwaspHtmlTemplateOutput(output)).writeUserContent(value);
+
+        assertThat(output.toString()).isEqualTo(renderString(tagName, attributeName, value));
+    }
+
+    private void thenUtf8IsSameAsOwasp(String tagName, String attributeName, String value) {
+        assertThat(renderUtf8(tagName, attributeName, value)).isEqualTo(renderString(tagName, attributeName, value));
+    }
+
+    private String allCodePoints() {
+        StringBuilder value = new StringBuilder();
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; ++codePoint) {
+            if (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE) {
+                value.appendCodePoint(codePoint);
+            }
+        }
+        return value.toString();
+    }
+
+    private String renderString(String tagName, String attributeName, String value) {
+        StringOutput output = new StringOutput();
+        render(new OwaspHtmlTemplateOutput(output), tagName, attributeName, value);
+        return output.toString();
+    }
+
+    private String renderUtf8(String tagName, String attributeName, String value) {
+        Utf8ByteOutput output = new Utf8ByteOutput(16, 8); // Small chunk size for tests
+        render(new OwaspHtmlTemplateOutput(output), tagName, attributeName, value);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            output.writeTo(os);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void render(OwaspHtmlTemplateOutput output, String tagName, String attributeName, String value) {
+        output.setContext(tagName, attributeName);
+        output.writeUserContent(value);
+    }
+}
@@ -4,6 +4,10 @@ import gg.jte.TemplateOutput;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public abstract class AbstractTemplateOutputTest<T extends TemplateOutput> {
     T output = createTemplateOutput();
@@ -76,6 +80,28 @@ public abstract class AbstractTemplateOutputTest<T extends TemplateOutput> {
         thenOutputIs("ab");
     }
 
+    @Test
+    void writeBinaryBuffer() {
+        ByteBuffer small = directBuffer("💩 ");
+        ByteBuffer large = directBuffer("The quick brown fox jumps over the lazy dog");
+
+        output.writeBinaryContent(small);
+        output.writeBinaryContent(large);
+        output.writeBinaryContent(small);
+
+        thenOutputIs("💩 The quick brown fox jumps over the lazy dog💩 ");
+        assertThat(small.remaining()).isEqualTo(5);
+        assertThat(large.remaining()).isEqualTo(43);
+    }
+
+    static ByteBuffer directBuffer(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
     @Test
     void writer_charArray() throws IOException {
         char[] chars = "The quick brown fox...".toCharArray();
@@ -0,0 +1,151 @@
+package gg.jte.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Utf8ByteOutputPoolTest {
+
+    Utf8ByteOutputPool pool = new Utf8ByteOutputPool(16, 8, 4); // Small sizes for tests
+
+    @Test
+    void acquire() {
+        Utf8ByteOutput output = pool.acquire();
+        output.writeContent("The quick brown fox jumps over the lazy dog");
+
+        assertThat(toString(output)).isEqualTo("The quick brown fox jumps over the lazy dog");
+        assertThat(pool.getMissCount()).isEqualTo(4); // 3 chunks and the temp buffer
+        assertThat(pool.getHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    void recycle() {
+        Utf8ByteOutput output = pool.acquire();
+        output.writeContent("The quick brown fox jumps over the lazy dog");
+        output.recycle();
+
+        output = pool.acquire();
+        output.writeContent("Hello");
+        output.writeBinaryContent("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        output.writeContent(" and the end.");
+
+        assertThat(toString(output)).isEqualTo("HelloThe quick brown fox jumps over the lazy dog and the end.");
+        assertThat(pool.getMissCount()).isEqualTo(4);
+        assertThat(pool.getHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void recycleTwice() {
+        Utf8ByteOutput output = pool.acquire();
+        output.recycle();
+        output.recycle();
+
+        pool.acquire();
+        pool.acquire();
+
+        assertThat(pool.getMissCount()).isEqualTo(4);
+        assertThat(pool.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bounded() {
+        Utf8ByteOutput output = pool.acquire();
+        output.writeContent("The quick brown fox jumps over the lazy dog, the quick brown fox jumps over the lazy dog");
+        output.recycle();
+
+        assertThat(pool.getMissCount()).isEqualTo(7);
+        assertThat(pool.getDiscardCount()).isEqualTo(2);
+    }
+
+    @Test
+    void notPooled() {
+        Utf8ByteOutput output = new Utf8ByteOutput();
+        output.writeContent("Hello");
+        output.recycle();
+
+        assertThat(toString(output)).isEqualTo("Hello");
+    }
+
+    @Test
+    void concurrentUsage() throws Exception {
+        Utf8ByteOutputPool pool = new Utf8ByteOutputPool(16, 8, 64);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                String content = "Thread " + i + " writes a text that spans multiple chunks.";
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < 1000; ++j) {
+                        Utf8ByteOutput output = pool.acquire();
+                        output.writeContent(content);
+                        assertThat(toString(output)).isEqualTo(content);
+                        output.recycle();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertThat(pool.getHitCount()).isGreaterThan(pool.getMissCount());
+        // No buffer is lost, every thread holds at most 4 chunks and a temp buffer at the same time
+        assertThat(pool.getMissCount()).isLessThanOrEqualTo(8 * 5);
+        assertThat(pool.getDiscardCount()).isEqualTo(0);
+    }
+
+    @Test
+    void concurrentChunksAreNeitherLostNorShared() throws Exception {
+        Utf8ByteOutputPool pool = new Utf8ByteOutputPool(16, 8, 8);
+        Set<byte[]> inUse = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < 10000; ++j) {
+                        byte[] chunk = pool.takeChunk();
+                        assertThat(inUse.add(chunk)).isTrue();
+                        inUse.remove(chunk);
+                        pool.recycleChunk(chunk);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertThat(pool.getMissCount()).isLessThanOrEqualTo(8);
+        assertThat(pool.getDiscardCount()).isEqualTo(0);
+    }
+
+    private static String toString(Utf8ByteOutput output) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            output.writeTo(os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -79,6 +81,32 @@ public class Utf8ByteOutputTest extends AbstractTemplateOutputTest<Utf8ByteOutpu
         thenOutputIs("\uD83D\uDCA9 says 42x \uD83D\uDCA9!!!");
     }
 
+    @Test
+    void binary_buffer_channel() throws IOException {
+        output.writeContent("Hello ");
+        output.writeBinaryContent(directBuffer("The quick brown fox jumps over the lazy dog"));
+        output.writeUserContent(42);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        output.writeTo(Channels.newChannel(os));
+
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("Hello The quick brown fox jumps over the lazy dog42");
+        thenOutputIs("Hello The quick brown fox jumps over the lazy dog42");
+    }
+
+    @Test
+    void binary_buffer_reusedByCaller() throws IOException {
+        ByteBuffer buffer = directBuffer("The quick brown fox jumps over the lazy dog");
+        output.writeBinaryContent(buffer);
+        buffer.position(buffer.limit());
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        output.writeTo(Channels.newChannel(os));
+
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("The quick brown fox jumps over the lazy dog");
+        thenOutputIs("The quick brown fox jumps over the lazy dog");
+    }
+
     @Test
     void utf8_0x00() {
         output.write(0);
@@ -0,0 +1,145 @@
+package gg.jte.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Utf8StreamOutputTest extends AbstractTemplateOutputTest<Utf8StreamOutput> {
+
+    ByteArrayOutputStream os;
+
+    @Override
+    Utf8StreamOutput createTemplateOutput() {
+        os = new ByteArrayOutputStream();
+        return new Utf8StreamOutput(new PartialGatheringChannel(os), 16, 8, 32); // Small sizes for tests
+    }
+
+    @Test
+    void empty() {
+        thenOutputIs("");
+    }
+
+    @Test
+    void longString() {
+        output.writeContent("The quick brown fox jumps over the lazy dog");
+        thenOutputIs("The quick brown fox jumps over the lazy dog");
+    }
+
+    @Test
+    void longStringSpecialChars() {
+        output.writeContent("💩💩💩💩💩💩💩💩💩");
+        thenOutputIs("💩💩💩💩💩💩💩💩💩");
+    }
+
+    @Test
+    void binary_longString() {
+        output.writeBinaryContent("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        thenOutputIs("The quick brown fox jumps over the lazy dog");
+    }
+
+    @Test
+    void mixed() {
+        output.writeContent("💩");
+        output.writeBinaryContent(" says something long ".getBytes(StandardCharsets.UTF_8));
+        output.writeUserContent(42);
+        output.writeContent("x ");
+        output.writeBinaryContent("💩!!! and some more content".getBytes(StandardCharsets.UTF_8));
+        output.writeContent(" end");
+
+        thenOutputIs("💩 says something long 42x 💩!!! and some more content end");
+    }
+
+    @Test
+    void highWaterMark() {
+        output.writeBinaryContent("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        assertThat(os.size()).isEqualTo(0);
+
+        output.writeBinaryContent("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        assertThat(os.size()).isEqualTo(32);
+
+        output.writeContent("0123456789abcdef");
+        assertThat(os.size()).isEqualTo(32);
+
+        output.writeContent("!");
+        assertThat(os.size()).isEqualTo(48);
+
+        thenOutputIs("0123456789abcdef0123456789abcdef0123456789abcdef!");
+    }
+
+    @Test
+    void outputStream() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Utf8StreamOutput output = new Utf8StreamOutput(os);
+        output.writeContent("Hello ");
+        output.writeBinaryContent("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        output.close();
+
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("Hello The quick brown fox jumps over the lazy dog");
+    }
+
+    @Override
+    void thenOutputIs(String expected) {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] bytes = os.toByteArray();
+        assertThat(output.getContentLength()).isEqualTo(bytes.length);
+
+        String actual = new String(bytes, StandardCharsets.UTF_8);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    /**
+     * Writes at most 5 bytes per call, to verify that partial writes are handled.
+     */
+    private static final class PartialGatheringChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream os;
+
+        PartialGatheringChannel(ByteArrayOutputStream os) {
+            this.os = os;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            for (int i = offset; i < offset + length; ++i) {
+                if (srcs[i].hasRemaining()) {
+                    return write(srcs[i]);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int count = Math.min(5, src.remaining());
+            for (int i = 0; i < count; ++i) {
+                os.write(src.get());
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package gg.jte.resolve;
+
+import gg.jte.ContentType;
+import gg.jte.DummyCodeResolver;
+import gg.jte.TemplateEngine;
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CachingCodeResolverTest {
+
+    TrackingCodeResolver directory = new TrackingCodeResolver();
+    TrackingCodeResolver overrides = new TrackingCodeResolver();
+
+    CachingCodeResolver codeResolver = new CachingCodeResolver(overrides, directory);
+
+    @Test
+    void resolveIsCached() {
+        directory.givenCode("hello.jte", "Hello");
+
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello");
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello");
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello");
+
+        assertThat(directory.resolveCount("hello.jte")).isEqualTo(1);
+        assertThat(codeResolver.getHits()).isEqualTo(2);
+        assertThat(codeResolver.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void notFound() {
+        assertThat(codeResolver.resolve("hello.jte")).isNull();
+        assertThat(codeResolver.exists("hello.jte")).isFalse();
+    }
+
+    @Test
+    void contentChanged() {
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+
+        directory.givenCode("hello.jte", "Hello!");
+        directory.changed.add("hello.jte");
+
+        assertThat(codeResolver.hasChanged("hello.jte")).isTrue();
+        assertThat(codeResolver.hasChanged("hello.jte")).isTrue();
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello!");
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+        assertThat(directory.resolveCount("hello.jte")).isEqualTo(2);
+    }
+
+    @Test
+    void touchedWithoutContentChange() {
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+
+        directory.changed.add("hello.jte");
+
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello");
+    }
+
+    @Test
+    void layers() {
+        directory.givenCode("hello.jte", "Hello");
+        directory.givenCode("tag/name.jte", "Name");
+        overrides.givenCode("tag/name.jte", "Overridden name");
+
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello");
+        assertThat(codeResolver.resolve("tag/name.jte")).isEqualTo("Overridden name");
+        assertThat(codeResolver.exists("tag/name.jte")).isTrue();
+        assertThat(codeResolver.resolveAllTemplateNames()).containsExactly("tag/name.jte", "hello.jte");
+    }
+
+    @Test
+    void layers_changeOfOwningLayer() {
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+
+        overrides.changed.add("hello.jte");
+
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+    }
+
+    @Test
+    void layers_addedToHigherLayer() {
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+
+        overrides.givenCode("hello.jte", "Overridden hello");
+
+        assertThat(codeResolver.hasChanged("hello.jte")).isTrue();
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Overridden hello");
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+    }
+
+    @Test
+    void layers_higherLayerWithUnchangedGenerationIsSkipped() {
+        overrides.generation = 1;
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+
+        codeResolver.resolve("hello.jte");
+        assertThat(overrides.existsCount).isEqualTo(0);
+
+        overrides.givenCode("hello.jte", "Overridden hello");
+        overrides.generation = 2;
+
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Overridden hello");
+        assertThat(overrides.existsCount).isEqualTo(1);
+    }
+
+    @Test
+    void existsAfterRemoval() {
+        directory.givenCode("hello.jte", "Hello");
+        codeResolver.resolve("hello.jte");
+        assertThat(codeResolver.exists("hello.jte")).isTrue();
+
+        directory.remove("hello.jte");
+        directory.changed.add("hello.jte");
+
+        assertThat(codeResolver.exists("hello.jte")).isFalse();
+    }
+
+    @Test
+    void hitsAndMissesAreCountedConcurrently() throws InterruptedException {
+        codeResolver = new CachingCodeResolver(new DummyCodeResolver() {{
+            givenCode("hello.jte", "Hello");
+        }});
+        codeResolver.resolve("hello.jte");
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; ++j) {
+                    codeResolver.resolve("hello.jte");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(codeResolver.getHits()).isEqualTo(40000);
+        assertThat(codeResolver.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void layers_listingNotSupported() {
+        codeResolver = new CachingCodeResolver(new ResourceCodeResolver("benchmark"), directory);
+        directory.givenCode("hello.jte", "Hello");
+
+        assertThat(codeResolver.resolveAllTemplateNames()).containsExactly("hello.jte");
+
+        codeResolver = new CachingCodeResolver(new ResourceCodeResolver("benchmark"));
+        assertThat(catchThrowable(() -> codeResolver.resolveAllTemplateNames())).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void eviction() {
+        codeResolver = new CachingCodeResolver(1, directory);
+        directory.givenCode("hello.jte", "Hello");
+        directory.givenCode("world.jte", "World");
+
+        codeResolver.resolve("hello.jte");
+        codeResolver.resolve("world.jte");
+        codeResolver.resolve("hello.jte");
+
+        assertThat(directory.resolveCount("hello.jte")).isEqualTo(2);
+    }
+
+    @Test
+    void tagIsResolvedOnce() {
+        directory.givenCode("tag/name.jte", "@param String name\nHello ${name}!");
+        directory.givenCode("first.jte", "@tag.name(name = \"first\")");
+        directory.givenCode("second.jte", "@tag.name(name = \"second\")");
+
+        TemplateEngine templateEngine = TemplateEngine.create(codeResolver, ContentType.Plain);
+
+        StringOutput output = new StringOutput();
+        templateEngine.render("first.jte", null, output);
+        templateEngine.render("second.jte", null, output);
+
+        assertThat(output.toString()).isEqualTo("Hello first!Hello second!");
+        assertThat(directory.resolveCount("tag/name.jte")).isEqualTo(1);
+    }
+
+    static class TrackingCodeResolver extends DummyCodeResolver {
+        final Set<String> changed = new HashSet<>();
+        final Map<String, Integer> resolveCounts = new HashMap<>();
+        long generation = -1;
+        int existsCount;
+
+        @Override
+        public String resolve(String name) {
+            resolveCounts.merge(name, 1, Integer::sum);
+            changed.remove(name);
+            return super.resolve(name);
+        }
+
+        @Override
+        public boolean exists(String name) {
+            ++existsCount;
+            return super.resolve(name) != null;
+        }
+
+        @Override
+        public boolean hasChanged(String name) {
+            return changed.contains(name);
+        }
+
+        @Override
+        public long getGeneration() {
+            return generation;
+        }
+
+        @Override
+        public List<String> resolveAllTemplateNames() {
+            List<String> names = super.resolveAllTemplateNames();
+            names.sort(null);
+            return names;
+        }
+
+        int resolveCount(String name) {
+            return resolveCounts.getOrDefault(name, 0);
+        }
+    }
+}
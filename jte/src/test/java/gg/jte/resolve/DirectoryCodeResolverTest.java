@@ -1,10 +1,18 @@
 package gg.jte.resolve;
 
+import gg.jte.compiler.IoUtils;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -23,4 +31,114 @@ public class DirectoryCodeResolverTest {
 
         assertThat(modificationTimes).isEmpty();
     }
+
+    @Test
+    void generationIsNotTrackedWithoutWatching() {
+        assertThat(codeResolver.getGeneration()).isEqualTo(-1);
+    }
+
+    @Test
+    void watching() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("temp-code");
+        DirectoryCodeResolver codeResolver = new DirectoryCodeResolver(tempDirectory);
+        try {
+            writeFile(tempDirectory.resolve("test.jte"), "Hello");
+            codeResolver.resolve("test.jte");
+            codeResolver.startWatching();
+            long generation = codeResolver.getGeneration();
+
+            assertThat(codeResolver.hasChanged("test.jte")).isFalse();
+
+            writeFile(tempDirectory.resolve("test.jte"), "Hello!");
+            await(() -> codeResolver.hasChanged("test.jte"));
+            assertThat(codeResolver.getGeneration()).isGreaterThan(generation);
+
+            assertThat(codeResolver.resolve("test.jte")).isEqualTo("Hello!");
+            assertThat(codeResolver.hasChanged("test.jte")).isFalse();
+        } finally {
+            codeResolver.stopWatching();
+            IoUtils.deleteDirectoryContent(tempDirectory);
+        }
+    }
+
+    @Test
+    void watching_newDirectory() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("temp-code");
+        DirectoryCodeResolver codeResolver = new DirectoryCodeResolver(tempDirectory);
+        try {
+            codeResolver.startWatching();
+
+            Files.createDirectories(tempDirectory.resolve("tag"));
+            writeFile(tempDirectory.resolve("tag/name.jte"), "Name");
+            assertThat(codeResolver.resolve("tag/name.jte")).isEqualTo("Name");
+
+            writeFile(tempDirectory.resolve("tag/name.jte"), "Name!");
+            await(() -> codeResolver.hasChanged("tag/name.jte"));
+        } finally {
+            codeResolver.stopWatching();
+            IoUtils.deleteDirectoryContent(tempDirectory);
+        }
+    }
+
+    @Test
+    void watching_directoryDeletedRightAfterCreation() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("temp-code");
+        DirectoryCodeResolver codeResolver = new DirectoryCodeResolver(tempDirectory);
+        try {
+            writeFile(tempDirectory.resolve("test.jte"), "Hello");
+            codeResolver.resolve("test.jte");
+            codeResolver.startWatching();
+
+            for (int i = 0; i < 100; ++i) {
+                Path directory = Files.createDirectories(tempDirectory.resolve("tmp" + i + "/nested"));
+                writeFile(directory.resolve("name.jte"), "Name");
+                IoUtils.deleteDirectoryContent(tempDirectory.resolve("tmp" + i));
+                Files.delete(tempDirectory.resolve("tmp" + i));
+            }
+
+            codeResolver.resolve("test.jte");
+            writeFile(tempDirectory.resolve("test.jte"), "Hello!");
+            await(() -> codeResolver.hasChanged("test.jte"));
+
+            assertThat(codeResolver.getGeneration()).isNotEqualTo(-1);
+        } finally {
+            codeResolver.stopWatching();
+            IoUtils.deleteDirectoryContent(tempDirectory);
+        }
+    }
+
+    @Test
+    void stopWatching() throws Exception {
+        Path tempDirectory = Files.createTempDirectory("temp-code");
+        DirectoryCodeResolver codeResolver = new DirectoryCodeResolver(tempDirectory);
+        try {
+            writeFile(tempDirectory.resolve("test.jte"), "Hello");
+            codeResolver.resolve("test.jte");
+            codeResolver.startWatching();
+            codeResolver.stopWatching();
+
+            assertThat(codeResolver.getGeneration()).isEqualTo(-1);
+
+            Files.setLastModifiedTime(tempDirectory.resolve("test.jte"), FileTime.fromMillis(0));
+            assertThat(codeResolver.hasChanged("test.jte")).isTrue();
+        } finally {
+            IoUtils.deleteDirectoryContent(tempDirectory);
+        }
+    }
+
+    private static void writeFile(Path file, String content) {
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 30000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(timeout);
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,178 @@
+package gg.jte.resolve;
+
+import gg.jte.ContentType;
+import gg.jte.TemplateEngine;
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ZipCodeResolverTest {
+    Path archive;
+    ZipCodeResolver codeResolver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archive = Files.createTempFile("templates", ".jar");
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("jte/"));
+            zip.closeEntry();
+            givenEntry(zip, "jte/hello.jte", "@param String name\nHello ${name}!", ZipEntry.DEFLATED);
+            givenEntry(zip, "jte/tag/greeting.jte", "@param String name\nGrüße, ${name}!", ZipEntry.STORED);
+            givenEntry(zip, "jte/page.jte", "@tag.greeting(name = \"jar\")", ZipEntry.DEFLATED);
+            givenEntry(zip, "jte/readme.txt", "Not a template", ZipEntry.DEFLATED);
+            givenEntry(zip, "other/outside.jte", "Outside", ZipEntry.DEFLATED);
+        }
+
+        codeResolver = new ZipCodeResolver(archive, "jte");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(archive);
+    }
+
+    @Test
+    void resolve() {
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("@param String name\nHello ${name}!");
+        assertThat(codeResolver.resolve("tag/greeting.jte")).isEqualTo("@param String name\nGrüße, ${name}!");
+    }
+
+    @Test
+    void notFound() {
+        assertThat(codeResolver.resolve("does-not-exist.jte")).isNull();
+        assertThat(codeResolver.resolve("outside.jte")).isNull();
+    }
+
+    @Test
+    void exists() {
+        assertThat(codeResolver.exists("hello.jte")).isTrue();
+        assertThat(codeResolver.exists("doesNotExist.jte")).isFalse();
+    }
+
+    @Test
+    void changesNotSupported() {
+        assertThat(codeResolver.hasChanged("hello.jte")).isFalse();
+    }
+
+    @Test
+    void resolveAllTemplateNames() {
+        assertThat(codeResolver.resolveAllTemplateNames()).containsExactlyInAnyOrder("hello.jte", "tag/greeting.jte", "page.jte");
+    }
+
+    @Test
+    void noRoot() {
+        codeResolver = new ZipCodeResolver(archive);
+
+        assertThat(codeResolver.resolve("other/outside.jte")).isEqualTo("Outside");
+        assertThat(codeResolver.resolveAllTemplateNames()).hasSize(4);
+    }
+
+    @Test
+    void render() {
+        TemplateEngine templateEngine = TemplateEngine.create(codeResolver, ContentType.Plain);
+
+        StringOutput output = new StringOutput();
+        templateEngine.render("page.jte", null, output);
+
+        assertThat(output.toString()).isEqualTo("Grüße, jar!");
+    }
+
+    @Test
+    void notAnArchive() throws IOException {
+        Files.write(archive, "Not a zip file".getBytes(StandardCharsets.UTF_8));
+
+        Throwable throwable = catchThrowable(() -> new ZipCodeResolver(archive));
+
+        assertThat(throwable).isInstanceOf(UncheckedIOException.class).hasMessageContaining("Failed to read " + archive);
+    }
+
+    @Test
+    void zip64ExtendedInformation() throws IOException {
+        givenZip64Archive("hello.jte", "Hello zip64", 0L, "broken.jte", "Broken", 1L << 40);
+        codeResolver = new ZipCodeResolver(archive);
+
+        assertThat(codeResolver.resolve("hello.jte")).isEqualTo("Hello zip64");
+        assertThat(codeResolver.resolveAllTemplateNames()).containsExactlyInAnyOrder("hello.jte", "broken.jte");
+
+        Throwable throwable = catchThrowable(() -> codeResolver.resolve("broken.jte"));
+        assertThat(throwable).isInstanceOf(UncheckedIOException.class).hasMessageContaining("Failed to read broken.jte");
+        assertThat(throwable.getCause()).hasMessageStartingWith("Invalid entry, size 6 or offset 10995116").hasMessageEndingWith("is out of range");
+    }
+
+    /**
+     * Writes stored entries, whose central directory records keep sizes and offsets in the zip64 extended information extra field.
+     * @param entries name, content and an offset correction for the local header of each entry
+     */
+    private void givenZip64Archive(Object... entries) throws IOException {
+        ByteArrayOutputStream localHeaders = new ByteArrayOutputStream();
+        ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+
+        for (int i = 0; i < entries.length; i += 3) {
+            byte[] name = ((String) entries[i]).getBytes(StandardCharsets.UTF_8);
+            byte[] content = ((String) entries[i + 1]).getBytes(StandardCharsets.UTF_8);
+            long offset = localHeaders.size() + (long) entries[i + 2];
+
+            CRC32 crc = new CRC32();
+            crc.update(content);
+
+            ByteBuffer localHeader = ByteBuffer.allocate(30 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            localHeader.putInt(0x04034b50).putShort((short) 45).putShort((short) 0).putShort((short) ZipEntry.STORED).putInt(0);
+            localHeader.putInt((int) crc.getValue()).putInt(content.length).putInt(content.length);
+            localHeader.putShort((short) name.length).putShort((short) 0).put(name);
+            localHeaders.write(localHeader.array());
+            localHeaders.write(content);
+
+            ByteBuffer entry = ByteBuffer.allocate(46 + name.length + 28).order(ByteOrder.LITTLE_ENDIAN);
+            entry.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort((short) ZipEntry.STORED).putInt(0);
+            entry.putInt((int) crc.getValue()).putInt(0xFFFFFFFF).putInt(0xFFFFFFFF);
+            entry.putShort((short) name.length).putShort((short) 28).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+            entry.putInt(0xFFFFFFFF).put(name);
+            entry.putShort((short) 0x0001).putShort((short) 24).putLong(content.length).putLong(content.length).putLong(offset);
+            centralDirectory.write(entry.array());
+        }
+
+        ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) (entries.length / 3)).putShort((short) (entries.length / 3));
+        end.putInt(centralDirectory.size()).putInt(localHeaders.size()).putShort((short) 0);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        result.write(localHeaders.toByteArray());
+        result.write(centralDirectory.toByteArray());
+        result.write(end.array());
+        Files.write(archive, result.toByteArray());
+    }
+
+    private static void givenEntry(ZipOutputStream zip, String name, String content, int method) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setCrc(crc.getValue());
+            entry.setSize(bytes.length);
+        }
+
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+}
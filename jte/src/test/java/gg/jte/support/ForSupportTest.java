@@ -2,7 +2,13 @@ package gg.jte.support;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 class ForSupportTest {
     StringBuilder result = new StringBuilder();
@@ -20,4 +26,83 @@ class ForSupportTest {
                 "First: false, Last: false, Index: 1, Item: two\n" +
                 "First: false, Last: true, Index: 2, Item: three\n");
     }
-}
\ No newline at end of file
+
+    @Test
+    void randomAccessList() {
+        for (ForSupport<String> item : ForSupport.of(Arrays.asList("one", "two", "three"))) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIsOneTwoThree();
+    }
+
+    @Test
+    void linkedList() {
+        for (ForSupport<String> item : ForSupport.of(new LinkedList<>(Arrays.asList("one", "two", "three")))) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIsOneTwoThree();
+    }
+
+    @Test
+    void advance() {
+        ForSupport<String> item = ForSupport.of(Arrays.asList("one", "two", "three"));
+        while (item.advance()) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIsOneTwoThree();
+        assertThat(item.hasNext()).isFalse();
+        assertThat(catchThrowable(item::next)).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void empty() {
+        assertThat(ForSupport.of(Collections.emptyList()).advance()).isFalse();
+        assertThat(ForSupport.of(new String[0]).hasNext()).isFalse();
+        assertThat(ForSupport.of(new int[0]).advance()).isFalse();
+    }
+
+    @Test
+    void intArray() {
+        for (IntForSupport item : ForSupport.of(new int[]{1, 2, 3})) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIs(1, 2, 3);
+    }
+
+    @Test
+    void longArray() {
+        for (LongForSupport item : ForSupport.of(new long[]{1L, 2L, 3L})) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIs(1L, 2L, 3L);
+    }
+
+    @Test
+    void doubleArray() {
+        for (DoubleForSupport item : ForSupport.of(new double[]{1.0, 2.0, 3.0})) {
+            append(item.isFirst(), item.isLast(), item.getIndex(), item.get());
+        }
+
+        thenResultIs(1.0, 2.0, 3.0);
+    }
+
+    private void append(boolean first, boolean last, int index, Object item) {
+        result.append("First: ").append(first).append(", Last: ").append(last).append(", Index: ").append(index).append(", Item: ").append(item).append('\n');
+    }
+
+    private void thenResultIsOneTwoThree() {
+        thenResultIs("one", "two", "three");
+    }
+
+    private void thenResultIs(Object one, Object two, Object three) {
+        assertThat(result.toString()).isEqualTo(
+                "First: true, Last: false, Index: 0, Item: " + one + "\n" +
+                "First: false, Last: false, Index: 1, Item: " + two + "\n" +
+                "First: false, Last: true, Index: 2, Item: " + three + "\n");
+    }
+}
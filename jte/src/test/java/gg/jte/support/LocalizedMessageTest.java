@@ -0,0 +1,101 @@
+package gg.jte.support;
+
+import gg.jte.Content;
+import gg.jte.output.StringOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalizedMessageTest {
+
+    @AfterEach
+    void tearDown() {
+        LocalizedMessage.setMaxCacheSize(LocalizedMessage.DEFAULT_MAX_CACHE_SIZE);
+        LocalizedMessage.clearCache();
+    }
+
+    @Test
+    void noPlaceholders() {
+        LocalizedMessage message = LocalizedMessage.parse("Hello world");
+        assertThat(message.getPlaceholderCount()).isEqualTo(0);
+        assertThat(render(message)).isEqualTo("Hello world");
+    }
+
+    @Test
+    void placeholders() {
+        LocalizedMessage message = LocalizedMessage.parse("{0} says hello to {1}, {0}!");
+        assertThat(message.getPlaceholderCount()).isEqualTo(3);
+        assertThat(render(message, "Sam", 42)).isEqualTo("Sam says hello to 42, Sam!");
+    }
+
+    @Test
+    void adjacentPlaceholders() {
+        assertThat(render(LocalizedMessage.parse("{0}{1}{0}"), 'a', true)).isEqualTo("atruea");
+    }
+
+    @Test
+    void noPlaceholderSyntax() {
+        LocalizedMessage message = LocalizedMessage.parse("{} {a} {1 {2a} } {");
+        assertThat(message.getPlaceholderCount()).isEqualTo(0);
+        assertThat(render(message, "x")).isEqualTo("{} {a} {1 {2a} } {");
+    }
+
+    @Test
+    void nonAsciiDigits() {
+        LocalizedMessage message = LocalizedMessage.parse("{\u0663} {\uFF11}");
+        assertThat(message.getPlaceholderCount()).isEqualTo(0);
+        assertThat(render(message, "x", "y")).isEqualTo("{\u0663} {\uFF11}");
+    }
+
+    @Test
+    void missingParams() {
+        assertThat(render(LocalizedMessage.parse("a{0}b{1}c{2}d"), "x", null)).isEqualTo("axbcd");
+    }
+
+    @Test
+    void indexOverflow() {
+        assertThat(render(LocalizedMessage.parse("a{99999999999999999999}b"), "x")).isEqualTo("ab");
+    }
+
+    @Test
+    void contentParam() {
+        Content content = output -> output.writeContent("<b>content</b>");
+        assertThat(render(LocalizedMessage.parse("Hello {0}"), content)).isEqualTo("Hello <b>content</b>");
+    }
+
+    @Test
+    void cache() {
+        LocalizedMessage.clearCache();
+
+        LocalizedMessage first = LocalizedMessage.get("Hello {0}");
+        LocalizedMessage second = LocalizedMessage.get("Hello {0}");
+
+        assertThat(second).isSameAs(first);
+        assertThat(LocalizedMessage.getCacheMisses()).isEqualTo(1);
+        assertThat(LocalizedMessage.getCacheHits()).isEqualTo(1);
+        assertThat(LocalizedMessage.getCacheSize()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheIsBounded() {
+        LocalizedMessage.clearCache();
+        LocalizedMessage.setMaxCacheSize(10);
+
+        for (int i = 0; i < 100; ++i) {
+            LocalizedMessage.get("Message " + i + " {0}");
+        }
+
+        assertThat(LocalizedMessage.getCacheSize()).isLessThanOrEqualTo(10);
+        assertThat(LocalizedMessage.getCacheMisses()).isEqualTo(100);
+
+        LocalizedMessage.get("Message 99 {0}");
+        assertThat(LocalizedMessage.getCacheHits()).isEqualTo(1);
+    }
+
+    private String render(LocalizedMessage message, Object... params) {
+        StringOutput output = new StringOutput();
+        message.writeTo(output, params);
+        return output.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package gg.jte;
+
+import gg.jte.output.StringOutput;
+import gg.jte.runtime.Template;
+import gg.jte.runtime.TemplateType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplateDispatchTest {
+
+    private final TemplateOutputTest.WelcomePage page = new TemplateOutputTest.WelcomePage(42);
+
+    private Method render;
+    private Template template;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TemplateDispatchTest.class.getSimpleName())
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        render = TemplateOutputTest.JtewelcomeGenerated_TemplateOutput.class.getMethod("render", TemplateOutput.class, gg.jte.html.HtmlInterceptor.class, TemplateOutputTest.WelcomePage.class);
+        template = new Template("welcome.jte", TemplateType.Template, TemplateOutputTest.JtewelcomeGenerated_TemplateOutput.class);
+    }
+
+    @Benchmark
+    public String direct() {
+        TemplateOutput output = new StringOutput();
+        TemplateOutputTest.JtewelcomeGenerated_TemplateOutput.render(output, null, page);
+        return output.toString();
+    }
+
+    @Benchmark
+    public String reflection() throws Exception {
+        TemplateOutput output = new StringOutput();
+        render.invoke(null, output, null, page);
+        return output.toString();
+    }
+
+    @Benchmark
+    public String template() throws Throwable {
+        TemplateOutput output = new StringOutput();
+        template.render(output, null, page);
+        return output.toString();
+    }
+}
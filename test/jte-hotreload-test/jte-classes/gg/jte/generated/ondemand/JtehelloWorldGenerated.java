@@ -0,0 +1,18 @@
+package gg.jte.generated.ondemand;
+public final class JtehelloWorldGenerated {
+	public static final String JTE_NAME = "helloWorld.jte";
+	public static final int[] JTE_LINE_INFO = {0,0,0,0,1,1,1};
+	public static void render(gg.jte.html.HtmlTemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, test.Model model) {
+		jteOutput.forTagBody("html").writeUserContent(model.hello);
+		jteOutput.writeContent(" changed World");
+	}
+	public static void renderMap(gg.jte.html.HtmlTemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, java.util.Map<String, Object> params) {
+		test.Model model = (test.Model)params.get("model");
+		render(jteOutput, jteHtmlInterceptor, model);
+	}
+	public static void renderArray(gg.jte.html.HtmlTemplateOutput jteOutput, gg.jte.html.HtmlInterceptor jteHtmlInterceptor, Object[] params) {
+		gg.jte.runtime.TemplateUtils.checkParamCount(JTE_NAME, params, 1, 1);
+		test.Model model = (test.Model)params[0];
+		render(jteOutput, jteHtmlInterceptor, model);
+	}
+}